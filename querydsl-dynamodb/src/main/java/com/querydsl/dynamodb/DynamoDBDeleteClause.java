@@ -0,0 +1,151 @@
+package com.querydsl.dynamodb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.*;
+import com.querydsl.core.dml.DeleteClause;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.dynamodb.impl.Backoff;
+import com.querydsl.dynamodb.impl.BatchWriter;
+import com.querydsl.dynamodb.impl.DynamoDBExecutors;
+import com.querydsl.dynamodb.impl.DynamodbSerializer;
+import com.querydsl.dynamodb.impl.EntityMetadata;
+import com.querydsl.dynamodb.impl.KeyLookup;
+import com.querydsl.dynamodb.impl.Pages;
+
+/**
+ * DynamoDBDeleteClause is the implementation of the {@link DeleteClause} for DynamoDB
+ *
+ * <p>The keys of the matching items are read with a scan of the key attributes, or taken directly
+ * from the predicate when it is a primary key lookup, and deleted with BatchWriteItem requests of
+ * 25 items while the scan proceeds.</p>
+ *
+ * @author velo
+ */
+public class DynamoDBDeleteClause implements DeleteClause<DynamoDBDeleteClause> {
+
+    private final AmazonDynamoDB client;
+
+    private final EntityPath<?> entityPath;
+
+    private final DynamodbSerializer serializer = DynamodbSerializer.DEFAULT;
+
+    private final List<DynamoDBQueryListener> listeners = new CopyOnWriteArrayList<DynamoDBQueryListener>();
+
+    @Nullable
+    private Predicate where;
+
+    private ExecutorService executor = DynamoDBExecutors.defaultExecutor();
+
+    private int concurrency = DynamoDBInsertClause.DEFAULT_CONCURRENCY;
+
+    public DynamoDBDeleteClause(AmazonDynamoDB client, EntityPath<?> entityPath) {
+        this.client = client;
+        this.entityPath = entityPath;
+    }
+
+    /**
+     * Set the executor used to run the batches
+     *
+     * @param executor executor
+     * @return the current object
+     */
+    public DynamoDBDeleteClause executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of batches in flight
+     *
+     * @param concurrency number of concurrent batches
+     * @return the current object
+     */
+    public DynamoDBDeleteClause concurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Invalid concurrency: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Add a listener to be notified about the scan, the written batches and the throughput
+     *
+     * @param listener listener
+     * @return the current object
+     */
+    public DynamoDBDeleteClause addListener(DynamoDBQueryListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    @Override
+    public DynamoDBDeleteClause where(Predicate... o) {
+        for (Predicate predicate : o) {
+            where = ExpressionUtils.and(where, predicate);
+        }
+        return this;
+    }
+
+    @Override
+    public long execute() {
+        String tableName = EntityMetadata.get(entityPath).getTableName();
+        BatchWriter writer = new BatchWriter(client, tableName, executor, concurrency, Backoff.DEFAULT,
+                new DynamoDBQueryMetrics("BatchWriteItem", tableName, listeners));
+
+        List<Map<String, AttributeValue>> keys = where != null
+                ? KeyLookup.getKeys(entityPath.getType(), where, serializer) : null;
+        if (keys != null) {
+            for (Map<String, AttributeValue> key : keys) {
+                writer.add(delete(key));
+            }
+            return writer.finish();
+        }
+
+        List<String> keyAttributes = new ArrayList<String>();
+        TableDescription table = client.describeTable(new DescribeTableRequest().withTableName(tableName)).getTable();
+        for (KeySchemaElement element : table.getKeySchema()) {
+            keyAttributes.add(element.getAttributeName());
+        }
+        ScanRequest request = new ScanRequest(tableName)
+                .withAttributesToGet(keyAttributes)
+                .withReturnConsumedCapacity(ReturnConsumedCapacity.INDEXES);
+        if (where != null) {
+            request.setScanFilter(serializer.handle(KeyLookup.expandShards(entityPath.getType(), where))
+                    .getScanFilter());
+        }
+        DynamoDBQueryMetrics metrics = new DynamoDBQueryMetrics("Scan", tableName, listeners);
+        try {
+            do {
+                ScanResult result = Pages.scan(client, request, null, metrics);
+                for (Map<String, AttributeValue> key : result.getItems()) {
+                    writer.add(delete(key));
+                }
+                request.setExclusiveStartKey(result.getLastEvaluatedKey());
+            } while (Pages.hasMore(request.getExclusiveStartKey()));
+        } finally {
+            metrics.complete();
+        }
+        return writer.finish();
+    }
+
+    private static WriteRequest delete(Map<String, AttributeValue> key) {
+        return new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key));
+    }
+
+    @Override
+    public String toString() {
+        return "delete from " + entityPath + (where != null ? " where " + where : "");
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.querydsl.dynamodb;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.querydsl.core.dml.InsertClause;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.dynamodb.impl.Backoff;
+import com.querydsl.dynamodb.impl.BatchWriter;
+import com.querydsl.dynamodb.impl.DynamoDBExecutors;
+import com.querydsl.dynamodb.impl.DynamodbSerializer;
+import com.querydsl.dynamodb.impl.EntityMetadata;
+
+/**
+ * DynamoDBInsertClause is the implementation of the {@link InsertClause} for DynamoDB
+ *
+ * <p>Items are collected with {@link #addBatch()} and written with BatchWriteItem requests of
+ * 25 items, several of which are kept in flight concurrently.</p>
+ *
+ * <pre>
+ * DynamoDBInsertClause insert = new DynamoDBInsertClause(client, user);
+ * for (...) {
+ *     insert.set(user.id, id).set(user.firstName, firstName).addBatch();
+ * }
+ * insert.execute();
+ * </pre>
+ *
+ * @author velo
+ */
+public class DynamoDBInsertClause implements InsertClause<DynamoDBInsertClause> {
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private final AmazonDynamoDB client;
+
+    private final EntityPath<?> entityPath;
+
+    private final DynamodbSerializer serializer = DynamodbSerializer.DEFAULT;
+
+    private final List<Map<String, AttributeValue>> batch = new ArrayList<Map<String, AttributeValue>>();
+
+    private Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+
+    private final List<Path<?>> columns = new ArrayList<Path<?>>();
+
+    private final List<DynamoDBQueryListener> listeners = new CopyOnWriteArrayList<DynamoDBQueryListener>();
+
+    private ExecutorService executor = DynamoDBExecutors.defaultExecutor();
+
+    private int concurrency = DEFAULT_CONCURRENCY;
+
+    public DynamoDBInsertClause(AmazonDynamoDB client, EntityPath<?> entityPath) {
+        this.client = client;
+        this.entityPath = entityPath;
+    }
+
+    /**
+     * Set the executor used to run the batches
+     *
+     * @param executor executor
+     * @return the current object
+     */
+    public DynamoDBInsertClause executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of batches in flight
+     *
+     * @param concurrency number of concurrent batches
+     * @return the current object
+     */
+    public DynamoDBInsertClause concurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Invalid concurrency: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Add a listener to be notified about the written batches and the throughput
+     *
+     * @param listener listener
+     * @return the current object
+     */
+    public DynamoDBInsertClause addListener(DynamoDBQueryListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Add the current item to the batch and start a new one
+     *
+     * @return the current object
+     */
+    public DynamoDBInsertClause addBatch() {
+        if (!item.isEmpty()) {
+            batch.add(item);
+            item = new HashMap<String, AttributeValue>();
+        }
+        return this;
+    }
+
+    @Override
+    public DynamoDBInsertClause columns(Path<?>... columns) {
+        this.columns.clear();
+        this.columns.addAll(Arrays.asList(columns));
+        return this;
+    }
+
+    @Override
+    public DynamoDBInsertClause select(SubQueryExpression<?> subQuery) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DynamoDBInsertClause values(Object... v) {
+        if (v.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + v.length);
+        }
+        for (int i = 0; i < v.length; i++) {
+            Object value = v[i] instanceof Constant ? ((Constant<?>) v[i]).getConstant() : v[i];
+            put(columns.get(i), value);
+        }
+        return this;
+    }
+
+    @Override
+    public <T> DynamoDBInsertClause set(Path<T> path, @Nullable T value) {
+        put(path, value);
+        return this;
+    }
+
+    @Override
+    public <T> DynamoDBInsertClause set(Path<T> path, Expression<? extends T> expression) {
+        if (!(expression instanceof Constant)) {
+            throw new UnsupportedOperationException("Only constants are supported: " + expression);
+        }
+        put(path, ((Constant<?>) expression).getConstant());
+        return this;
+    }
+
+    @Override
+    public <T> DynamoDBInsertClause setNull(Path<T> path) {
+        put(path, null);
+        return this;
+    }
+
+    private void put(Path<?> path, @Nullable Object value) {
+        if (path.getMetadata().getParent() == null || !path.getMetadata().getParent().getMetadata().isRoot()) {
+            throw new IllegalArgumentException("Only top level attributes can be set: " + path);
+        }
+        String attribute = (String) serializer.visit(path, null);
+        if (value == null) {
+            item.remove(attribute);
+        } else {
+            item.put(attribute, serializer.toAttributeValue(path, value));
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return batch.isEmpty() && item.isEmpty();
+    }
+
+    @Override
+    public long execute() {
+        addBatch();
+        EntityMetadata metadata = EntityMetadata.get(entityPath);
+        String tableName = metadata.getTableName();
+        BatchWriter writer = new BatchWriter(client, tableName, executor, concurrency, Backoff.DEFAULT,
+                new DynamoDBQueryMetrics("BatchWriteItem", tableName, listeners));
+        try {
+            for (Map<String, AttributeValue> attributes : getDistinctItems(metadata)) {
+                writer.add(new WriteRequest().withPutRequest(new PutRequest().withItem(attributes)));
+            }
+        } finally {
+            batch.clear();
+        }
+        return writer.finish();
+    }
+
+    /**
+     * BatchWriteItem rejects requests which write the same primary key twice, so only the last
+     * item of each key is kept
+     */
+    private Collection<Map<String, AttributeValue>> getDistinctItems(EntityMetadata metadata) {
+        if (metadata.getHashKey() == null) {
+            return batch;
+        }
+        String hashAttribute = metadata.getAttributeName(metadata.getHashKey());
+        String rangeAttribute = metadata.getRangeKey() != null
+                ? metadata.getAttributeName(metadata.getRangeKey()) : null;
+        Map<List<AttributeValue>, Map<String, AttributeValue>> items
+                = new LinkedHashMap<List<AttributeValue>, Map<String, AttributeValue>>();
+        for (Map<String, AttributeValue> attributes : batch) {
+            List<AttributeValue> key = Arrays.asList(attributes.get(hashAttribute),
+                    rangeAttribute != null ? attributes.get(rangeAttribute) : null);
+            items.remove(key);
+            items.put(key, attributes);
+        }
+        return items.values();
+    }
+
+    @Override
+    public String toString() {
+        return "insert " + entityPath + " " + batch.size() + " items";
+    }
+
+}
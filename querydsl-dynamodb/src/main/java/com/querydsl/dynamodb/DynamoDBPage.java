@@ -0,0 +1,44 @@
+package com.querydsl.dynamodb;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * DynamoDBPage is a page of results of {@link DynamoDBQuery#fetchPage(int, String)} together with
+ * the cursor to read the following page
+ *
+ * @param <T> result type
+ * @author velo
+ */
+public class DynamoDBPage<T> {
+
+    private final List<T> results;
+
+    @Nullable
+    private final String cursor;
+
+    public DynamoDBPage(List<T> results, @Nullable String cursor) {
+        this.results = results;
+        this.cursor = cursor;
+    }
+
+    public List<T> getResults() {
+        return results;
+    }
+
+    /**
+     * Get the cursor of the following page
+     *
+     * @return cursor or null, if this is the last page
+     */
+    @Nullable
+    public String getCursor() {
+        return cursor;
+    }
+
+    public boolean hasNext() {
+        return cursor != null;
+    }
+
+}
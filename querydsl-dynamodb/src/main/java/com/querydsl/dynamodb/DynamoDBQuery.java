@@ -1,24 +1,104 @@
 package com.querydsl.dynamodb;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nullable;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedScanList;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.Select;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.*;
 import com.querydsl.core.support.QueryMixin;
 import com.querydsl.core.types.*;
+import com.querydsl.dynamodb.impl.Aggregation;
+import com.querydsl.dynamodb.impl.AsyncPages;
+import com.querydsl.dynamodb.impl.Backoff;
+import com.querydsl.dynamodb.impl.BatchLoader;
+import com.querydsl.dynamodb.impl.DynamoDBExecutors;
+import com.querydsl.dynamodb.impl.DynamodbExpression;
+import com.querydsl.dynamodb.impl.DynamodbExpressionSerializer;
 import com.querydsl.dynamodb.impl.DynamodbSerializer;
+import com.querydsl.dynamodb.impl.EntityMetadata;
+import com.querydsl.dynamodb.impl.KeyLookup;
+import com.querydsl.dynamodb.impl.PageCursor;
+import com.querydsl.dynamodb.impl.Pages;
+import com.querydsl.dynamodb.impl.ParallelScan;
+import com.querydsl.dynamodb.impl.QueryPlan;
+import com.querydsl.dynamodb.impl.ShardedQuery;
+import com.querydsl.dynamodb.impl.Tasks;
 
 /**
  * DynamoDBQuery is the implementation of the {@link SimpleQuery} for DynamoDB
  *
+ * <p>Paths given to {@link #fetch(Path[])} are pushed down to DynamoDB as the attributes to get,
+ * so only the projected attributes are read and the returned entities are partially populated.</p>
+ *
+ * <p>Predicates which consist only of {@code eq}/{@code in} conditions on the full primary key are
+ * executed with concurrent BatchGetItem requests instead of a table scan. Predicates with an equality
+ * condition on the hash key of the table or of a secondary index are executed as a Query on it, using
+ * a condition on the corresponding range key as part of the key condition. Secondary indexes are only
+ * queried if they return complete items, so global indexes need to project all attributes, which is
+ * checked with a DescribeTable request once per query.</p>
+ *
+ * <p>Hash keys declared as {@link ShardedHashKey} are queried on all shards concurrently and the results
+ * are merged, by range key if ordered, before offset and limit are applied.</p>
+ *
+ * <p>Results can only be ordered by the range key of the queried table or index, which is mapped to
+ * the direction of the Query, any other ordering fails. Limits are pushed down, so the
+ * "latest 20 events of a device" read 20 items.</p>
+ *
+ * <p>By default predicates are serialized into legacy scan filter conditions, which can only be combined
+ * with AND. After {@link #useExpressions()} they are serialized into filter expressions, which also
+ * support OR, NOT, {@code size()} and nested attributes.</p>
+ *
+ * <p>If the query type has a {@link TableDescriptor} generated by the annotation processor, it is used
+ * for planning and for mapping the items to entities without reflection.</p>
+ *
+ * <p>Every request asks for the consumed capacity, which is reported together with the page counts
+ * and timings to the registered {@link DynamoDBQueryListener}s.</p>
+ *
+ * <p>Scans can be split into parallel {@link #segments(int) segments} and paced with a
+ * {@link ReadCapacityLimiter} to leave provisioned capacity for other traffic on the table.</p>
+ *
+ * <p>Large results can be read page by page with {@link #fetchPage(int, String)}, which returns an
+ * opaque cursor to continue from, so every page costs the same independent of its position.</p>
+ *
+ * <p>Queries created with an {@link AmazonDynamoDBAsync} client can also be executed with
+ * {@link #fetchAsync()}, {@link #fetchCountAsync()} and {@link #fetchFirstAsync()}, which request each
+ * page from the completion callback of the previous one instead of blocking the caller. These can't be
+ * combined with a {@link #rateLimit(ReadCapacityLimiter) rate limit}.</p>
+ *
  * @param <Q> result type
  * @author velo
  */
@@ -27,8 +107,18 @@ public class DynamoDBQuery<Q> implements SimpleQuery<DynamoDBQuery<Q>>, Fetchabl
     private AmazonDynamoDB client;
     private DynamoDBMapper mapper;
     private final DynamodbSerializer serializer;
+    private final DynamodbExpressionSerializer expressionSerializer = DynamodbExpressionSerializer.DEFAULT;
     private final QueryMixin<DynamoDBQuery<Q>> queryMixin;
     private EntityPath<Q> entityPath;
+    private final EntityMetadata entityMetadata;
+    private ExecutorService executor = DynamoDBExecutors.defaultExecutor();
+    private boolean useExpressions;
+    private final List<DynamoDBQueryListener> listeners = new CopyOnWriteArrayList<DynamoDBQueryListener>();
+    private int totalSegments = 1;
+    @Nullable
+    private ReadCapacityLimiter limiter;
+    @Nullable
+    private Set<String> queryableIndexes;
 
     public DynamoDBQuery(AmazonDynamoDB client, EntityPath<Q> entityPath) {
         this.queryMixin = new QueryMixin<DynamoDBQuery<Q>>(this,
@@ -37,6 +127,11 @@ public class DynamoDBQuery<Q> implements SimpleQuery<DynamoDBQuery<Q>>, Fetchabl
         this.mapper = new DynamoDBMapper(this.client);
         this.serializer = DynamodbSerializer.DEFAULT;
         this.entityPath = entityPath;
+        this.entityMetadata = EntityMetadata.get(entityPath);
+    }
+
+    public DynamoDBQuery(AmazonDynamoDBAsync client, EntityPath<Q> entityPath) {
+        this((AmazonDynamoDB) client, entityPath);
     }
 
     @Override
@@ -44,31 +139,117 @@ public class DynamoDBQuery<Q> implements SimpleQuery<DynamoDBQuery<Q>>, Fetchabl
         return queryMixin.where(e);
     }
 
-    @Override
-    public CloseableIterator<Q> iterate() {
-        final Iterator<? extends Q> iterator = query().iterator();
-        return new CloseableIterator<Q>() {
-            @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
-            }
+    /**
+     * Set the executor used to run concurrent requests
+     *
+     * @param executor executor
+     * @return the current object
+     */
+    public DynamoDBQuery<Q> executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
 
-            @Override
-            public Q next() {
-                return iterator.next();
-            }
+    /**
+     * Scan the table in the given number of parallel segments
+     *
+     * @param totalSegments number of segments
+     * @return the current object
+     */
+    public DynamoDBQuery<Q> segments(int totalSegments) {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("Invalid number of segments: " + totalSegments);
+        }
+        this.totalSegments = totalSegments;
+        return this;
+    }
 
-            @Override
-            public void remove() {
-                iterator.remove();
-            }
+    /**
+     * Pace the requests of this query with the given limiter
+     *
+     * <p>Rate limited queries can only be executed synchronously.</p>
+     *
+     * @param limiter limiter, which may be shared with other queries
+     * @return the current object
+     */
+    public DynamoDBQuery<Q> rateLimit(ReadCapacityLimiter limiter) {
+        this.limiter = limiter;
+        return this;
+    }
 
-            @Override
-            public void close() {
+    /**
+     * Add a listener to be notified about the cost of the executions of this query
+     *
+     * @param listener listener
+     * @return the current object
+     */
+    public DynamoDBQuery<Q> addListener(DynamoDBQueryListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Serialize the predicates and projections into DynamoDB expressions instead of legacy conditions
+     *
+     * @return the current object
+     */
+    public DynamoDBQuery<Q> useExpressions() {
+        this.useExpressions = true;
+        return this;
+    }
+
+    @Override
+    public CloseableIterator<Q> iterate() {
+        return createIterator(queryMixin.getMetadata().getModifiers());
+    }
+
+    private ItemIterator createIterator(QueryModifiers modifiers) {
+        QueryMetadata metadata = queryMixin.getMetadata();
+        List<String> attributes = getProjectedAttributes(metadata);
+        List<Map<String, AttributeValue>> keys = metadata.getOrderBy().isEmpty() ? getKeys(metadata) : null;
+        if (keys != null) {
+            DynamoDBQueryMetrics metrics = createMetrics("BatchGetItem");
+            return new ItemIterator(loadItems(keys, attributes, metrics).iterator(), metrics, modifiers);
+        }
+        QueryPlan plan = createPlan(metadata.getWhere(), metadata.getOrderBy());
+        ShardedHashKey sharding = getSharding(plan);
+        if (sharding != null) {
+            String rangeAttribute = null;
+            if (plan.getAscending() != null) {
+                // the merge needs the range key of every item
+                rangeAttribute = entityMetadata.getAttributeName(plan.getRangeKey());
+                if (!attributes.isEmpty() && !attributes.contains(rangeAttribute)) {
+                    attributes = new ArrayList<String>(attributes);
+                    attributes.add(rangeAttribute);
+                }
             }
-        };
+            DynamoDBQueryMetrics metrics = createMetrics("Query");
+            Iterator<Map<String, AttributeValue>> items = new ShardedQuery(client, executor, limiter).iterate(
+                    createShardRequests(plan, attributes, modifiers, sharding), rangeAttribute,
+                    !Boolean.FALSE.equals(plan.getAscending()), metrics);
+            return new ItemIterator(items, metrics, modifiers);
+        } else if (plan != null) {
+            return new QueryIterator(createQueryRequest(plan, attributes, modifiers), createMetrics("Query"),
+                    modifiers);
+        }
+        ScanRequest request = createScanRequest(metadata, attributes);
+        if (totalSegments > 1) {
+            DynamoDBQueryMetrics metrics = createMetrics("Scan");
+            return new SegmentedScanIterator(
+                    new ParallelScan(client, request, totalSegments, executor, limiter, metrics), metrics, modifiers);
+        }
+        if (metadata.getWhere() == null && modifiers.getLimit() != null) {
+            request.setLimit(getPageLimit(modifiers));
+        }
+        return new ScanIterator(request, createMetrics("Scan"), modifiers);
     }
 
+    /**
+     * Fetch the results with only the given paths loaded from DynamoDB
+     *
+     * @param paths attributes to read
+     * @return partially populated entities
+     */
     public List<Q> fetch(Path<?>... paths) {
         queryMixin.setProjection(paths);
         return fetch();
@@ -76,27 +257,219 @@ public class DynamoDBQuery<Q> implements SimpleQuery<DynamoDBQuery<Q>>, Fetchabl
 
     @Override
     public List<Q> fetch() {
-        PaginatedScanList<? extends Q> result = query();
-        return cast(result);
+        List<Q> result = new ArrayList<Q>();
+        CloseableIterator<Q> iterator = iterate();
+        try {
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+        return result;
     }
 
-    private PaginatedScanList<? extends Q> query() {
-        DynamoDBScanExpression query = createQuery(queryMixin.getMetadata());
-        PaginatedScanList<? extends Q> result = mapper.scan(entityPath.getType(), query);
-        return result;
+    private DynamoDBQueryMetrics createMetrics(String operation) {
+        return new DynamoDBQueryMetrics(operation, getTableName(), listeners);
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    private List<Q> cast(PaginatedScanList result) {
-        return new ArrayList<Q>(result);
+    private ScanRequest createScanRequest(QueryMetadata queryMetadata, List<String> attributes) {
+        Predicate where = queryMetadata.getWhere();
+        ScanRequest request = new ScanRequest(getTableName())
+                .withReturnConsumedCapacity(ReturnConsumedCapacity.INDEXES);
+        if (useExpressions) {
+            DynamodbExpression context = new DynamodbExpression();
+            if (where != null) {
+                request.setFilterExpression(expressionSerializer.handle(where, context));
+            }
+            if (!attributes.isEmpty()) {
+                request.setProjectionExpression(getProjectionExpression(attributes, context));
+            }
+            request.withExpressionAttributeNames(context.getNames())
+                   .withExpressionAttributeValues(context.getValues());
+        } else {
+            if (where != null) {
+                request.setScanFilter(serializer.handle(where).getScanFilter());
+            }
+            if (!attributes.isEmpty()) {
+                request.setAttributesToGet(attributes);
+            }
+        }
+        if (!attributes.isEmpty()) {
+            request.setSelect(Select.SPECIFIC_ATTRIBUTES);
+        }
+        return request;
     }
 
-    private DynamoDBScanExpression createQuery(@Nullable QueryMetadata queryMetadata) {
-        if (queryMetadata.getWhere() != null) {
-            return serializer.handle(queryMetadata.getWhere());
+    private QueryRequest createQueryRequest(QueryPlan plan, List<String> attributes,
+            @Nullable QueryModifiers modifiers) {
+        QueryRequest request = new QueryRequest(getTableName())
+                .withIndexName(plan.getIndexName())
+                .withReturnConsumedCapacity(ReturnConsumedCapacity.INDEXES);
+        if (useExpressions) {
+            DynamodbExpression context = new DynamodbExpression();
+            request.setKeyConditionExpression(expressionSerializer.handle(plan.getKeyCondition(), context));
+            if (plan.getFilter() != null) {
+                request.setFilterExpression(expressionSerializer.handle(plan.getFilter(), context));
+            }
+            if (!attributes.isEmpty()) {
+                request.setProjectionExpression(getProjectionExpression(attributes, context));
+            }
+            request.withExpressionAttributeNames(context.getNames())
+                   .withExpressionAttributeValues(context.getValues());
         } else {
-            return new DynamoDBScanExpression();
+            request.setKeyConditions(serializer.handle(plan.getKeyCondition()).getScanFilter());
+            if (plan.getFilter() != null) {
+                request.setQueryFilter(serializer.handle(plan.getFilter()).getScanFilter());
+            }
+            if (!attributes.isEmpty()) {
+                request.setAttributesToGet(attributes);
+            }
+        }
+        if (!attributes.isEmpty()) {
+            request.setSelect(Select.SPECIFIC_ATTRIBUTES);
+        } else if (plan.getIndexName() != null) {
+            // local indexes read the attributes which are not projected from the table
+            request.setSelect(Select.ALL_ATTRIBUTES);
+        }
+        if (plan.getAscending() != null) {
+            request.setScanIndexForward(plan.getAscending());
+        }
+        if (plan.getFilter() == null && modifiers != null && modifiers.getLimit() != null) {
+            // without a filter every evaluated item is returned
+            request.setLimit(getPageLimit(modifiers));
+        }
+        return request;
+    }
+
+    /**
+     * Plan the given predicate, querying only secondary indexes which return complete items
+     */
+    @Nullable
+    private QueryPlan createPlan(@Nullable Predicate where, List<OrderSpecifier<?>> orderBy) {
+        Set<String> excluded = new HashSet<String>();
+        while (true) {
+            QueryPlan plan = QueryPlan.create(entityPath.getType(), where, orderBy, excluded);
+            if (plan == null || plan.getIndexName() == null || getQueryableIndexes().contains(plan.getIndexName())) {
+                return plan;
+            }
+            excluded.add(plan.getIndexName());
+        }
+    }
+
+    /**
+     * Get the secondary indexes which project all attributes or are local, described once per query
+     */
+    private Set<String> getQueryableIndexes() {
+        if (queryableIndexes == null) {
+            TableDescription table = client.describeTable(new DescribeTableRequest().withTableName(getTableName()))
+                    .getTable();
+            Set<String> indexes = new HashSet<String>();
+            if (table.getGlobalSecondaryIndexes() != null) {
+                for (GlobalSecondaryIndexDescription index : table.getGlobalSecondaryIndexes()) {
+                    if (index.getProjection() != null
+                            && ProjectionType.ALL.toString().equals(index.getProjection().getProjectionType())) {
+                        indexes.add(index.getIndexName());
+                    }
+                }
+            }
+            if (table.getLocalSecondaryIndexes() != null) {
+                for (LocalSecondaryIndexDescription index : table.getLocalSecondaryIndexes()) {
+                    indexes.add(index.getIndexName());
+                }
+            }
+            queryableIndexes = indexes;
         }
+        return queryableIndexes;
+    }
+
+    @Nullable
+    private ShardedHashKey getSharding(@Nullable QueryPlan plan) {
+        return plan != null ? entityMetadata.getSharding(plan.getHashKey()) : null;
+    }
+
+    private void checkNotSharded(@Nullable QueryPlan plan) {
+        if (getSharding(plan) != null) {
+            throw new UnsupportedOperationException("Not supported for sharded hash key " + plan.getHashKey());
+        }
+    }
+
+    private List<QueryRequest> createShardRequests(QueryPlan plan, List<String> attributes,
+            @Nullable QueryModifiers modifiers, ShardedHashKey sharding) {
+        List<QueryRequest> requests = new ArrayList<QueryRequest>(sharding.shards());
+        for (String value : ShardedQuery.getShardValues(plan.getHashValue(), sharding.shards(), sharding.separator())) {
+            requests.add(createQueryRequest(plan.withHashValue(value), attributes, modifiers));
+        }
+        return requests;
+    }
+
+    private static String getProjectionExpression(List<String> attributes, DynamodbExpression context) {
+        StringBuilder projection = new StringBuilder();
+        for (String attribute : attributes) {
+            projection.append(projection.length() > 0 ? ", " : "").append(context.addName(attribute));
+        }
+        return projection.toString();
+    }
+
+    private static int getPageLimit(QueryModifiers modifiers) {
+        long offset = modifiers.getOffset() != null ? modifiers.getOffset() : 0L;
+        return (int) Math.min(Integer.MAX_VALUE, modifiers.getLimit() + offset);
+    }
+
+    @Nullable
+    private List<Map<String, AttributeValue>> getKeys(QueryMetadata queryMetadata) {
+        if (queryMetadata.getWhere() == null) {
+            return null;
+        }
+        return KeyLookup.getKeys(entityPath.getType(), queryMetadata.getWhere(), serializer);
+    }
+
+    private List<Map<String, AttributeValue>> loadItems(List<Map<String, AttributeValue>> keys,
+            List<String> attributes, DynamoDBQueryMetrics metrics) {
+        BatchLoader loader = new BatchLoader(client, executor, Backoff.DEFAULT, limiter);
+        return loader.load(getTableName(), keys, attributes, metrics);
+    }
+
+    private List<String> getProjectedAttributes(QueryMetadata queryMetadata) {
+        Expression<?> projection = queryMetadata.getProjection();
+        if (projection == null) {
+            return Collections.emptyList();
+        }
+        List<Expression<?>> args;
+        if (projection instanceof FactoryExpression) {
+            args = ((FactoryExpression<?>) projection).getArgs();
+        } else {
+            args = Collections.<Expression<?>>singletonList(projection);
+        }
+        List<String> attributes = new ArrayList<String>(args.size());
+        for (Expression<?> arg : args) {
+            if (!(arg instanceof Path)) {
+                throw new UnsupportedOperationException("Only paths can be projected: " + arg);
+            }
+            Path<?> path = (Path<?>) arg;
+            if (path.getMetadata().isRoot()) {
+                return Collections.emptyList();
+            }
+            // nested paths are read with their top level attribute
+            while (!path.getMetadata().getParent().getMetadata().isRoot()) {
+                path = path.getMetadata().getParent();
+            }
+            String attribute = (String) serializer.visit(path, null);
+            if (!attributes.contains(attribute)) {
+                attributes.add(attribute);
+            }
+        }
+        return attributes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Q toEntity(Map<String, AttributeValue> item) {
+        Q entity = (Q) entityMetadata.unmarshall(item);
+        return entity != null ? entity : mapper.marshallIntoObject(entityPath.getType(), item);
+    }
+
+    private String getTableName() {
+        return entityMetadata.getTableName();
     }
 
     @Override
@@ -118,20 +491,517 @@ public class DynamoDBQuery<Q> implements SimpleQuery<DynamoDBQuery<Q>>, Fetchabl
         return result.get(0);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only the items within offset and limit are read as results. If the total can't be derived from
+     * them, it is counted with {@code Select.COUNT}, which doesn't transfer the remaining items.</p>
+     */
     @Override
     public QueryResults<Q> fetchResults() {
-        long total = fetchCount();
+        QueryModifiers modifiers = queryMixin.getMetadata().getModifiers();
+        long offset = modifiers.getOffset() != null ? modifiers.getOffset() : 0L;
+        List<Q> results = fetch();
+        long total;
+        if ((modifiers.getLimit() == null || results.size() < modifiers.getLimit())
+                && (!results.isEmpty() || offset == 0L)) {
+            // the window reaches the last result
+            total = offset + results.size();
+        } else {
+            total = fetchCount();
+        }
         if (total > 0L) {
-            return new QueryResults<Q>(fetch(), queryMixin.getMetadata().getModifiers(), total);
+            return new QueryResults<Q>(results, modifiers, total);
         } else {
             return QueryResults.emptyResults();
         }
     }
 
+    /**
+     * Count the results, taking the item count of the table statistics for queries without predicate
+     *
+     * <p>DynamoDB updates the item count about every six hours, so the result of an unrestricted count
+     * may lag behind recent writes, but costs no read capacity.</p>
+     *
+     * @return approximate count
+     */
+    public long fetchApproximateCount() {
+        if (queryMixin.getMetadata().getWhere() == null) {
+            return client.describeTable(new DescribeTableRequest().withTableName(getTableName()))
+                    .getTable().getItemCount();
+        }
+        return fetchCount();
+    }
+
     @Override
     public long fetchCount() {
-        DynamoDBScanExpression query = createQuery(queryMixin.getMetadata());
-        return mapper.count(entityPath.getType(), query);
+        QueryMetadata metadata = queryMixin.getMetadata();
+        List<Map<String, AttributeValue>> keys = getKeys(metadata);
+        if (keys != null) {
+            if (keys.isEmpty()) {
+                return 0;
+            }
+            DynamoDBQueryMetrics metrics = createMetrics("BatchGetItem");
+            try {
+                return loadItems(keys, new ArrayList<String>(keys.get(0).keySet()), metrics).size();
+            } finally {
+                metrics.complete();
+            }
+        }
+
+        QueryPlan plan = createPlan(metadata.getWhere(), Collections.<OrderSpecifier<?>>emptyList());
+        ShardedHashKey sharding = getSharding(plan);
+        if (sharding != null) {
+            List<QueryRequest> requests = createShardRequests(plan, Collections.<String>emptyList(), null, sharding);
+            for (QueryRequest request : requests) {
+                request.setSelect(Select.COUNT);
+            }
+            DynamoDBQueryMetrics metrics = createMetrics("Query");
+            try {
+                return new ShardedQuery(client, executor, limiter).count(requests, metrics);
+            } finally {
+                metrics.complete();
+            }
+        } else if (plan != null) {
+            QueryRequest request = createQueryRequest(plan, Collections.<String>emptyList(), null)
+                    .withSelect(Select.COUNT);
+            DynamoDBQueryMetrics metrics = createMetrics("Query");
+            try {
+                long count = 0;
+                do {
+                    QueryResult result = Pages.query(client, request, limiter, metrics);
+                    count += result.getCount();
+                    request.setExclusiveStartKey(result.getLastEvaluatedKey());
+                } while (Pages.hasMore(request.getExclusiveStartKey()));
+                return count;
+            } finally {
+                metrics.complete();
+            }
+        }
+
+        ScanRequest request = createScanRequest(metadata, Collections.<String>emptyList())
+                .withSelect(Select.COUNT);
+        DynamoDBQueryMetrics metrics = createMetrics("Scan");
+        try {
+            if (totalSegments > 1) {
+                return ParallelScan.count(client, request, totalSegments, executor, limiter, metrics);
+            }
+            long count = 0;
+            do {
+                ScanResult result = Pages.scan(client, request, limiter, metrics);
+                count += result.getCount();
+                request.setExclusiveStartKey(result.getLastEvaluatedKey());
+            } while (Pages.hasMore(request.getExclusiveStartKey()));
+            return count;
+        } finally {
+            metrics.complete();
+        }
+    }
+
+    /**
+     * Compute the given aggregates over all results
+     *
+     * <p>Only the aggregated attributes are read and the segments of a scan are aggregated concurrently,
+     * without mapping the items to entities. Supported are {@code count()}, {@code sum()}, {@code avg()},
+     * {@code min()} and {@code max()} of top level numeric attributes and {@code Wildcard.count}. The
+     * aggregates always cover all results, so offset and limit are rejected.</p>
+     *
+     * <pre>
+     * Tuple stats = query.where(user.age.gt(20)).aggregate(Wildcard.count, user.age.avg(), user.age.max());
+     * </pre>
+     *
+     * @param aggregates aggregate expressions
+     * @return aggregates in the given order
+     * @throws UnsupportedOperationException if offset or limit are set
+     */
+    public Tuple aggregate(Expression<?>... aggregates) {
+        return aggregate(new Aggregation(null, Arrays.asList(aggregates), serializer)).getResult();
+    }
+
+    /**
+     * Compute the given aggregates per value of the given attribute
+     *
+     * <p>The memory needed is bounded by the number of groups, items without the attribute are grouped
+     * under null.</p>
+     *
+     * @param groupBy top level attribute to group by
+     * @param aggregates aggregate expressions
+     * @param <K> group type
+     * @return aggregates by group
+     * @throws UnsupportedOperationException if offset or limit are set
+     * @see #aggregate(Expression[])
+     */
+    @SuppressWarnings("unchecked")
+    public <K> Map<K, Tuple> aggregate(Path<K> groupBy, Expression<?>... aggregates) {
+        Map<?, Tuple> results = aggregate(new Aggregation(groupBy, Arrays.asList(aggregates), serializer))
+                .getResults();
+        return (Map<K, Tuple>) results;
+    }
+
+    private Aggregation.Partial aggregate(Aggregation aggregation) {
+        QueryMetadata metadata = queryMixin.getMetadata();
+        if (metadata.getModifiers().isRestricting()) {
+            throw new UnsupportedOperationException("Aggregates can't be restricted by offset or limit");
+        }
+        List<String> attributes = aggregation.getAttributes();
+        if (attributes.isEmpty()) {
+            // items which are only counted are read with their hash key
+            attributes = Collections.singletonList(entityMetadata.getAttributeName(entityMetadata.getHashKey()));
+        }
+        List<Map<String, AttributeValue>> keys = getKeys(metadata);
+        if (keys != null) {
+            Aggregation.Partial partial = aggregation.newPartial();
+            if (!keys.isEmpty()) {
+                DynamoDBQueryMetrics metrics = createMetrics("BatchGetItem");
+                try {
+                    partial.addAll(loadItems(keys, attributes, metrics));
+                } finally {
+                    metrics.complete();
+                }
+            }
+            return partial;
+        }
+
+        QueryPlan plan = createPlan(metadata.getWhere(), Collections.<OrderSpecifier<?>>emptyList());
+        ShardedHashKey sharding = getSharding(plan);
+        if (plan != null) {
+            List<QueryRequest> requests = sharding != null
+                    ? createShardRequests(plan, attributes, null, sharding)
+                    : Collections.singletonList(createQueryRequest(plan, attributes, null));
+            DynamoDBQueryMetrics metrics = createMetrics("Query");
+            try {
+                return aggregation.query(client, requests, executor, limiter, metrics);
+            } finally {
+                metrics.complete();
+            }
+        }
+        DynamoDBQueryMetrics metrics = createMetrics("Scan");
+        try {
+            return aggregation.scan(client, createScanRequest(metadata, attributes), totalSegments, executor,
+                    limiter, metrics);
+        } finally {
+            metrics.complete();
+        }
+    }
+
+    /**
+     * Fetch a page of the results
+     *
+     * <p>The cursor encodes the last evaluated key of every segment, so reading the next page starts
+     * where the previous one stopped instead of skipping over the preceding results. Offset and limit
+     * are ignored. Key lookups read up to the page size of the keys per page, continuing after the last
+     * key looked up, so their pages may be smaller if some of the keys don't exist.</p>
+     *
+     * <p>DynamoDB applies the request limit before the filter, so filtered reads request full pages and
+     * cut them at the page size, continuing after the primary key of the last returned item. Segmented
+     * scans split the page size between the segments, which each continue after their own last returned
+     * item.</p>
+     *
+     * @param pageSize maximum number of results
+     * @param cursor cursor of the previous page or null for the first page
+     * @return page of results with the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is invalid or belongs to a different number of segments
+     */
+    public DynamoDBPage<Q> fetchPage(int pageSize, @Nullable String cursor) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Invalid page size: " + pageSize);
+        }
+        QueryMetadata metadata = queryMixin.getMetadata();
+        List<String> attributes = getProjectedAttributes(metadata);
+        List<Map<String, AttributeValue>> keys = metadata.getOrderBy().isEmpty() ? getKeys(metadata) : null;
+        if (keys != null) {
+            return fetchKeyPage(keys, attributes, pageSize, cursor);
+        }
+
+        QueryPlan plan = createPlan(metadata.getWhere(), metadata.getOrderBy());
+        checkNotSharded(plan);
+        boolean filtered = plan != null ? plan.getFilter() != null : metadata.getWhere() != null;
+        List<String> keyAttributes = getKeyAttributes(plan);
+        if (filtered && !attributes.isEmpty() && !attributes.containsAll(keyAttributes)) {
+            // the cursor continues after the key of the last item
+            Set<String> projected = new LinkedHashSet<String>(attributes);
+            projected.addAll(keyAttributes);
+            attributes = new ArrayList<String>(projected);
+        }
+        int segments = plan != null ? 1 : totalSegments;
+        List<Map<String, AttributeValue>> startKeys = cursor != null
+                ? PageCursor.decode(cursor, segments) : PageCursor.start(segments);
+        List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>(pageSize);
+        if (plan != null) {
+            QueryRequest request = createQueryRequest(plan, attributes, null);
+            DynamoDBQueryMetrics metrics = createMetrics("Query");
+            try {
+                while (items.size() < pageSize && !PageCursor.isFinished(startKeys.get(0))) {
+                    request.setExclusiveStartKey(startKeys.get(0));
+                    if (!filtered) {
+                        // the limit applies to the evaluated items, so a page never overshoots
+                        request.setLimit(pageSize - items.size());
+                    }
+                    QueryResult result = Pages.query(client, request, limiter, metrics);
+                    startKeys.set(0, addItems(result.getItems(), result.getLastEvaluatedKey(), items,
+                            pageSize - items.size(), keyAttributes));
+                }
+            } finally {
+                metrics.complete();
+            }
+        } else {
+            ScanRequest request = createScanRequest(metadata, attributes);
+            DynamoDBQueryMetrics metrics = createMetrics("Scan");
+            try {
+                boolean open = true;
+                while (open && items.size() < pageSize) {
+                    open = scanPage(request, startKeys, pageSize, filtered, keyAttributes, items, metrics);
+                }
+            } finally {
+                metrics.complete();
+            }
+        }
+        return new DynamoDBPage<Q>(toResults(items), PageCursor.encode(startKeys));
+    }
+
+    /**
+     * Look up the keys following the cursor, up to the page size
+     */
+    private DynamoDBPage<Q> fetchKeyPage(List<Map<String, AttributeValue>> keys, List<String> attributes,
+            int pageSize, @Nullable String cursor) {
+        // the cursor holds the last key looked up
+        Map<String, AttributeValue> startKey = cursor != null ? PageCursor.decode(cursor, 1).get(0) : null;
+        int from = startKey != null ? keys.indexOf(startKey) + 1 : 0;
+        if (from == 0 && startKey != null) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        int to = from + Math.min(pageSize, keys.size() - from);
+        List<Map<String, AttributeValue>> items = Collections.emptyList();
+        if (from < to) {
+            DynamoDBQueryMetrics metrics = createMetrics("BatchGetItem");
+            try {
+                items = loadItems(keys.subList(from, to), attributes, metrics);
+            } finally {
+                metrics.complete();
+            }
+        }
+        String next = to < keys.size() ? PageCursor.encode(Collections.singletonList(keys.get(to - 1))) : null;
+        return new DynamoDBPage<Q>(toResults(items), next);
+    }
+
+    /**
+     * Read a page from each open segment in parallel, splitting the remaining page size between them.
+     * Unfiltered scans limit the segment reads to their share, filtered scans cut the items of each segment
+     * at its share and continue after the last one.
+     */
+    private boolean scanPage(ScanRequest request, List<Map<String, AttributeValue>> startKeys, int pageSize,
+            boolean filtered, List<String> keyAttributes, List<Map<String, AttributeValue>> items,
+            final DynamoDBQueryMetrics metrics) {
+        int remaining = pageSize - items.size();
+        List<Integer> open = new ArrayList<Integer>();
+        for (int segment = 0; segment < startKeys.size() && open.size() < remaining; segment++) {
+            if (!PageCursor.isFinished(startKeys.get(segment))) {
+                open.add(segment);
+            }
+        }
+        if (open.isEmpty()) {
+            return false;
+        }
+
+        int[] shares = new int[open.size()];
+        List<Callable<ScanResult>> tasks = new ArrayList<Callable<ScanResult>>(open.size());
+        for (int i = 0; i < open.size(); i++) {
+            int segment = open.get(i);
+            shares[i] = remaining / open.size() + (i < remaining % open.size() ? 1 : 0);
+            final ScanRequest segmentRequest = request.clone().withExclusiveStartKey(startKeys.get(segment));
+            if (!filtered) {
+                segmentRequest.setLimit(shares[i]);
+            }
+            if (startKeys.size() > 1) {
+                segmentRequest.withSegment(segment).withTotalSegments(startKeys.size());
+            }
+            tasks.add(new Callable<ScanResult>() {
+                @Override
+                public ScanResult call() {
+                    return Pages.scan(client, segmentRequest, limiter, metrics);
+                }
+            });
+        }
+        List<ScanResult> results = Tasks.invokeAll(executor, tasks, "reading page");
+        for (int i = 0; i < open.size(); i++) {
+            ScanResult result = results.get(i);
+            startKeys.set(open.get(i), addItems(result.getItems(), result.getLastEvaluatedKey(), items, shares[i],
+                    keyAttributes));
+        }
+        return true;
+    }
+
+    /**
+     * Add up to the given number of items of a page and get the start key of the next read
+     */
+    private static Map<String, AttributeValue> addItems(List<Map<String, AttributeValue>> page,
+            @Nullable Map<String, AttributeValue> lastEvaluatedKey, List<Map<String, AttributeValue>> items,
+            int remaining, List<String> keyAttributes) {
+        if (page.size() <= remaining) {
+            items.addAll(page);
+            return PageCursor.next(lastEvaluatedKey);
+        }
+        items.addAll(page.subList(0, remaining));
+        // DynamoDB continues after any item given by its key
+        Map<String, AttributeValue> last = page.get(remaining - 1);
+        Map<String, AttributeValue> startKey = new HashMap<String, AttributeValue>();
+        for (String attribute : keyAttributes) {
+            startKey.put(attribute, last.get(attribute));
+        }
+        return startKey;
+    }
+
+    /**
+     * Get the attributes of the last evaluated keys of the given plan or of a scan
+     */
+    private List<String> getKeyAttributes(@Nullable QueryPlan plan) {
+        Set<String> properties = new LinkedHashSet<String>();
+        for (EntityMetadata.Index index : entityMetadata.getIndexes()) {
+            if (index.getName() == null || (plan != null && index.getName().equals(plan.getIndexName()))) {
+                if (index.getHashKey() != null) {
+                    properties.add(index.getHashKey());
+                }
+                if (index.getRangeKey() != null) {
+                    properties.add(index.getRangeKey());
+                }
+            }
+        }
+        List<String> attributes = new ArrayList<String>(properties.size());
+        for (String property : properties) {
+            attributes.add(entityMetadata.getAttributeName(property));
+        }
+        return attributes;
+    }
+
+    private List<Q> toResults(List<Map<String, AttributeValue>> items) {
+        List<Q> results = new ArrayList<Q>(items.size());
+        for (Map<String, AttributeValue> item : items) {
+            results.add(toEntity(item));
+        }
+        return results;
+    }
+
+    /**
+     * Fetch the results asynchronously
+     *
+     * <p>Key lookups are executed with concurrent BatchGetItem requests of the asynchronous client.</p>
+     *
+     * @return future of the results
+     */
+    public ListenableFuture<List<Q>> fetchAsync() {
+        AmazonDynamoDBAsync asyncClient = getAsyncClient();
+        QueryMetadata metadata = queryMixin.getMetadata();
+        QueryModifiers modifiers = metadata.getModifiers();
+        List<String> attributes = getProjectedAttributes(metadata);
+        final ItemCollector collector = new ItemCollector(modifiers);
+        final DynamoDBQueryMetrics metrics;
+        ListenableFuture<Void> pages;
+        List<Map<String, AttributeValue>> keys = metadata.getOrderBy().isEmpty() ? getKeys(metadata) : null;
+        QueryPlan plan = keys == null
+                ? createPlan(metadata.getWhere(), metadata.getOrderBy()) : null;
+        checkNotSharded(plan);
+        if (keys != null) {
+            metrics = createMetrics("BatchGetItem");
+            pages = AsyncPages.batchGet(asyncClient, getTableName(), keys, attributes, Backoff.DEFAULT, metrics,
+                    collector);
+        } else if (plan != null) {
+            metrics = createMetrics("Query");
+            pages = AsyncPages.query(asyncClient, createQueryRequest(plan, attributes, modifiers), metrics,
+                    collector);
+        } else {
+            ScanRequest request = createScanRequest(metadata, attributes);
+            if (totalSegments == 1 && metadata.getWhere() == null && modifiers.getLimit() != null) {
+                request.setLimit(getPageLimit(modifiers));
+            }
+            metrics = createMetrics("Scan");
+            pages = AsyncPages.scan(asyncClient, request, totalSegments, metrics, collector);
+        }
+        return Futures.transform(complete(pages, metrics), new Function<Void, List<Q>>() {
+            @Override
+            public List<Q> apply(Void input) {
+                return collector.getResults();
+            }
+        });
+    }
+
+    /**
+     * Fetch the first result asynchronously
+     *
+     * @return future of the first result or null
+     */
+    public ListenableFuture<Q> fetchFirstAsync() {
+        return Futures.transform(limit(1).fetchAsync(), new Function<List<Q>, Q>() {
+            @Override
+            public Q apply(List<Q> input) {
+                return input.isEmpty() ? null : input.get(0);
+            }
+        });
+    }
+
+    /**
+     * Count the results asynchronously
+     *
+     * @return future of the count
+     */
+    public ListenableFuture<Long> fetchCountAsync() {
+        AmazonDynamoDBAsync asyncClient = getAsyncClient();
+        QueryMetadata metadata = queryMixin.getMetadata();
+        List<Map<String, AttributeValue>> keys = getKeys(metadata);
+        final AtomicLong count = new AtomicLong();
+        AsyncPages.PageHandler counter = new AsyncPages.PageHandler() {
+            @Override
+            public boolean handle(List<Map<String, AttributeValue>> items, int pageCount) {
+                count.addAndGet(pageCount);
+                return true;
+            }
+        };
+        final DynamoDBQueryMetrics metrics;
+        ListenableFuture<Void> pages;
+        QueryPlan plan = keys == null
+                ? createPlan(metadata.getWhere(), Collections.<OrderSpecifier<?>>emptyList()) : null;
+        checkNotSharded(plan);
+        if (keys != null) {
+            metrics = createMetrics("BatchGetItem");
+            List<String> keyAttributes = keys.isEmpty()
+                    ? Collections.<String>emptyList() : new ArrayList<String>(keys.get(0).keySet());
+            pages = AsyncPages.batchGet(asyncClient, getTableName(), keys, keyAttributes, Backoff.DEFAULT, metrics,
+                    counter);
+        } else if (plan != null) {
+            metrics = createMetrics("Query");
+            pages = AsyncPages.query(asyncClient,
+                    createQueryRequest(plan, Collections.<String>emptyList(), null).withSelect(Select.COUNT),
+                    metrics, counter);
+        } else {
+            metrics = createMetrics("Scan");
+            pages = AsyncPages.scan(asyncClient,
+                    createScanRequest(metadata, Collections.<String>emptyList()).withSelect(Select.COUNT),
+                    totalSegments, metrics, counter);
+        }
+        return Futures.transform(complete(pages, metrics), new Function<Void, Long>() {
+            @Override
+            public Long apply(Void input) {
+                return count.get();
+            }
+        });
+    }
+
+    private static ListenableFuture<Void> complete(ListenableFuture<Void> pages, final DynamoDBQueryMetrics metrics) {
+        pages.addListener(new Runnable() {
+            @Override
+            public void run() {
+                metrics.complete();
+            }
+        }, MoreExecutors.directExecutor());
+        return pages;
+    }
+
+    private AmazonDynamoDBAsync getAsyncClient() {
+        if (!(client instanceof AmazonDynamoDBAsync)) {
+            throw new UnsupportedOperationException("Asynchronous execution requires an AmazonDynamoDBAsync client");
+        } else if (limiter != null) {
+            throw new UnsupportedOperationException("Rate limited queries can't be executed asynchronously");
+        }
+        return (AmazonDynamoDBAsync) client;
     }
 
     @Override
@@ -164,4 +1034,208 @@ public class DynamoDBQuery<Q> implements SimpleQuery<DynamoDBQuery<Q>>, Fetchabl
         return queryMixin.distinct();
     }
 
+    /**
+     * Maps the items of the current page into entities, applying offset and limit
+     */
+    private class ItemIterator implements CloseableIterator<Q> {
+
+        protected Iterator<Map<String, AttributeValue>> page;
+
+        protected boolean lastPage;
+
+        protected final DynamoDBQueryMetrics metrics;
+
+        private long skip;
+
+        private long remaining;
+
+        ItemIterator(Iterator<Map<String, AttributeValue>> items, DynamoDBQueryMetrics metrics,
+                QueryModifiers modifiers) {
+            this.page = items;
+            this.lastPage = true;
+            this.metrics = metrics;
+            this.skip = modifiers.getOffset() != null ? modifiers.getOffset() : 0L;
+            this.remaining = modifiers.getLimit() != null ? modifiers.getLimit() : Long.MAX_VALUE;
+        }
+
+        protected void fetchNextPage() {
+            lastPage = true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (remaining > 0) {
+                while (!page.hasNext() && !lastPage) {
+                    fetchNextPage();
+                }
+                if (!page.hasNext()) {
+                    break;
+                } else if (skip > 0) {
+                    page.next();
+                    skip--;
+                } else {
+                    return true;
+                }
+            }
+            metrics.complete();
+            return false;
+        }
+
+        @Override
+        public Q next() {
+            return toEntity(nextItem());
+        }
+
+        Map<String, AttributeValue> nextItem() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return page.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            lastPage = true;
+            page = noItems();
+            metrics.complete();
+        }
+
+    }
+
+    /**
+     * Iterates over the scan results, reading the next page only when the current one is consumed
+     */
+    private class ScanIterator extends ItemIterator {
+
+        private final ScanRequest request;
+
+        ScanIterator(ScanRequest request, DynamoDBQueryMetrics metrics, QueryModifiers modifiers) {
+            super(noItems(), metrics, modifiers);
+            this.request = request;
+            this.lastPage = false;
+        }
+
+        @Override
+        protected void fetchNextPage() {
+            ScanResult result = Pages.scan(client, request, limiter, metrics);
+            Map<String, AttributeValue> lastEvaluatedKey = result.getLastEvaluatedKey();
+            lastPage = !Pages.hasMore(lastEvaluatedKey);
+            request.setExclusiveStartKey(lastEvaluatedKey);
+            page = result.getItems().iterator();
+        }
+
+    }
+
+    /**
+     * Collects the items of asynchronously read pages, applying offset and limit
+     */
+    private class ItemCollector implements AsyncPages.PageHandler {
+
+        private final List<Q> results = new ArrayList<Q>();
+
+        private long skip;
+
+        private long remaining;
+
+        ItemCollector(QueryModifiers modifiers) {
+            this.skip = modifiers.getOffset() != null ? modifiers.getOffset() : 0L;
+            this.remaining = modifiers.getLimit() != null ? modifiers.getLimit() : Long.MAX_VALUE;
+        }
+
+        @Override
+        public synchronized boolean handle(List<Map<String, AttributeValue>> items, int count) {
+            for (Map<String, AttributeValue> item : items) {
+                if (remaining == 0) {
+                    break;
+                } else if (skip > 0) {
+                    skip--;
+                } else {
+                    results.add(toEntity(item));
+                    remaining--;
+                }
+            }
+            return remaining > 0;
+        }
+
+        synchronized List<Q> getResults() {
+            return results;
+        }
+
+    }
+
+    /**
+     * Iterates over the query results, reading the next page only when the current one is consumed
+     */
+    private class QueryIterator extends ItemIterator {
+
+        private final QueryRequest request;
+
+        QueryIterator(QueryRequest request, DynamoDBQueryMetrics metrics, QueryModifiers modifiers) {
+            super(noItems(), metrics, modifiers);
+            this.request = request;
+            this.lastPage = false;
+        }
+
+        @Override
+        protected void fetchNextPage() {
+            QueryResult result = Pages.query(client, request, limiter, metrics);
+            Map<String, AttributeValue> lastEvaluatedKey = result.getLastEvaluatedKey();
+            lastPage = !Pages.hasMore(lastEvaluatedKey);
+            request.setExclusiveStartKey(lastEvaluatedKey);
+            page = result.getItems().iterator();
+        }
+
+    }
+
+    /**
+     * Iterates over the pages of a parallel scan in the order the segments deliver them
+     */
+    private class SegmentedScanIterator extends ItemIterator {
+
+        private final ParallelScan scan;
+
+        SegmentedScanIterator(ParallelScan scan, DynamoDBQueryMetrics metrics, QueryModifiers modifiers) {
+            super(noItems(), metrics, modifiers);
+            this.scan = scan;
+            this.lastPage = false;
+        }
+
+        @Override
+        protected void fetchNextPage() {
+            List<Map<String, AttributeValue>> items = scan.nextPage();
+            if (items != null) {
+                page = items.iterator();
+            } else {
+                lastPage = true;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (super.hasNext()) {
+                return true;
+            }
+            // the limit may be reached before the segments are read
+            scan.close();
+            return false;
+        }
+
+        @Override
+        public void close() {
+            scan.close();
+            super.close();
+        }
+
+    }
+
+    private static Iterator<Map<String, AttributeValue>> noItems() {
+        return Collections.<Map<String, AttributeValue>>emptyList().iterator();
+    }
+
 }
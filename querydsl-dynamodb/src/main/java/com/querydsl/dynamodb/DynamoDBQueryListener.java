@@ -0,0 +1,26 @@
+package com.querydsl.dynamodb;
+
+/**
+ * DynamoDBQueryListener is notified about the cost of {@link DynamoDBQuery} executions
+ *
+ * <p>Listeners may be called concurrently from the threads of parallel requests.</p>
+ *
+ * @author velo
+ */
+public interface DynamoDBQueryListener {
+
+    /**
+     * Called after each page or batch has been read
+     *
+     * @param metrics metrics of the running execution
+     */
+    void pageFetched(DynamoDBQueryMetrics metrics);
+
+    /**
+     * Called once the execution has completed or its results have been closed
+     *
+     * @param metrics metrics of the execution
+     */
+    void queryCompleted(DynamoDBQueryMetrics metrics);
+
+}
@@ -0,0 +1,222 @@
+package com.querydsl.dynamodb;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.model.Capacity;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+
+/**
+ * DynamoDBQueryMetrics collects the cost of a single {@link DynamoDBQuery} execution:
+ * pages read, items scanned and returned, consumed read capacity and the time spent per page.
+ *
+ * <p>Batch writes report into the same model, with batches as pages, items written as count
+ * and consumed write capacity.</p>
+ *
+ * @author velo
+ */
+public class DynamoDBQueryMetrics {
+
+    private final String operation;
+
+    private final String tableName;
+
+    private final List<DynamoDBQueryListener> listeners;
+
+    private final long started = System.nanoTime();
+
+    private long finished;
+
+    private boolean completed;
+
+    private int pages;
+
+    private long scannedCount;
+
+    private long count;
+
+    private double capacityUnits;
+
+    private double tableCapacityUnits;
+
+    private final Map<String, Double> indexCapacityUnits = new HashMap<String, Double>();
+
+    private final List<Long> pageTimes = new ArrayList<Long>();
+
+    public DynamoDBQueryMetrics(String operation, String tableName, List<DynamoDBQueryListener> listeners) {
+        this.operation = operation;
+        this.tableName = tableName;
+        this.listeners = listeners;
+    }
+
+    /**
+     * Record a page read from DynamoDB
+     *
+     * @param nanos time spent for the request
+     * @param scannedCount number of items evaluated
+     * @param count number of items returned
+     * @param consumedCapacity consumed capacity of the request
+     */
+    public void recordPage(long nanos, long scannedCount, long count, @Nullable ConsumedCapacity consumedCapacity) {
+        synchronized (this) {
+            pages++;
+            this.scannedCount += scannedCount;
+            this.count += count;
+            pageTimes.add(TimeUnit.NANOSECONDS.toMillis(nanos));
+            if (consumedCapacity != null) {
+                capacityUnits += value(consumedCapacity.getCapacityUnits());
+                if (consumedCapacity.getTable() != null) {
+                    tableCapacityUnits += value(consumedCapacity.getTable().getCapacityUnits());
+                }
+                addIndexCapacity(consumedCapacity.getLocalSecondaryIndexes());
+                addIndexCapacity(consumedCapacity.getGlobalSecondaryIndexes());
+            }
+        }
+        for (DynamoDBQueryListener listener : listeners) {
+            listener.pageFetched(this);
+        }
+    }
+
+    /**
+     * Record pages read from DynamoDB
+     *
+     * @param nanos time spent for the request
+     * @param count number of items returned
+     * @param consumedCapacity consumed capacity of the request per table
+     */
+    public void recordPage(long nanos, long count, @Nullable List<ConsumedCapacity> consumedCapacity) {
+        ConsumedCapacity total = null;
+        if (consumedCapacity != null) {
+            for (ConsumedCapacity capacity : consumedCapacity) {
+                if (tableName.equals(capacity.getTableName())) {
+                    total = capacity;
+                }
+            }
+        }
+        recordPage(nanos, count, count, total);
+    }
+
+    private void addIndexCapacity(@Nullable Map<String, Capacity> indexes) {
+        if (indexes == null) {
+            return;
+        }
+        for (Map.Entry<String, Capacity> entry : indexes.entrySet()) {
+            Double units = indexCapacityUnits.get(entry.getKey());
+            indexCapacityUnits.put(entry.getKey(), (units != null ? units : 0.0)
+                    + value(entry.getValue().getCapacityUnits()));
+        }
+    }
+
+    private static double value(@Nullable Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    /**
+     * Mark the execution as completed, notifying the listeners on the first call
+     */
+    public void complete() {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            finished = System.nanoTime();
+        }
+        for (DynamoDBQueryListener listener : listeners) {
+            listener.queryCompleted(this);
+        }
+    }
+
+    /**
+     * Get the DynamoDB operation used, e.g. Scan or BatchGetItem
+     *
+     * @return operation name
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public synchronized int getPages() {
+        return pages;
+    }
+
+    public synchronized long getScannedCount() {
+        return scannedCount;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the total capacity units consumed
+     *
+     * @return capacity units
+     */
+    public synchronized double getCapacityUnits() {
+        return capacityUnits;
+    }
+
+    /**
+     * Get the capacity units consumed on the table itself
+     *
+     * @return capacity units
+     */
+    public synchronized double getTableCapacityUnits() {
+        return tableCapacityUnits;
+    }
+
+    /**
+     * Get the capacity units consumed per secondary index
+     *
+     * @return capacity units by index name
+     */
+    public synchronized Map<String, Double> getIndexCapacityUnits() {
+        return new HashMap<String, Double>(indexCapacityUnits);
+    }
+
+    /**
+     * Get the wall time of each page request
+     *
+     * @return times in milliseconds
+     */
+    public synchronized List<Long> getPageTimes() {
+        return new ArrayList<Long>(pageTimes);
+    }
+
+    /**
+     * Get the wall time of the execution so far
+     *
+     * @return time in milliseconds
+     */
+    public synchronized long getTime() {
+        return TimeUnit.NANOSECONDS.toMillis((completed ? finished : System.nanoTime()) - started);
+    }
+
+    /**
+     * Get the number of items returned or written per second
+     *
+     * @return throughput
+     */
+    public synchronized double getItemsPerSecond() {
+        long time = getTime();
+        return time > 0 ? count * 1000.0 / time : 0.0;
+    }
+
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return operation + " " + tableName + " [pages=" + pages + ", scanned=" + scannedCount
+                + ", count=" + count + ", capacityUnits=" + capacityUnits + ", time=" + getTime() + "ms]";
+    }
+
+}
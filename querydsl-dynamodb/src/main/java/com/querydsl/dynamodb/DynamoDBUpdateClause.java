@@ -0,0 +1,353 @@
+package com.querydsl.dynamodb;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.*;
+import com.querydsl.core.dml.UpdateClause;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.dynamodb.impl.DynamoDBExecutors;
+import com.querydsl.dynamodb.impl.DynamodbExpression;
+import com.querydsl.dynamodb.impl.DynamodbExpressionSerializer;
+import com.querydsl.dynamodb.impl.DynamodbSerializer;
+import com.querydsl.dynamodb.impl.EntityMetadata;
+import com.querydsl.dynamodb.impl.KeyLookup;
+import com.querydsl.dynamodb.impl.Pages;
+
+/**
+ * DynamoDBUpdateClause is the implementation of the {@link UpdateClause} for DynamoDB
+ *
+ * <p>The changes are compiled into an UpdateExpression and the predicate into a ConditionExpression,
+ * and each matching item is changed with a single atomic UpdateItem request. Items which no longer
+ * match the predicate when they are updated are skipped.</p>
+ *
+ * <pre>
+ * new DynamoDBUpdateClause(client, account)
+ *     .where(account.id.eq(id), account.state.eq("OPEN"))
+ *     .set(account.state, "CLOSED")
+ *     .add(account.version, 1)
+ *     .execute();
+ * </pre>
+ *
+ * <p>The keys are taken from the predicate when it is a primary key lookup, otherwise they are read
+ * with a scan of the key attributes.</p>
+ *
+ * @author velo
+ */
+public class DynamoDBUpdateClause implements UpdateClause<DynamoDBUpdateClause> {
+
+    private final AmazonDynamoDB client;
+
+    private final EntityPath<?> entityPath;
+
+    private final DynamodbSerializer serializer = DynamodbSerializer.DEFAULT;
+
+    private final DynamodbExpressionSerializer expressionSerializer = DynamodbExpressionSerializer.DEFAULT;
+
+    private final Map<Path<?>, Object> updates = new LinkedHashMap<Path<?>, Object>();
+
+    private final Map<Path<?>, Number> additions = new LinkedHashMap<Path<?>, Number>();
+
+    private final Set<Path<?>> removals = new LinkedHashSet<Path<?>>();
+
+    @Nullable
+    private Predicate where;
+
+    private ExecutorService executor = DynamoDBExecutors.defaultExecutor();
+
+    private int concurrency = 1;
+
+    public DynamoDBUpdateClause(AmazonDynamoDB client, EntityPath<?> entityPath) {
+        this.client = client;
+        this.entityPath = entityPath;
+    }
+
+    /**
+     * Set the executor used to run parallel updates
+     *
+     * @param executor executor
+     * @return the current object
+     */
+    public DynamoDBUpdateClause executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of UpdateItem requests in flight, by default items are updated sequentially
+     *
+     * @param concurrency number of concurrent requests
+     * @return the current object
+     */
+    public DynamoDBUpdateClause concurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Invalid concurrency: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Atomically add the given delta to a numeric attribute, which is initialized to 0 if missing
+     *
+     * <p>An attribute is changed only once per update, so this replaces an earlier assignment or
+     * removal of the same path, and a later one replaces the addition.</p>
+     *
+     * @param path numeric attribute
+     * @param delta value to add
+     * @param <T> number type
+     * @return the current object
+     */
+    public <T extends Number> DynamoDBUpdateClause add(Path<T> path, T delta) {
+        updates.remove(path);
+        removals.remove(path);
+        additions.put(path, delta);
+        return this;
+    }
+
+    @Override
+    public <T> DynamoDBUpdateClause set(Path<T> path, @Nullable T value) {
+        if (value == null) {
+            return setNull(path);
+        }
+        additions.remove(path);
+        removals.remove(path);
+        updates.put(path, value);
+        return this;
+    }
+
+    @Override
+    public <T> DynamoDBUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+        if (!(expression instanceof Constant)) {
+            throw new UnsupportedOperationException("Only constants are supported: " + expression);
+        }
+        Object value = ((Constant<?>) expression).getConstant();
+        if (value == null) {
+            return setNull(path);
+        }
+        additions.remove(path);
+        removals.remove(path);
+        updates.put(path, value);
+        return this;
+    }
+
+    @Override
+    public <T> DynamoDBUpdateClause setNull(Path<T> path) {
+        updates.remove(path);
+        additions.remove(path);
+        removals.add(path);
+        return this;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Override
+    public DynamoDBUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+        for (int i = 0; i < paths.size(); i++) {
+            set((Path) paths.get(i), values.get(i));
+        }
+        return this;
+    }
+
+    @Override
+    public DynamoDBUpdateClause where(Predicate... o) {
+        for (Predicate predicate : o) {
+            where = ExpressionUtils.and(where, predicate);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return updates.isEmpty() && additions.isEmpty() && removals.isEmpty();
+    }
+
+    @Override
+    public long execute() {
+        if (isEmpty()) {
+            return 0;
+        }
+        String tableName = EntityMetadata.get(entityPath).getTableName();
+        TableDescription table = client.describeTable(new DescribeTableRequest().withTableName(tableName)).getTable();
+        List<String> keyAttributes = new ArrayList<String>();
+        for (KeySchemaElement element : table.getKeySchema()) {
+            keyAttributes.add(element.getAttributeName());
+        }
+
+        List<Map<String, AttributeValue>> keys = where != null
+                ? KeyLookup.getKeys(entityPath.getType(), where, serializer) : null;
+        // the stored values of a sharded hash key carry the shard suffix
+        Predicate filter = where != null ? KeyLookup.expandShards(entityPath.getType(), where) : null;
+
+        DynamodbExpression context = new DynamodbExpression();
+        String updateExpression = createUpdateExpression(context);
+        // never recreate items which have been deleted in the meantime
+        String condition = "attribute_exists(" + context.addName(keyAttributes.get(0)) + ")";
+        if (filter != null && keys == null) {
+            // a key lookup consists of key conditions only, which are met by the keys
+            condition += " AND " + expressionSerializer.handle(filter, context);
+        }
+        UpdateItemRequest template = new UpdateItemRequest()
+                .withTableName(tableName)
+                .withUpdateExpression(updateExpression)
+                .withConditionExpression(condition)
+                .withExpressionAttributeNames(context.getNames())
+                .withExpressionAttributeValues(context.getValues());
+
+        Updater updater = new Updater(template);
+        if (keys != null) {
+            for (Map<String, AttributeValue> key : keys) {
+                updater.update(key);
+            }
+            return updater.finish();
+        }
+
+        ScanRequest scan = new ScanRequest(tableName);
+        DynamodbExpression scanContext = new DynamodbExpression();
+        if (filter != null) {
+            scan.setFilterExpression(expressionSerializer.handle(filter, scanContext));
+        }
+        StringBuilder projection = new StringBuilder();
+        for (String attribute : keyAttributes) {
+            projection.append(projection.length() > 0 ? ", " : "").append(scanContext.addName(attribute));
+        }
+        scan.withProjectionExpression(projection.toString())
+            .withExpressionAttributeNames(scanContext.getNames())
+            .withExpressionAttributeValues(scanContext.getValues());
+        do {
+            ScanResult result = client.scan(scan);
+            for (Map<String, AttributeValue> key : result.getItems()) {
+                updater.update(key);
+            }
+            scan.setExclusiveStartKey(result.getLastEvaluatedKey());
+        } while (Pages.hasMore(scan.getExclusiveStartKey()));
+        return updater.finish();
+    }
+
+    private String createUpdateExpression(DynamodbExpression context) {
+        StringBuilder builder = new StringBuilder();
+        if (!updates.isEmpty()) {
+            builder.append("SET ");
+            boolean first = true;
+            for (Map.Entry<Path<?>, Object> entry : updates.entrySet()) {
+                AttributeValue value = serializer.toAttributeValue(entry.getKey(), entry.getValue());
+                builder.append(first ? "" : ", ").append(entry.getKey().accept(expressionSerializer, context))
+                       .append(" = ").append(context.addValue(value));
+                first = false;
+            }
+        }
+        if (!additions.isEmpty()) {
+            builder.append(builder.length() > 0 ? " " : "").append("ADD ");
+            boolean first = true;
+            for (Map.Entry<Path<?>, Number> entry : additions.entrySet()) {
+                builder.append(first ? "" : ", ").append(entry.getKey().accept(expressionSerializer, context))
+                       .append(" ").append(context.addValue(serializer.toAttributeValue(entry.getValue())));
+                first = false;
+            }
+        }
+        if (!removals.isEmpty()) {
+            builder.append(builder.length() > 0 ? " " : "").append("REMOVE ");
+            boolean first = true;
+            for (Path<?> path : removals) {
+                builder.append(first ? "" : ", ").append(path.accept(expressionSerializer, context));
+                first = false;
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "update " + entityPath + (where != null ? " where " + where : "");
+    }
+
+    /**
+     * Sends the UpdateItem requests with at most {@link #concurrency} of them in flight
+     */
+    private class Updater {
+
+        private final UpdateItemRequest template;
+
+        private final Semaphore inFlight = new Semaphore(concurrency);
+
+        private final AtomicLong updated = new AtomicLong();
+
+        private volatile RuntimeException failure;
+
+        Updater(UpdateItemRequest template) {
+            this.template = template;
+        }
+
+        void update(Map<String, AttributeValue> key) {
+            checkFailure();
+            final UpdateItemRequest request = template.clone().withKey(key);
+            if (concurrency == 1) {
+                send(request);
+                return;
+            }
+            acquire(1);
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            if (failure == null) {
+                                send(request);
+                            }
+                        } catch (RuntimeException e) {
+                            failure = e;
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        private void send(UpdateItemRequest request) {
+            try {
+                client.updateItem(request);
+                updated.incrementAndGet();
+            } catch (ConditionalCheckFailedException e) {
+                // the item no longer matches
+            }
+        }
+
+        long finish() {
+            acquire(concurrency);
+            inFlight.release(concurrency);
+            checkFailure();
+            return updated.get();
+        }
+
+        private void acquire(int permits) {
+            try {
+                inFlight.acquire(permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException("Interrupted while updating items", e);
+            }
+        }
+
+        private void checkFailure() {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+    }
+
+}
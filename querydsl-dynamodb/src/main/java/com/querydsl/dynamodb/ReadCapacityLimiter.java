@@ -0,0 +1,112 @@
+package com.querydsl.dynamodb;
+
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+
+/**
+ * ReadCapacityLimiter is a token bucket measured in read capacity units which paces the page requests
+ * of {@link DynamoDBQuery} executions.
+ *
+ * <p>A request is started only while tokens are available and the capacity it actually consumed is
+ * charged afterwards, so an expensive page puts the bucket into debt and delays the following
+ * requests. The same instance can be shared by parallel segments and by several queries to keep
+ * their combined rate at a share of the table's provisioned capacity.</p>
+ *
+ * @author velo
+ */
+public class ReadCapacityLimiter {
+
+    private final double unitsPerSecond;
+
+    private final double maxBurst;
+
+    private double available;
+
+    private long lastRefill = System.nanoTime();
+
+    /**
+     * Create a limiter for the given share of the provisioned read capacity of a table
+     *
+     * @param client client
+     * @param tableName table name
+     * @param share share of the provisioned read capacity, between 0 and 1
+     * @return limiter
+     */
+    public static ReadCapacityLimiter forTable(AmazonDynamoDB client, String tableName, double share) {
+        if (share <= 0.0 || share > 1.0) {
+            throw new IllegalArgumentException("Share must be in (0, 1]: " + share);
+        }
+        ProvisionedThroughputDescription throughput = client.describeTable(
+                new DescribeTableRequest().withTableName(tableName)).getTable().getProvisionedThroughput();
+        return new ReadCapacityLimiter(throughput.getReadCapacityUnits() * share);
+    }
+
+    /**
+     * Create a limiter which allows bursts of one second worth of capacity
+     *
+     * @param unitsPerSecond read capacity units per second
+     */
+    public ReadCapacityLimiter(double unitsPerSecond) {
+        this(unitsPerSecond, unitsPerSecond);
+    }
+
+    /**
+     * Create a limiter
+     *
+     * @param unitsPerSecond read capacity units per second
+     * @param maxBurst maximum number of units which can be saved up while idle
+     */
+    public ReadCapacityLimiter(double unitsPerSecond, double maxBurst) {
+        if (unitsPerSecond <= 0.0) {
+            throw new IllegalArgumentException("Rate must be positive: " + unitsPerSecond);
+        }
+        this.unitsPerSecond = unitsPerSecond;
+        this.maxBurst = maxBurst;
+        this.available = maxBurst;
+    }
+
+    /**
+     * Wait until capacity is available for the next request
+     *
+     * @throws AmazonClientException if the thread is interrupted while waiting
+     */
+    public synchronized void acquire() {
+        refill();
+        try {
+            while (available <= 0.0) {
+                long millis = (long) Math.ceil(-available / unitsPerSecond * 1000.0);
+                wait(Math.max(1L, millis));
+                refill();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for read capacity", e);
+        }
+    }
+
+    /**
+     * Charge the capacity consumed by a request
+     *
+     * @param units consumed read capacity units
+     */
+    public synchronized void consume(double units) {
+        refill();
+        available -= units;
+    }
+
+    public double getUnitsPerSecond() {
+        return unitsPerSecond;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double seconds = (now - lastRefill) / (double) TimeUnit.SECONDS.toNanos(1);
+        available = Math.min(maxBurst, available + seconds * unitsPerSecond);
+        lastRefill = now;
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.querydsl.dynamodb;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ShardedHashKey declares a write sharded hash key, whose stored values carry a shard suffix
+ * ({@code tenant#0} to {@code tenant#15})
+ *
+ * <p>{@link DynamoDBQuery} expands an equality condition on the logical value into concurrent queries
+ * on all shards and merges their results. The suffix has to be added by the application when writing.</p>
+ *
+ * @author velo
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ShardedHashKey {
+
+    /**
+     * @return number of shards
+     */
+    int shards();
+
+    /**
+     * @return separator between the logical value and the shard number
+     */
+    String separator() default "#";
+
+}
@@ -0,0 +1,142 @@
+package com.querydsl.dynamodb;
+
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMarshaller;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * TableDescriptor is the DynamoDB mapping of an entity as generated by the
+ * {@link com.querydsl.dynamodb.apt.DynamoAnnotationProcessor}
+ *
+ * <p>Generated query types reference their descriptor in the static {@code DESCRIPTOR} field. It replaces
+ * the runtime inspection of the mapper annotations and maps items to entities without reflection.</p>
+ *
+ * @param <T> entity type
+ * @author velo
+ */
+public abstract class TableDescriptor<T> {
+
+    /**
+     * Name of the static field of the query type which holds the descriptor
+     */
+    public static final String FIELD_NAME = "DESCRIPTOR";
+
+    private final Class<T> type;
+
+    private final String tableName;
+
+    @Nullable
+    private String hashKey, rangeKey;
+
+    private final Map<String, String> attributeNames = new HashMap<String, String>();
+
+    private final Map<String, DynamoDBMarshaller<?>> marshallers = new HashMap<String, DynamoDBMarshaller<?>>();
+
+    private final List<String[]> indexes = new ArrayList<String[]>();
+
+    private final Map<String, ShardedHashKey> shardedKeys = new HashMap<String, ShardedHashKey>();
+
+    protected TableDescriptor(Class<T> type, String tableName) {
+        this.type = type;
+        this.tableName = tableName;
+    }
+
+    protected void hashKey(String property) {
+        this.hashKey = property;
+    }
+
+    protected void rangeKey(String property) {
+        this.rangeKey = property;
+    }
+
+    protected void attribute(String property, String attributeName) {
+        attributeNames.put(property, attributeName);
+    }
+
+    protected void marshaller(String property, DynamoDBMarshaller<?> marshaller) {
+        marshallers.put(property, marshaller);
+    }
+
+    protected void index(String name, @Nullable String hashKey, @Nullable String rangeKey) {
+        indexes.add(new String[]{name, hashKey, rangeKey});
+    }
+
+    protected void sharded(String property, final int shards, final String separator) {
+        shardedKeys.put(property, new ShardedHashKey() {
+            @Override
+            public int shards() {
+                return shards;
+            }
+
+            @Override
+            public String separator() {
+                return separator;
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return ShardedHashKey.class;
+            }
+        });
+    }
+
+    /**
+     * Map the given item to an entity
+     *
+     * @param item item
+     * @return entity or null, if the entity can't be mapped without the {@code DynamoDBMapper}
+     */
+    @Nullable
+    public T unmarshall(Map<String, AttributeValue> item) {
+        return null;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    @Nullable
+    public String getHashKey() {
+        return hashKey;
+    }
+
+    @Nullable
+    public String getRangeKey() {
+        return rangeKey;
+    }
+
+    /**
+     * Get the attribute names of the renamed properties
+     *
+     * @return attribute names by property
+     */
+    public Map<String, String> getAttributeNames() {
+        return Collections.unmodifiableMap(attributeNames);
+    }
+
+    public Map<String, DynamoDBMarshaller<?>> getMarshallers() {
+        return Collections.unmodifiableMap(marshallers);
+    }
+
+    public Map<String, ShardedHashKey> getShardedKeys() {
+        return Collections.unmodifiableMap(shardedKeys);
+    }
+
+    /**
+     * Get the secondary indexes
+     *
+     * @return indexes as {index name, hash key property, range key property}
+     */
+    public List<String[]> getIndexes() {
+        return Collections.unmodifiableList(indexes);
+    }
+
+}
@@ -13,35 +13,102 @@
  */
 package com.querydsl.dynamodb.apt;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIgnore;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.mysema.codegen.CodeWriter;
+import com.mysema.codegen.model.SimpleType;
+import com.mysema.codegen.model.Type;
 import com.querydsl.apt.AbstractQuerydslProcessor;
 import com.querydsl.apt.Configuration;
 import com.querydsl.apt.DefaultConfiguration;
+import com.querydsl.codegen.EntitySerializer;
+import com.querydsl.codegen.EntityType;
+import com.querydsl.codegen.Serializer;
+import com.querydsl.codegen.TypeMappings;
 import com.querydsl.core.annotations.QueryEntities;
+import com.querydsl.dynamodb.TableDescriptor;
 
 /**
  * Annotation processor to create Querydsl query types for DynamoDB mapped classes
  *
+ * <p>For each {@link DynamoDBTable} class a {@link TableDescriptor} is generated next to the query type,
+ * which references it in its {@code DESCRIPTOR} field.</p>
+ *
  * @author Marvin
  */
 @SupportedAnnotationTypes({"com.mysema.query.annotations.*","com.amazonaws.services.dynamodbv2.datamodeling.*"})
 public class DynamoAnnotationProcessor extends AbstractQuerydslProcessor {
 
+    private final Set<String> descriptors = new HashSet<String>();
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TableDescriptorGenerator generator = new TableDescriptorGenerator(processingEnv);
+        for (Element element : roundEnv.getElementsAnnotatedWith(DynamoDBTable.class)) {
+            if (element instanceof TypeElement
+                    && !descriptors.contains(generator.getDescriptorName((TypeElement) element))) {
+                String descriptor = generator.generate((TypeElement) element);
+                if (descriptor != null) {
+                    descriptors.add(descriptor);
+                }
+            }
+        }
+        return super.process(annotations, roundEnv);
+    }
+
     @Override
     protected Configuration createConfiguration(RoundEnvironment roundEnv) {
         Class<? extends Annotation> entities = QueryEntities.class;
         Class<? extends Annotation> entity = DynamoDBTable.class;
         Class<? extends Annotation> skip = DynamoDBIgnore.class;
         DefaultConfiguration conf = new DefaultConfiguration(roundEnv, processingEnv.getOptions(), Collections.<String>emptySet(),
-                entities, entity, null, null, null, skip);
+                entities, entity, null, null, null, skip) {
+            @Override
+            public Serializer getEntitySerializer() {
+                return new DescriptorEntitySerializer(getTypeMappings(), Collections.<String>emptySet(), descriptors);
+            }
+        };
         return conf;
     }
 
+    /**
+     * Adds the reference to the generated table descriptor to the query types
+     */
+    private static class DescriptorEntitySerializer extends EntitySerializer {
+
+        private final Set<String> descriptors;
+
+        DescriptorEntitySerializer(TypeMappings mappings, Collection<String> keywords, Set<String> descriptors) {
+            super(mappings, keywords);
+            this.descriptors = descriptors;
+        }
+
+        @Override
+        protected void introDefaultInstance(CodeWriter writer, EntityType model, String defaultName)
+                throws IOException {
+            super.introDefaultInstance(writer, model, defaultName);
+            Type queryType = typeMappings.getPathType(model, model, true);
+            String descriptor = queryType.getFullName() + TableDescriptorGenerator.SUFFIX;
+            if (descriptors.contains(descriptor)) {
+                Type type = new SimpleType(descriptor, queryType.getPackageName(),
+                        queryType.getSimpleName() + TableDescriptorGenerator.SUFFIX);
+                writer.publicStaticFinal(type, TableDescriptor.FIELD_NAME, "new " + type.getSimpleName() + "()");
+                writer.nl();
+            }
+        }
+
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2011, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.querydsl.dynamodb.apt;
+
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+import javax.annotation.Nullable;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.*;
+import com.querydsl.dynamodb.ShardedHashKey;
+
+/**
+ * TableDescriptorGenerator writes the {@link com.querydsl.dynamodb.TableDescriptor} of a
+ * {@link DynamoDBTable} annotated class
+ *
+ * @author velo
+ */
+class TableDescriptorGenerator {
+
+    static final String SUFFIX = "Descriptor";
+
+    private static final Map<String, String> CONVERSIONS = new HashMap<String, String>();
+
+    static {
+        CONVERSIONS.put("java.lang.String", "value.getS()");
+        CONVERSIONS.put("int", "Integer.valueOf(value.getN())");
+        CONVERSIONS.put("java.lang.Integer", "Integer.valueOf(value.getN())");
+        CONVERSIONS.put("long", "Long.valueOf(value.getN())");
+        CONVERSIONS.put("java.lang.Long", "Long.valueOf(value.getN())");
+        CONVERSIONS.put("short", "Short.valueOf(value.getN())");
+        CONVERSIONS.put("java.lang.Short", "Short.valueOf(value.getN())");
+        CONVERSIONS.put("byte", "Byte.valueOf(value.getN())");
+        CONVERSIONS.put("java.lang.Byte", "Byte.valueOf(value.getN())");
+        CONVERSIONS.put("double", "Double.valueOf(value.getN())");
+        CONVERSIONS.put("java.lang.Double", "Double.valueOf(value.getN())");
+        CONVERSIONS.put("float", "Float.valueOf(value.getN())");
+        CONVERSIONS.put("java.lang.Float", "Float.valueOf(value.getN())");
+        CONVERSIONS.put("java.math.BigDecimal", "new java.math.BigDecimal(value.getN())");
+        CONVERSIONS.put("java.math.BigInteger", "new java.math.BigInteger(value.getN())");
+        // same representation as DynamoDBMapper
+        CONVERSIONS.put("boolean", "\"1\".equals(value.getN())");
+        CONVERSIONS.put("java.lang.Boolean", "\"1\".equals(value.getN())");
+        CONVERSIONS.put("java.util.Date", "com.amazonaws.util.DateUtils.parseISO8601Date(value.getS())");
+        CONVERSIONS.put("java.util.Set<java.lang.String>", "new java.util.HashSet<String>(value.getSS())");
+    }
+
+    private final ProcessingEnvironment env;
+
+    private final String prefix, suffix, packageSuffix;
+
+    TableDescriptorGenerator(ProcessingEnvironment env) {
+        this.env = env;
+        Map<String, String> options = env.getOptions();
+        this.prefix = option(options, "querydsl.prefix", "Q");
+        this.suffix = option(options, "querydsl.suffix", "");
+        this.packageSuffix = option(options, "querydsl.packageSuffix", "");
+    }
+
+    private static String option(Map<String, String> options, String key, String defaultValue) {
+        return options.containsKey(key) ? options.get(key) : defaultValue;
+    }
+
+    /**
+     * Get the name of the descriptor of the given entity, next to its query type
+     *
+     * @param type entity
+     * @return descriptor class name
+     */
+    String getDescriptorName(TypeElement type) {
+        String packageName = env.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String simpleName = prefix + type.getSimpleName() + suffix + SUFFIX;
+        packageName += packageSuffix;
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    /**
+     * Write the descriptor of the given entity
+     *
+     * @param type entity
+     * @return descriptor class name or null, if the entity is not a top level class
+     */
+    @Nullable
+    String generate(TypeElement type) {
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL) {
+            return null;
+        }
+        String name = getDescriptorName(type);
+        try {
+            Writer writer = env.getFiler().createSourceFile(name, type).openWriter();
+            try {
+                writer.write(serialize(type, name));
+            } finally {
+                writer.close();
+            }
+            return name;
+        } catch (IOException e) {
+            env.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Failed to generate " + name + ": " + e.getMessage(), type);
+            return null;
+        }
+    }
+
+    private String serialize(TypeElement type, String name) {
+        String entity = type.getQualifiedName().toString();
+        int index = name.lastIndexOf('.');
+        String packageName = index > 0 ? name.substring(0, index) : "";
+        String simpleName = name.substring(index + 1);
+
+        StringBuilder constructor = new StringBuilder();
+        StringBuilder fields = new StringBuilder();
+        StringBuilder mapping = new StringBuilder();
+        boolean unmarshallable = hasDefaultConstructor(type);
+        Map<String, String[]> indexes = new LinkedHashMap<String, String[]>();
+        String rangeKey = null;
+        int rangeKeys = 0;
+
+        Set<String> setters = new HashSet<String>();
+        List<ExecutableElement> getters = new ArrayList<ExecutableElement>();
+        for (ExecutableElement method : ElementFilter.methodsIn(env.getElementUtils().getAllMembers(type))) {
+            String methodName = method.getSimpleName().toString();
+            TypeElement declaringType = (TypeElement) method.getEnclosingElement();
+            if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)
+                    || declaringType.getQualifiedName().contentEquals("java.lang.Object")) {
+                continue;
+            }
+            if (methodName.startsWith("set") && method.getParameters().size() == 1) {
+                setters.add(methodName);
+            } else if ((methodName.startsWith("get") || methodName.startsWith("is"))
+                    && method.getParameters().isEmpty() && method.getAnnotation(DynamoDBIgnore.class) == null) {
+                getters.add(method);
+            }
+        }
+
+        for (ExecutableElement getter : getters) {
+            String methodName = getter.getSimpleName().toString();
+            String capitalized = methodName.substring(methodName.startsWith("get") ? 3 : 2);
+            String property = Introspector.decapitalize(capitalized);
+            if (!setters.contains("set" + capitalized)) {
+                continue;
+            }
+
+            String attributeName = getAttributeName(getter);
+            if (attributeName != null && !attributeName.isEmpty() && !attributeName.equals(property)) {
+                constructor.append("        attribute(\"").append(property).append("\", \"")
+                           .append(attributeName).append("\");\n");
+            }
+            String attribute = attributeName != null && !attributeName.isEmpty() ? attributeName : property;
+
+            if (getter.getAnnotation(DynamoDBHashKey.class) != null) {
+                constructor.append("        hashKey(\"").append(property).append("\");\n");
+            }
+            ShardedHashKey shardedKey = getter.getAnnotation(ShardedHashKey.class);
+            if (shardedKey != null) {
+                constructor.append("        sharded(\"").append(property).append("\", ").append(shardedKey.shards())
+                           .append(", \"").append(shardedKey.separator()).append("\");\n");
+            }
+            if (getter.getAnnotation(DynamoDBRangeKey.class) != null) {
+                rangeKey = property;
+                rangeKeys++;
+            }
+            DynamoDBIndexHashKey indexHashKey = getter.getAnnotation(DynamoDBIndexHashKey.class);
+            if (indexHashKey != null) {
+                for (String indexName : names(indexHashKey.globalSecondaryIndexName(),
+                        indexHashKey.globalSecondaryIndexNames())) {
+                    index(indexes, indexName)[1] = property;
+                }
+            }
+            DynamoDBIndexRangeKey indexRangeKey = getter.getAnnotation(DynamoDBIndexRangeKey.class);
+            if (indexRangeKey != null) {
+                for (String indexName : names(indexRangeKey.globalSecondaryIndexName(),
+                        indexRangeKey.globalSecondaryIndexNames())) {
+                    index(indexes, indexName)[2] = property;
+                }
+                for (String indexName : names(indexRangeKey.localSecondaryIndexName(),
+                        indexRangeKey.localSecondaryIndexNames())) {
+                    // the hash key of a local index is the one of the table
+                    index(indexes, indexName)[2] = property;
+                }
+            }
+
+            String propertyType = getter.getReturnType().toString();
+            String conversion;
+            String marshaller = getMarshaller(getter);
+            if (marshaller != null) {
+                String field = property + "Marshaller";
+                fields.append("    private final ").append(marshaller).append(" ").append(field)
+                      .append(" = new ").append(marshaller).append("();\n\n");
+                constructor.append("        marshaller(\"").append(property).append("\", ").append(field)
+                           .append(");\n");
+                if (propertyType.contains("<")) {
+                    unmarshallable = false;
+                }
+                conversion = field + ".unmarshall(" + propertyType + ".class, value.getS())";
+            } else {
+                conversion = CONVERSIONS.get(propertyType);
+                if (conversion == null) {
+                    unmarshallable = false;
+                }
+            }
+            mapping.append("        if ((value = item.get(\"").append(attribute).append("\")) != null) {\n")
+                   .append("            entity.set").append(capitalized).append("(").append(conversion)
+                   .append(");\n")
+                   .append("        }\n");
+        }
+        if (rangeKeys == 1) {
+            constructor.append("        rangeKey(\"").append(rangeKey).append("\");\n");
+        }
+        for (String[] keys : indexes.values()) {
+            constructor.append("        index(\"").append(keys[0]).append("\", ")
+                       .append(keys[1] != null ? "\"" + keys[1] + "\"" : "null").append(", ")
+                       .append(keys[2] != null ? "\"" + keys[2] + "\"" : "null").append(");\n");
+        }
+
+        StringBuilder builder = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            builder.append("package ").append(packageName).append(";\n\n");
+        }
+        builder.append("import java.util.Map;\n\n")
+               .append("import javax.annotation.Generated;\n\n")
+               .append("import com.amazonaws.services.dynamodbv2.model.AttributeValue;\n")
+               .append("import com.querydsl.dynamodb.TableDescriptor;\n\n")
+               .append("/**\n * ").append(simpleName).append(" is a Querydsl table descriptor for ")
+               .append(type.getSimpleName()).append("\n */\n")
+               .append("@Generated(\"").append(getClass().getName()).append("\")\n")
+               .append("public class ").append(simpleName).append(" extends TableDescriptor<").append(entity)
+               .append("> {\n\n")
+               .append(fields)
+               .append("    public ").append(simpleName).append("() {\n")
+               .append("        super(").append(entity).append(".class, \"")
+               .append(type.getAnnotation(DynamoDBTable.class).tableName()).append("\");\n")
+               .append(constructor)
+               .append("    }\n");
+        if (unmarshallable) {
+            builder.append("\n    @Override\n")
+                   .append("    public ").append(entity).append(" unmarshall(Map<String, AttributeValue> item) {\n")
+                   .append("        ").append(entity).append(" entity = new ").append(entity).append("();\n")
+                   .append("        AttributeValue value;\n")
+                   .append(mapping)
+                   .append("        return entity;\n")
+                   .append("    }\n");
+        }
+        builder.append("\n}\n");
+        return builder.toString();
+    }
+
+    private static boolean hasDefaultConstructor(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private static String getAttributeName(ExecutableElement getter) {
+        DynamoDBHashKey hashKey = getter.getAnnotation(DynamoDBHashKey.class);
+        if (hashKey != null) {
+            return hashKey.attributeName();
+        }
+        DynamoDBRangeKey rangeKey = getter.getAnnotation(DynamoDBRangeKey.class);
+        if (rangeKey != null) {
+            return rangeKey.attributeName();
+        }
+        DynamoDBAttribute attribute = getter.getAnnotation(DynamoDBAttribute.class);
+        if (attribute != null) {
+            return attribute.attributeName();
+        }
+        DynamoDBVersionAttribute version = getter.getAnnotation(DynamoDBVersionAttribute.class);
+        if (version != null) {
+            return version.attributeName();
+        }
+        DynamoDBIndexHashKey indexHashKey = getter.getAnnotation(DynamoDBIndexHashKey.class);
+        if (indexHashKey != null) {
+            return indexHashKey.attributeName();
+        }
+        DynamoDBIndexRangeKey indexRangeKey = getter.getAnnotation(DynamoDBIndexRangeKey.class);
+        if (indexRangeKey != null) {
+            return indexRangeKey.attributeName();
+        }
+        return null;
+    }
+
+    @Nullable
+    private static String getMarshaller(ExecutableElement getter) {
+        DynamoDBMarshalling marshalling = getter.getAnnotation(DynamoDBMarshalling.class);
+        if (marshalling == null) {
+            return null;
+        }
+        try {
+            return marshalling.marshallerClass().getName();
+        } catch (MirroredTypeException e) {
+            // classes of the compilation are only available as type mirrors
+            return e.getTypeMirror().toString();
+        }
+    }
+
+    private static String[] index(Map<String, String[]> indexes, String name) {
+        String[] index = indexes.get(name);
+        if (index == null) {
+            index = new String[]{name, null, null};
+            indexes.put(name, index);
+        }
+        return index;
+    }
+
+    private static List<String> names(String name, String[] names) {
+        List<String> result = new ArrayList<String>(Arrays.asList(names));
+        if (!name.isEmpty()) {
+            result.add(name);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,352 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.*;
+import com.querydsl.core.util.MathUtils;
+import com.querydsl.dynamodb.DynamoDBQueryMetrics;
+import com.querydsl.dynamodb.ReadCapacityLimiter;
+
+/**
+ * Aggregation computes count, sum, avg, min and max aggregates over DynamoDB items, optionally grouped
+ * by an attribute
+ *
+ * <p>Every segment or shard is read into its own {@link Partial}, which keeps one set of primitive
+ * accumulators per group, so the memory is bounded by the number of groups instead of the number of
+ * items. The partials are merged when all of them are complete.</p>
+ *
+ * @author velo
+ */
+public final class Aggregation {
+
+    private enum Function { COUNT_ALL, COUNT, SUM, AVG, MIN, MAX }
+
+    private static final Map<Operator, Function> FUNCTIONS = new HashMap<Operator, Function>();
+
+    static {
+        FUNCTIONS.put(Ops.AggOps.COUNT_ALL_AGG, Function.COUNT_ALL);
+        FUNCTIONS.put(Ops.AggOps.COUNT_AGG, Function.COUNT);
+        FUNCTIONS.put(Ops.AggOps.SUM_AGG, Function.SUM);
+        FUNCTIONS.put(Ops.AggOps.AVG_AGG, Function.AVG);
+        FUNCTIONS.put(Ops.AggOps.MIN_AGG, Function.MIN);
+        FUNCTIONS.put(Ops.AggOps.MAX_AGG, Function.MAX);
+    }
+
+    private final DynamodbSerializer serializer;
+
+    @Nullable
+    private final Path<?> groupBy;
+
+    @Nullable
+    private final String groupAttribute;
+
+    private final QTuple projection;
+
+    private final Function[] functions;
+
+    private final String[] attributes;
+
+    private final boolean[] integral;
+
+    public Aggregation(@Nullable Path<?> groupBy, List<? extends Expression<?>> aggregates,
+            DynamodbSerializer serializer) {
+        this.serializer = serializer;
+        this.groupBy = groupBy;
+        this.groupAttribute = groupBy != null ? getAttribute(groupBy) : null;
+        this.projection = Projections.tuple(aggregates.toArray(new Expression<?>[aggregates.size()]));
+        this.functions = new Function[aggregates.size()];
+        this.attributes = new String[aggregates.size()];
+        this.integral = new boolean[aggregates.size()];
+        for (int i = 0; i < aggregates.size(); i++) {
+            Expression<?> aggregate = aggregates.get(i);
+            Function function = aggregate instanceof Operation
+                    ? FUNCTIONS.get(((Operation<?>) aggregate).getOperator()) : null;
+            if (function == null) {
+                throw new UnsupportedOperationException("Unsupported aggregate: " + aggregate);
+            }
+            functions[i] = function;
+            if (function != Function.COUNT_ALL) {
+                Expression<?> arg = ((Operation<?>) aggregate).getArg(0);
+                attributes[i] = getAttribute(arg);
+                integral[i] = isIntegral(arg.getType());
+            }
+        }
+    }
+
+    private String getAttribute(Expression<?> expr) {
+        if (!(expr instanceof Path) || ((Path<?>) expr).getMetadata().getParent() == null
+                || !((Path<?>) expr).getMetadata().getParent().getMetadata().isRoot()) {
+            throw new UnsupportedOperationException("Only top level attributes can be aggregated: " + expr);
+        }
+        return (String) serializer.visit((Path<?>) expr, null);
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return Long.class.equals(type) || Integer.class.equals(type)
+                || Short.class.equals(type) || Byte.class.equals(type);
+    }
+
+    /**
+     * Get the attributes to be read for the aggregation
+     *
+     * @return attribute names, empty if the items are only counted
+     */
+    public List<String> getAttributes() {
+        Set<String> names = new LinkedHashSet<String>();
+        if (groupAttribute != null) {
+            names.add(groupAttribute);
+        }
+        for (String attribute : attributes) {
+            if (attribute != null) {
+                names.add(attribute);
+            }
+        }
+        return new ArrayList<String>(names);
+    }
+
+    public Partial newPartial() {
+        return new Partial();
+    }
+
+    /**
+     * Aggregate the items of the given scan with concurrent segments
+     *
+     * @param client client
+     * @param request scan request to be split into segments
+     * @param totalSegments number of segments
+     * @param executor executor for the segment readers
+     * @param limiter limiter or null, if not rate limited
+     * @param metrics metrics to record the pages into
+     * @return merged partial
+     */
+    public Partial scan(final AmazonDynamoDB client, ScanRequest request, int totalSegments,
+            ExecutorService executor, @Nullable final ReadCapacityLimiter limiter,
+            final DynamoDBQueryMetrics metrics) {
+        List<Callable<Partial>> tasks = new ArrayList<Callable<Partial>>(totalSegments);
+        for (int i = 0; i < totalSegments; i++) {
+            final ScanRequest segment = totalSegments > 1
+                    ? request.clone().withSegment(i).withTotalSegments(totalSegments) : request;
+            tasks.add(new Callable<Partial>() {
+                @Override
+                public Partial call() {
+                    Partial partial = new Partial();
+                    do {
+                        ScanResult result = Pages.scan(client, segment, limiter, metrics);
+                        partial.addAll(result.getItems());
+                        segment.setExclusiveStartKey(result.getLastEvaluatedKey());
+                    } while (Pages.hasMore(segment.getExclusiveStartKey()));
+                    return partial;
+                }
+            });
+        }
+        return run(tasks, executor);
+    }
+
+    /**
+     * Aggregate the items of the given queries, which are run concurrently
+     *
+     * @param client client
+     * @param requests queries
+     * @param executor executor for the queries
+     * @param limiter limiter or null, if not rate limited
+     * @param metrics metrics to record the pages into
+     * @return merged partial
+     */
+    public Partial query(final AmazonDynamoDB client, List<QueryRequest> requests, ExecutorService executor,
+            @Nullable final ReadCapacityLimiter limiter, final DynamoDBQueryMetrics metrics) {
+        List<Callable<Partial>> tasks = new ArrayList<Callable<Partial>>(requests.size());
+        for (final QueryRequest request : requests) {
+            tasks.add(new Callable<Partial>() {
+                @Override
+                public Partial call() {
+                    Partial partial = new Partial();
+                    do {
+                        QueryResult result = Pages.query(client, request, limiter, metrics);
+                        partial.addAll(result.getItems());
+                        request.setExclusiveStartKey(result.getLastEvaluatedKey());
+                    } while (Pages.hasMore(request.getExclusiveStartKey()));
+                    return partial;
+                }
+            });
+        }
+        return run(tasks, executor);
+    }
+
+    private Partial run(List<Callable<Partial>> tasks, ExecutorService executor) {
+        Partial total = new Partial();
+        for (Partial partial : Tasks.invokeAll(executor, tasks, "aggregating")) {
+            total.merge(partial);
+        }
+        return total;
+    }
+
+    private static long combine(Function function, long v1, long v2) {
+        switch (function) {
+            case MIN: return Math.min(v1, v2);
+            case MAX: return Math.max(v1, v2);
+            default: return v1 + v2;
+        }
+    }
+
+    private static double combine(Function function, double v1, double v2) {
+        switch (function) {
+            case MIN: return Math.min(v1, v2);
+            case MAX: return Math.max(v1, v2);
+            default: return v1 + v2;
+        }
+    }
+
+    /**
+     * Partial holds the accumulators of the groups read so far
+     */
+    public final class Partial {
+
+        private final Map<AttributeValue, Accumulator> groups = new HashMap<AttributeValue, Accumulator>();
+
+        private Partial() { }
+
+        /**
+         * Add the given items to their groups
+         *
+         * @param items items
+         */
+        public void addAll(List<Map<String, AttributeValue>> items) {
+            for (Map<String, AttributeValue> item : items) {
+                AttributeValue key = groupAttribute != null ? item.get(groupAttribute) : null;
+                Accumulator accumulator = groups.get(key);
+                if (accumulator == null) {
+                    accumulator = new Accumulator();
+                    groups.put(key, accumulator);
+                }
+                accumulator.add(item);
+            }
+        }
+
+        /**
+         * Merge the groups of the given partial into this one
+         *
+         * @param other partial
+         */
+        public void merge(Partial other) {
+            for (Map.Entry<AttributeValue, Accumulator> entry : other.groups.entrySet()) {
+                Accumulator accumulator = groups.get(entry.getKey());
+                if (accumulator == null) {
+                    groups.put(entry.getKey(), entry.getValue());
+                } else {
+                    accumulator.merge(entry.getValue());
+                }
+            }
+        }
+
+        /**
+         * Get the aggregates over all items
+         *
+         * @return aggregates
+         */
+        public Tuple getResult() {
+            Accumulator accumulator = groups.get(null);
+            return (accumulator != null ? accumulator : new Accumulator()).toTuple();
+        }
+
+        /**
+         * Get the aggregates per group, items without the group attribute are grouped under null
+         *
+         * @return aggregates by group value
+         */
+        public Map<Object, Tuple> getResults() {
+            Map<Object, Tuple> results = new HashMap<Object, Tuple>(groups.size());
+            for (Map.Entry<AttributeValue, Accumulator> entry : groups.entrySet()) {
+                Object key = entry.getKey() != null ? serializer.fromAttributeValue(groupBy, entry.getKey()) : null;
+                results.put(key, entry.getValue().toTuple());
+            }
+            return results;
+        }
+
+    }
+
+    /**
+     * Accumulator holds the aggregates of a single group
+     */
+    private final class Accumulator {
+
+        private final long[] counts = new long[functions.length];
+
+        private final long[] longs = new long[functions.length];
+
+        private final double[] doubles = new double[functions.length];
+
+        void add(Map<String, AttributeValue> item) {
+            for (int i = 0; i < functions.length; i++) {
+                if (functions[i] == Function.COUNT_ALL) {
+                    counts[i]++;
+                    continue;
+                }
+                AttributeValue value = item.get(attributes[i]);
+                if (value == null || Boolean.TRUE.equals(value.getNULL())) {
+                    continue;
+                }
+                boolean first = counts[i]++ == 0;
+                if (functions[i] == Function.COUNT) {
+                    continue;
+                } else if (value.getN() == null) {
+                    throw new IllegalArgumentException("Not a number: " + attributes[i] + " = " + value);
+                } else if (integral[i]) {
+                    long number = Long.parseLong(value.getN());
+                    longs[i] = first ? number : combine(functions[i], longs[i], number);
+                } else {
+                    double number = Double.parseDouble(value.getN());
+                    doubles[i] = first ? number : combine(functions[i], doubles[i], number);
+                }
+            }
+        }
+
+        void merge(Accumulator other) {
+            for (int i = 0; i < functions.length; i++) {
+                if (other.counts[i] == 0) {
+                    continue;
+                } else if (counts[i] == 0) {
+                    longs[i] = other.longs[i];
+                    doubles[i] = other.doubles[i];
+                } else {
+                    longs[i] = combine(functions[i], longs[i], other.longs[i]);
+                    doubles[i] = combine(functions[i], doubles[i], other.doubles[i]);
+                }
+                counts[i] += other.counts[i];
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Tuple toTuple() {
+            Object[] values = new Object[functions.length];
+            for (int i = 0; i < functions.length; i++) {
+                Number value;
+                if (functions[i] == Function.COUNT_ALL || functions[i] == Function.COUNT) {
+                    value = counts[i];
+                } else if (counts[i] == 0) {
+                    value = null;
+                } else if (functions[i] == Function.AVG) {
+                    value = (integral[i] ? (double) longs[i] : doubles[i]) / counts[i];
+                } else {
+                    value = integral[i] ? (Number) longs[i] : (Number) doubles[i];
+                }
+                Class<?> type = projection.getArgs().get(i).getType();
+                values[i] = value != null && Number.class.isAssignableFrom(type)
+                        ? MathUtils.cast(value, (Class<? extends Number>) type) : value;
+            }
+            return projection.newInstance(values);
+        }
+
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.querydsl.dynamodb.DynamoDBQueryMetrics;
+
+/**
+ * AsyncPages reads the pages of a scan or query and batches of keys with the asynchronous client,
+ * requesting the next page from the completion callback of the previous one
+ *
+ * <p>No thread waits between the pages, so asynchronous reads can't be paced by a
+ * {@link com.querydsl.dynamodb.ReadCapacityLimiter}.</p>
+ *
+ * @author velo
+ */
+public final class AsyncPages {
+
+    /**
+     * Callback for the pages read
+     */
+    public interface PageHandler {
+
+        /**
+         * Handle a page, called by one segment or batch at a time
+         *
+         * @param items items of the page, null for count requests
+         * @param count number of items matched by the page
+         * @return true, if the next page should be read
+         */
+        boolean handle(@Nullable List<Map<String, AttributeValue>> items, int count);
+
+    }
+
+    private AsyncPages() { }
+
+    /**
+     * Read all pages of the given scan, in parallel segments if requested
+     *
+     * @param client client
+     * @param request scan request
+     * @param totalSegments number of segments
+     * @param metrics metrics to record the pages into
+     * @param handler page handler, which needs to be thread safe for multiple segments
+     * @return future completed after the last page was handled
+     */
+    public static ListenableFuture<Void> scan(AmazonDynamoDBAsync client, ScanRequest request, int totalSegments,
+            DynamoDBQueryMetrics metrics, PageHandler handler) {
+        SettableFuture<Void> future = SettableFuture.create();
+        if (totalSegments == 1) {
+            scanNext(client, request, metrics, handler, future, new AtomicInteger(1));
+        } else {
+            AtomicInteger running = new AtomicInteger(totalSegments);
+            for (int segment = 0; segment < totalSegments; segment++) {
+                ScanRequest segmentRequest = request.clone()
+                        .withSegment(segment).withTotalSegments(totalSegments);
+                scanNext(client, segmentRequest, metrics, handler, future, running);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Read all pages of the given query
+     *
+     * @param client client
+     * @param request query request
+     * @param metrics metrics to record the pages into
+     * @param handler page handler
+     * @return future completed after the last page was handled
+     */
+    public static ListenableFuture<Void> query(AmazonDynamoDBAsync client, QueryRequest request,
+            DynamoDBQueryMetrics metrics, PageHandler handler) {
+        SettableFuture<Void> future = SettableFuture.create();
+        queryNext(client, request, metrics, handler, future);
+        return future;
+    }
+
+    /**
+     * Read the items with the given keys in concurrent batches of {@value BatchLoader#MAX_KEYS} keys
+     *
+     * <p>Unprocessed keys are requested again after the backoff, which pauses the callback thread
+     * of the client.</p>
+     *
+     * @param client client
+     * @param tableName table name
+     * @param keys distinct primary keys
+     * @param attributes attributes to get or null for all attributes
+     * @param backoff backoff for unprocessed keys
+     * @param metrics metrics to record the batches into
+     * @param handler page handler, which needs to be thread safe for multiple batches
+     * @return future completed after the last batch was handled
+     */
+    public static ListenableFuture<Void> batchGet(AmazonDynamoDBAsync client, String tableName,
+            List<Map<String, AttributeValue>> keys, @Nullable List<String> attributes, Backoff backoff,
+            DynamoDBQueryMetrics metrics, PageHandler handler) {
+        SettableFuture<Void> future = SettableFuture.create();
+        if (keys.isEmpty()) {
+            future.set(null);
+            return future;
+        }
+        List<List<Map<String, AttributeValue>>> chunks = Lists.partition(keys, BatchLoader.MAX_KEYS);
+        AtomicInteger running = new AtomicInteger(chunks.size());
+        for (List<Map<String, AttributeValue>> chunk : chunks) {
+            KeysAndAttributes keysAndAttributes = new KeysAndAttributes().withKeys(chunk);
+            if (attributes != null && !attributes.isEmpty()) {
+                keysAndAttributes.setAttributesToGet(attributes);
+            }
+            batchGetNext(client, tableName, Collections.singletonMap(tableName, keysAndAttributes), backoff, 0,
+                    metrics, handler, future, running);
+        }
+        return future;
+    }
+
+    private static void scanNext(final AmazonDynamoDBAsync client, final ScanRequest request,
+            final DynamoDBQueryMetrics metrics, final PageHandler handler, final SettableFuture<Void> future,
+            final AtomicInteger running) {
+        final long start = System.nanoTime();
+        client.scanAsync(request, new AsyncHandler<ScanRequest, ScanResult>() {
+            @Override
+            public void onError(Exception exception) {
+                future.setException(exception);
+            }
+
+            @Override
+            public void onSuccess(ScanRequest ignored, ScanResult result) {
+                try {
+                    metrics.recordPage(System.nanoTime() - start, result.getScannedCount(), result.getCount(),
+                            result.getConsumedCapacity());
+                    boolean more = handler.handle(result.getItems(), result.getCount());
+                    if (more && Pages.hasMore(result.getLastEvaluatedKey()) && !future.isDone()) {
+                        request.setExclusiveStartKey(result.getLastEvaluatedKey());
+                        scanNext(client, request, metrics, handler, future, running);
+                    } else if (running.decrementAndGet() == 0) {
+                        future.set(null);
+                    }
+                } catch (RuntimeException e) {
+                    future.setException(e);
+                }
+            }
+        });
+    }
+
+    private static void queryNext(final AmazonDynamoDBAsync client, final QueryRequest request,
+            final DynamoDBQueryMetrics metrics, final PageHandler handler, final SettableFuture<Void> future) {
+        final long start = System.nanoTime();
+        client.queryAsync(request, new AsyncHandler<QueryRequest, QueryResult>() {
+            @Override
+            public void onError(Exception exception) {
+                future.setException(exception);
+            }
+
+            @Override
+            public void onSuccess(QueryRequest ignored, QueryResult result) {
+                try {
+                    metrics.recordPage(System.nanoTime() - start, result.getScannedCount(), result.getCount(),
+                            result.getConsumedCapacity());
+                    boolean more = handler.handle(result.getItems(), result.getCount());
+                    if (more && Pages.hasMore(result.getLastEvaluatedKey()) && !future.isDone()) {
+                        request.setExclusiveStartKey(result.getLastEvaluatedKey());
+                        queryNext(client, request, metrics, handler, future);
+                    } else {
+                        future.set(null);
+                    }
+                } catch (RuntimeException e) {
+                    future.setException(e);
+                }
+            }
+        });
+    }
+
+    private static void batchGetNext(final AmazonDynamoDBAsync client, final String tableName,
+            Map<String, KeysAndAttributes> requestItems, final Backoff backoff, final int attempt,
+            final DynamoDBQueryMetrics metrics, final PageHandler handler, final SettableFuture<Void> future,
+            final AtomicInteger running) {
+        final long start = System.nanoTime();
+        BatchGetItemRequest request = new BatchGetItemRequest()
+                .withRequestItems(requestItems)
+                .withReturnConsumedCapacity(ReturnConsumedCapacity.INDEXES);
+        client.batchGetItemAsync(request, new AsyncHandler<BatchGetItemRequest, BatchGetItemResult>() {
+            @Override
+            public void onError(Exception exception) {
+                future.setException(exception);
+            }
+
+            @Override
+            public void onSuccess(BatchGetItemRequest ignored, BatchGetItemResult result) {
+                try {
+                    List<Map<String, AttributeValue>> found = result.getResponses().get(tableName);
+                    int count = found != null ? found.size() : 0;
+                    metrics.recordPage(System.nanoTime() - start, count, result.getConsumedCapacity());
+                    boolean more = found == null || handler.handle(found, count);
+                    Map<String, KeysAndAttributes> unprocessed = result.getUnprocessedKeys();
+                    if (more && unprocessed != null && !unprocessed.isEmpty() && !future.isDone()) {
+                        backoff.pause(attempt + 1);
+                        batchGetNext(client, tableName, unprocessed, backoff, attempt + 1, metrics, handler,
+                                future, running);
+                    } else if (running.decrementAndGet() == 0) {
+                        future.set(null);
+                    }
+                } catch (RuntimeException e) {
+                    future.setException(e);
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.Random;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Backoff implements capped exponential backoff with full jitter for retrying unprocessed batch items
+ *
+ * @author velo
+ */
+public final class Backoff {
+
+    public static final Backoff DEFAULT = new Backoff(50, 5000, 10);
+
+    private final Random random = new Random();
+
+    private final long baseDelay;
+
+    private final long maxDelay;
+
+    private final int maxAttempts;
+
+    /**
+     * Create a new Backoff instance
+     *
+     * @param baseDelay delay of the first retry in milliseconds
+     * @param maxDelay upper bound of a single delay in milliseconds
+     * @param maxAttempts number of retries before giving up
+     */
+    public Backoff(long baseDelay, long maxDelay, int maxAttempts) {
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Sleep before the given retry attempt
+     *
+     * @param attempt retry attempt, starting from 1
+     * @throws AmazonClientException if the attempts are exhausted or the thread is interrupted
+     */
+    public void pause(int attempt) {
+        if (attempt > maxAttempts) {
+            throw new AmazonClientException("Unprocessed items remain after " + maxAttempts + " retries");
+        }
+        try {
+            Thread.sleep(delay(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while retrying unprocessed items", e);
+        }
+    }
+
+    /**
+     * Get a randomized delay for the given retry attempt
+     *
+     * @param attempt retry attempt, starting from 1
+     * @return delay in milliseconds
+     */
+    public long delay(int attempt) {
+        long ceiling = Math.min(maxDelay, baseDelay << Math.min(attempt - 1, 20));
+        return (long) (random.nextDouble() * ceiling);
+    }
+
+}
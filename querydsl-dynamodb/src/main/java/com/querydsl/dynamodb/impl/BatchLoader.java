@@ -0,0 +1,127 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.google.common.collect.Lists;
+import com.querydsl.dynamodb.DynamoDBQueryMetrics;
+import com.querydsl.dynamodb.ReadCapacityLimiter;
+
+/**
+ * BatchLoader reads items by primary key with BatchGetItem, splitting the keys into chunks
+ * of {@value #MAX_KEYS} which are loaded concurrently
+ *
+ * @author velo
+ */
+public class BatchLoader {
+
+    /**
+     * Maximum number of keys in a single BatchGetItem request
+     */
+    public static final int MAX_KEYS = 100;
+
+    private final AmazonDynamoDB client;
+
+    private final ExecutorService executor;
+
+    private final Backoff backoff;
+
+    @Nullable
+    private final ReadCapacityLimiter limiter;
+
+    public BatchLoader(AmazonDynamoDB client, ExecutorService executor, Backoff backoff,
+            @Nullable ReadCapacityLimiter limiter) {
+        this.client = client;
+        this.executor = executor;
+        this.backoff = backoff;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Load the items with the given keys
+     *
+     * @param tableName table name
+     * @param keys distinct primary keys
+     * @param attributes attributes to get or null for all attributes
+     * @param metrics metrics to record the batches into
+     * @return found items in no particular order
+     */
+    public List<Map<String, AttributeValue>> load(final String tableName, List<Map<String, AttributeValue>> keys,
+            @Nullable final List<String> attributes, final DynamoDBQueryMetrics metrics) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<List<Map<String, AttributeValue>>> chunks = Lists.partition(keys, MAX_KEYS);
+        if (chunks.size() == 1) {
+            return loadChunk(tableName, chunks.get(0), attributes, metrics);
+        }
+
+        List<Callable<List<Map<String, AttributeValue>>>> tasks
+                = new ArrayList<Callable<List<Map<String, AttributeValue>>>>(chunks.size());
+        for (final List<Map<String, AttributeValue>> chunk : chunks) {
+            tasks.add(new Callable<List<Map<String, AttributeValue>>>() {
+                @Override
+                public List<Map<String, AttributeValue>> call() {
+                    return loadChunk(tableName, chunk, attributes, metrics);
+                }
+            });
+        }
+        List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>(keys.size());
+        for (List<Map<String, AttributeValue>> found : Tasks.invokeAll(executor, tasks, "loading items")) {
+            items.addAll(found);
+        }
+        return items;
+    }
+
+    private List<Map<String, AttributeValue>> loadChunk(String tableName, List<Map<String, AttributeValue>> keys,
+            @Nullable List<String> attributes, DynamoDBQueryMetrics metrics) {
+        KeysAndAttributes keysAndAttributes = new KeysAndAttributes().withKeys(keys);
+        if (attributes != null && !attributes.isEmpty()) {
+            keysAndAttributes.setAttributesToGet(attributes);
+        }
+        Map<String, KeysAndAttributes> requestItems = Collections.singletonMap(tableName, keysAndAttributes);
+
+        List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>(keys.size());
+        int attempt = 0;
+        while (requestItems != null && !requestItems.isEmpty()) {
+            if (attempt > 0) {
+                backoff.pause(attempt);
+            }
+            if (limiter != null) {
+                limiter.acquire();
+            }
+            long start = System.nanoTime();
+            BatchGetItemResult result = client.batchGetItem(new BatchGetItemRequest()
+                    .withRequestItems(requestItems)
+                    .withReturnConsumedCapacity(ReturnConsumedCapacity.INDEXES));
+            List<Map<String, AttributeValue>> found = result.getResponses().get(tableName);
+            if (found != null) {
+                items.addAll(found);
+            }
+            metrics.recordPage(System.nanoTime() - start, found != null ? found.size() : 0,
+                    result.getConsumedCapacity());
+            if (result.getConsumedCapacity() != null) {
+                for (ConsumedCapacity capacity : result.getConsumedCapacity()) {
+                    Pages.consume(limiter, capacity);
+                }
+            }
+            requestItems = result.getUnprocessedKeys();
+            attempt++;
+        }
+        return items;
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.querydsl.dynamodb.DynamoDBQueryMetrics;
+
+/**
+ * BatchWriter groups write requests into BatchWriteItem calls of {@value #MAX_ITEMS} items
+ * and keeps a bounded number of batches in flight concurrently.
+ *
+ * <p>Unprocessed items are retried with jittered backoff. The first failure is rethrown
+ * from {@link #add(WriteRequest)} or {@link #finish()}.</p>
+ *
+ * @author velo
+ */
+public class BatchWriter {
+
+    /**
+     * Maximum number of items in a single BatchWriteItem request
+     */
+    public static final int MAX_ITEMS = 25;
+
+    private final AmazonDynamoDB client;
+
+    private final String tableName;
+
+    private final ExecutorService executor;
+
+    private final int concurrency;
+
+    private final Semaphore inFlight;
+
+    private final Backoff backoff;
+
+    private final DynamoDBQueryMetrics metrics;
+
+    private final AtomicLong written = new AtomicLong();
+
+    private volatile RuntimeException failure;
+
+    private List<WriteRequest> batch = new ArrayList<WriteRequest>(MAX_ITEMS);
+
+    /**
+     * Create a new BatchWriter
+     *
+     * @param client client
+     * @param tableName table name
+     * @param executor executor for the batches
+     * @param concurrency maximum number of batches in flight
+     * @param backoff backoff for unprocessed items
+     * @param metrics metrics to record the batches into
+     */
+    public BatchWriter(AmazonDynamoDB client, String tableName, ExecutorService executor, int concurrency,
+            Backoff backoff, DynamoDBQueryMetrics metrics) {
+        this.client = client;
+        this.tableName = tableName;
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.inFlight = new Semaphore(concurrency);
+        this.backoff = backoff;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Add a write, sending the current batch once it is full
+     *
+     * @param request put or delete request
+     */
+    public void add(WriteRequest request) {
+        checkFailure();
+        batch.add(request);
+        if (batch.size() == MAX_ITEMS) {
+            flush();
+        }
+    }
+
+    /**
+     * Send the remaining writes and wait for all batches to complete
+     *
+     * @return number of items written
+     */
+    public long finish() {
+        try {
+            if (!batch.isEmpty()) {
+                flush();
+            }
+            acquire(concurrency);
+            inFlight.release(concurrency);
+            checkFailure();
+            return written.get();
+        } finally {
+            metrics.complete();
+        }
+    }
+
+    private void flush() {
+        final List<WriteRequest> requests = batch;
+        batch = new ArrayList<WriteRequest>(MAX_ITEMS);
+        acquire(1);
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (failure == null) {
+                            write(requests);
+                        }
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    } finally {
+                        inFlight.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void write(List<WriteRequest> requests) {
+        Map<String, List<WriteRequest>> requestItems = Collections.singletonMap(tableName, requests);
+        int attempt = 0;
+        while (requestItems != null && !requestItems.isEmpty()) {
+            if (attempt > 0) {
+                backoff.pause(attempt);
+            }
+            int size = requestItems.get(tableName).size();
+            long start = System.nanoTime();
+            BatchWriteItemResult result = client.batchWriteItem(new BatchWriteItemRequest()
+                    .withRequestItems(requestItems)
+                    .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL));
+            requestItems = result.getUnprocessedItems();
+            List<WriteRequest> unprocessed = requestItems != null ? requestItems.get(tableName) : null;
+            int processed = size - (unprocessed != null ? unprocessed.size() : 0);
+            written.addAndGet(processed);
+            metrics.recordPage(System.nanoTime() - start, processed, result.getConsumedCapacity());
+            attempt = processed > 0 ? 1 : attempt + 1;
+        }
+    }
+
+    private void acquire(int permits) {
+        try {
+            inFlight.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while writing batches", e);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * DynamoDBExecutors holds the executor used for concurrent DynamoDB requests when none is given explicitly
+ *
+ * @author velo
+ */
+public final class DynamoDBExecutors {
+
+    private static final ExecutorService DEFAULT = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("querydsl-dynamodb-%d").build());
+
+    private DynamoDBExecutors() { }
+
+    /**
+     * Get the shared executor, which uses daemon threads
+     *
+     * @return executor
+     */
+    public static ExecutorService defaultExecutor() {
+        return DEFAULT;
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * DynamodbExpression holds a DynamoDB expression string together with
+ * its expression attribute names and values
+ *
+ * @author velo
+ */
+public class DynamodbExpression {
+
+    private final Map<String, String> names = new LinkedHashMap<String, String>();
+
+    private final Map<String, String> placeholders = new HashMap<String, String>();
+
+    private final Map<String, AttributeValue> values = new LinkedHashMap<String, AttributeValue>();
+
+    @Nullable
+    private String expression;
+
+    /**
+     * Register an attribute name
+     *
+     * @param name attribute name
+     * @return name placeholder to be used in the expression
+     */
+    public String addName(String name) {
+        String placeholder = placeholders.get(name);
+        if (placeholder == null) {
+            placeholder = "#n" + placeholders.size();
+            placeholders.put(name, placeholder);
+            names.put(placeholder, name);
+        }
+        return placeholder;
+    }
+
+    /**
+     * Register an attribute value
+     *
+     * @param value attribute value
+     * @return value placeholder to be used in the expression
+     */
+    public String addValue(AttributeValue value) {
+        String placeholder = ":v" + values.size();
+        values.put(placeholder, value);
+        return placeholder;
+    }
+
+    @Nullable
+    public String getExpression() {
+        return expression;
+    }
+
+    public void setExpression(@Nullable String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * Get the expression attribute names
+     *
+     * @return names by placeholder or null, if none are used
+     */
+    @Nullable
+    public Map<String, String> getNames() {
+        return names.isEmpty() ? null : names;
+    }
+
+    /**
+     * Get the expression attribute values
+     *
+     * @return values by placeholder or null, if none are used
+     */
+    @Nullable
+    public Map<String, AttributeValue> getValues() {
+        return values.isEmpty() ? null : values;
+    }
+
+    @Override
+    public String toString() {
+        return expression + " " + names + " " + values;
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.querydsl.core.types.*;
+
+/**
+ * DynamodbExpressionSerializer serializes Querydsl expressions into DynamoDB condition expressions
+ * with expression attribute names and values.
+ *
+ * <p>In contrast to {@link DynamodbSerializer} it supports disjunctions, negations, {@code size()}
+ * and nested map and list attributes, so the full predicate can be evaluated server side.</p>
+ *
+ * @author velo
+ */
+public class DynamodbExpressionSerializer implements Visitor<String, DynamodbExpression> {
+
+    public static final DynamodbExpressionSerializer DEFAULT = new DynamodbExpressionSerializer();
+
+    private final DynamodbSerializer values = DynamodbSerializer.DEFAULT;
+
+    @Override
+    public String visit(Constant<?> expr, DynamodbExpression context) {
+        return context.addValue(values.toAttributeValue(expr.getConstant()));
+    }
+
+    @Override
+    public String visit(FactoryExpression<?> expr, DynamodbExpression context) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String visit(Operation<?> expr, DynamodbExpression context) {
+        Operator op = expr.getOperator();
+        List<Expression<?>> args = expr.getArgs();
+        if (op == Ops.AND) {
+            return "(" + args.get(0).accept(this, context) + " AND " + args.get(1).accept(this, context) + ")";
+        } else if (op == Ops.OR) {
+            return "(" + args.get(0).accept(this, context) + " OR " + args.get(1).accept(this, context) + ")";
+        } else if (op == Ops.NOT) {
+            return "(NOT " + args.get(0).accept(this, context) + ")";
+        } else if (op == Ops.EQ) {
+            return compare("=", args, context);
+        } else if (op == Ops.NE) {
+            return compare("<>", args, context);
+        } else if (op == Ops.LT) {
+            return compare("<", args, context);
+        } else if (op == Ops.LOE) {
+            return compare("<=", args, context);
+        } else if (op == Ops.GT) {
+            return compare(">", args, context);
+        } else if (op == Ops.GOE) {
+            return compare(">=", args, context);
+        } else if (op == Ops.BETWEEN) {
+            return args.get(0).accept(this, context) + " BETWEEN " + operand(args.get(0), args.get(1), context)
+                    + " AND " + operand(args.get(0), args.get(2), context);
+        } else if (op == Ops.IN) {
+            return in(args, context);
+        } else if (op == Ops.NOT_IN) {
+            return "(NOT " + in(args, context) + ")";
+        } else if (op == Ops.STARTS_WITH) {
+            return "begins_with(" + args.get(0).accept(this, context) + ", " + args.get(1).accept(this, context) + ")";
+        } else if (op == Ops.STRING_CONTAINS) {
+            return "contains(" + args.get(0).accept(this, context) + ", " + args.get(1).accept(this, context) + ")";
+        } else if (op == Ops.IS_NULL) {
+            return "attribute_not_exists(" + args.get(0).accept(this, context) + ")";
+        } else if (op == Ops.IS_NOT_NULL) {
+            return "attribute_exists(" + args.get(0).accept(this, context) + ")";
+        } else if (op == Ops.STRING_LENGTH || op == Ops.COL_SIZE || op == Ops.MAP_SIZE) {
+            return "size(" + args.get(0).accept(this, context) + ")";
+        } else if (op == Ops.COL_IS_EMPTY || op == Ops.MAP_IS_EMPTY || op == Ops.STRING_IS_EMPTY) {
+            return "size(" + args.get(0).accept(this, context) + ") = "
+                    + context.addValue(new AttributeValue().withN("0"));
+        } else {
+            throw new UnsupportedOperationException(String.valueOf(op));
+        }
+    }
+
+    private String compare(String operator, List<Expression<?>> args, DynamodbExpression context) {
+        return args.get(0).accept(this, context) + " " + operator + " " + operand(args.get(0), args.get(1), context);
+    }
+
+    private String operand(Expression<?> subject, Expression<?> arg, DynamodbExpression context) {
+        if (subject instanceof Path && arg instanceof Constant) {
+            return context.addValue(values.toAttributeValue((Path<?>) subject, ((Constant<?>) arg).getConstant()));
+        }
+        return arg.accept(this, context);
+    }
+
+    private String in(List<Expression<?>> args, DynamodbExpression context) {
+        Expression<?> right = args.get(1);
+        if (right instanceof Path) {
+            // collection.contains(element)
+            return "contains(" + right.accept(this, context) + ", " + args.get(0).accept(this, context) + ")";
+        }
+        Object constant = ((Constant<?>) right).getConstant();
+        if (!(constant instanceof Collection)) {
+            return compare("=", args, context);
+        }
+        Collection<?> elements = (Collection<?>) constant;
+        if (elements.isEmpty()) {
+            throw new UnsupportedOperationException("Empty IN");
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append(args.get(0).accept(this, context)).append(" IN (");
+        boolean first = true;
+        for (Object element : elements) {
+            if (!first) {
+                builder.append(", ");
+            }
+            builder.append(context.addValue(args.get(0) instanceof Path
+                    ? values.toAttributeValue((Path<?>) args.get(0), element) : values.toAttributeValue(element)));
+            first = false;
+        }
+        return builder.append(")").toString();
+    }
+
+    @Override
+    public String visit(ParamExpression<?> expr, DynamodbExpression context) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String visit(Path<?> expr, DynamodbExpression context) {
+        PathMetadata metadata = expr.getMetadata();
+        Path<?> parent = metadata.getParent();
+        if (parent == null) {
+            throw new UnsupportedOperationException("Root path: " + expr);
+        }
+        PathType pathType = metadata.getPathType();
+        if (pathType == PathType.DELEGATE) {
+            return parent.accept(this, context);
+        }
+        if (parent.getMetadata().isRoot()) {
+            if (pathType != PathType.PROPERTY) {
+                throw new UnsupportedOperationException(String.valueOf(pathType));
+            }
+            return context.addName(getAttributeName(expr));
+        }
+
+        String parentPath = parent.accept(this, context);
+        if (pathType == PathType.PROPERTY) {
+            return parentPath + "." + context.addName(getAttributeName(expr));
+        } else if (pathType == PathType.MAPVALUE_CONSTANT) {
+            return parentPath + "." + context.addName(String.valueOf(metadata.getElement()));
+        } else if (pathType == PathType.LISTVALUE_CONSTANT || pathType == PathType.ARRAYVALUE_CONSTANT) {
+            return parentPath + "[" + metadata.getElement() + "]";
+        } else {
+            throw new UnsupportedOperationException(String.valueOf(pathType));
+        }
+    }
+
+    private static String getAttributeName(Path<?> property) {
+        PathMetadata metadata = property.getMetadata();
+        return EntityMetadata.get(metadata.getParent().getType()).getAttributeName(metadata.getName());
+    }
+
+    @Override
+    public String visit(SubQueryExpression<?> expr, DynamodbExpression context) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String visit(TemplateExpression<?> expr, DynamodbExpression context) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Serialize the given predicate into a condition expression
+     *
+     * @param predicate predicate
+     * @return expression
+     */
+    public DynamodbExpression handle(Predicate predicate) {
+        DynamodbExpression expression = new DynamodbExpression();
+        expression.setExpression(handle(predicate, expression));
+        return expression;
+    }
+
+    /**
+     * Serialize the given predicate into a condition expression sharing the names and values of
+     * the given context
+     *
+     * @param predicate predicate
+     * @param context expression to register the attribute names and values into
+     * @return condition expression
+     */
+    public String handle(Predicate predicate, DynamodbExpression context) {
+        return predicate.accept(this, context);
+    }
+
+}
@@ -1,17 +1,22 @@
 package com.querydsl.dynamodb.impl;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.AnnotatedElement;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMarshaller;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.util.DateUtils;
 import com.querydsl.core.types.*;
 import com.querydsl.core.types.dsl.BooleanOperation;
+import com.querydsl.core.util.MathUtils;
 
 /**
  * JPQLSerializer serializes Querydsl expressions into DynamoDB v2 model.
@@ -24,13 +29,85 @@ public class DynamodbSerializer implements Visitor<Object, DynamoDBScanExpressio
 
     @Override
     public Object visit(Constant<?> expr, DynamoDBScanExpression scanExpression) {
-        Object value = expr.getConstant();
+        return toAttributeValue(expr.getConstant());
+    }
+
+    /**
+     * Convert the given constant into the attribute value of the given path, using the marshaller
+     * of the property, if it has one
+     *
+     * @param path path the constant is compared to
+     * @param value constant
+     * @return attribute value
+     */
+    public AttributeValue toAttributeValue(Path<?> path, Object value) {
+        DynamoDBMarshaller<Object> marshaller = getMarshaller(path);
+        if (marshaller != null && !(value instanceof Collection)) {
+            return new AttributeValue().withS(marshaller.marshall(value));
+        }
+        return toAttributeValue(value);
+    }
+
+    /**
+     * Convert the given attribute value into a value of the type of the given path, using the marshaller
+     * of the property, if it has one
+     *
+     * @param path path the attribute value belongs to
+     * @param value attribute value
+     * @return value
+     */
+    @SuppressWarnings("unchecked")
+    public Object fromAttributeValue(Path<?> path, AttributeValue value) {
+        DynamoDBMarshaller<Object> marshaller = getMarshaller(path);
+        Class<?> type = path.getType();
+        if (marshaller != null) {
+            return marshaller.unmarshall((Class<Object>) type, value.getS());
+        }
+        if (String.class.equals(type)) {
+            return value.getS();
+        }
+        if (Boolean.class.equals(type)) {
+            // same representation as DynamoDBMapper
+            return "1".equals(value.getN());
+        }
+        if (Number.class.isAssignableFrom(type)) {
+            return MathUtils.cast(new BigDecimal(value.getN()), (Class<? extends Number>) type);
+        }
+        if (Date.class.equals(type)) {
+            return DateUtils.parseISO8601Date(value.getS());
+        }
+        throw new UnsupportedOperationException("Unexpected type: " + type);
+    }
+
+    @Nullable
+    private static DynamoDBMarshaller<Object> getMarshaller(Path<?> path) {
+        PathMetadata metadata = path.getMetadata();
+        if (metadata.getPathType() != PathType.PROPERTY || metadata.getParent() == null) {
+            return null;
+        }
+        return EntityMetadata.get(metadata.getParent().getType()).getMarshaller(metadata.getName());
+    }
+
+    /**
+     * Convert the given constant into a DynamoDB attribute value
+     *
+     * @param value constant
+     * @return attribute value
+     */
+    public AttributeValue toAttributeValue(Object value) {
         if (value instanceof String) {
             return new AttributeValue().withS((String) value);
         }
         if (value instanceof Number) {
             return new AttributeValue().withN(String.valueOf(value));
         }
+        if (value instanceof Boolean) {
+            // same representation as DynamoDBMapper
+            return new AttributeValue().withN((Boolean) value ? "1" : "0");
+        }
+        if (value instanceof Date) {
+            return new AttributeValue().withS(DateUtils.formatISO8601Date((Date) value));
+        }
         if (value instanceof String[]) {
             return new AttributeValue().withSS((String[]) value);
         }
@@ -126,9 +203,17 @@ public class DynamodbSerializer implements Visitor<Object, DynamoDBScanExpressio
 
         List<AttributeValue> attributeValueList = new ArrayList<AttributeValue>();
 
+        Path<?> path = null;
+        for (Expression<?> expression : expressions) {
+            if (expression instanceof Path) {
+                path = (Path<?>) expression;
+            }
+        }
         String attributeName = null;
         for (Expression<?> expression : expressions) {
-            Object result = expression.accept(this, scanExpression);
+            Object result = path != null && expression instanceof Constant
+                    ? toAttributeValue(path, ((Constant<?>) expression).getConstant())
+                    : expression.accept(this, scanExpression);
             if (result instanceof String) {
                 if (attributeName != null) {
                     throw new RuntimeException("Already in use");
@@ -152,15 +237,11 @@ public class DynamodbSerializer implements Visitor<Object, DynamoDBScanExpressio
 
     @Override
     public Object visit(Path<?> expr, DynamoDBScanExpression scanExpression) {
-        AnnotatedElement element = expr.getAnnotatedElement();
-        Annotation[] annotations = element.getAnnotations();
-        for (Annotation annotation : annotations) {
-            if (annotation instanceof DynamoDBRangeKey) {
-                return expr.getMetadata().getElement();
-            }
+        PathMetadata metadata = expr.getMetadata();
+        if (metadata.getPathType() == PathType.PROPERTY && metadata.getParent() != null) {
+            return EntityMetadata.get(metadata.getParent().getType()).getAttributeName(metadata.getName());
         }
-
-        return expr.getMetadata().getElement();
+        return metadata.getElement();
     }
 
     @Override
@@ -0,0 +1,407 @@
+package com.querydsl.dynamodb.impl;
+
+import java.beans.Introspector;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.*;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.dynamodb.ShardedHashKey;
+import com.querydsl.dynamodb.TableDescriptor;
+
+/**
+ * EntityMetadata is the DynamoDB mapping of an entity or document class, resolved once from the
+ * mapper annotations of its getters and cached per class
+ *
+ * <p>It holds the attribute names of the properties, the key properties of the table and its secondary
+ * indexes and the marshallers of custom mapped properties. If the query type of an entity has a generated
+ * {@link TableDescriptor}, the metadata is taken from it instead.</p>
+ *
+ * @author velo
+ */
+public final class EntityMetadata {
+
+    private static final ConcurrentMap<Class<?>, EntityMetadata> CACHE
+            = new ConcurrentHashMap<Class<?>, EntityMetadata>();
+
+    // only generated query types with a descriptor, generic paths are shared by many entities
+    private static final ConcurrentMap<Class<?>, EntityMetadata> BY_PATH_TYPE
+            = new ConcurrentHashMap<Class<?>, EntityMetadata>();
+
+    private static final Set<Class<?>> WITHOUT_DESCRIPTOR
+            = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+    /**
+     * Key properties of the table or of a secondary index
+     */
+    public static final class Index {
+
+        @Nullable
+        private final String name;
+
+        @Nullable
+        private String hashKey;
+
+        @Nullable
+        private String rangeKey;
+
+        Index(@Nullable String name) {
+            this.name = name;
+        }
+
+        /**
+         * Get the index name
+         *
+         * @return index name or null for the table
+         */
+        @Nullable
+        public String getName() {
+            return name;
+        }
+
+        @Nullable
+        public String getHashKey() {
+            return hashKey;
+        }
+
+        @Nullable
+        public String getRangeKey() {
+            return rangeKey;
+        }
+
+    }
+
+    /**
+     * Get the metadata of the given class
+     *
+     * @param type entity or document class
+     * @return metadata
+     */
+    public static EntityMetadata get(Class<?> type) {
+        EntityMetadata metadata = CACHE.get(type);
+        if (metadata == null) {
+            metadata = new EntityMetadata(type);
+            EntityMetadata existing = CACHE.putIfAbsent(type, metadata);
+            if (existing != null) {
+                metadata = existing;
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Get the metadata of the entity of the given query type, using its generated descriptor if available
+     *
+     * @param entityPath query type instance
+     * @return metadata
+     */
+    public static EntityMetadata get(EntityPath<?> entityPath) {
+        Class<?> pathType = entityPath.getClass();
+        EntityMetadata metadata = BY_PATH_TYPE.get(pathType);
+        if (metadata != null) {
+            return metadata;
+        }
+        if (!WITHOUT_DESCRIPTOR.contains(pathType)) {
+            TableDescriptor<?> descriptor = getDescriptor(pathType);
+            if (descriptor != null) {
+                metadata = new EntityMetadata(descriptor);
+                // replaces metadata resolved from the annotations
+                CACHE.put(entityPath.getType(), metadata);
+                BY_PATH_TYPE.put(pathType, metadata);
+                return metadata;
+            }
+            WITHOUT_DESCRIPTOR.add(pathType);
+        }
+        return get(entityPath.getType());
+    }
+
+    @Nullable
+    private static TableDescriptor<?> getDescriptor(Class<?> pathType) {
+        try {
+            Object descriptor = pathType.getField(TableDescriptor.FIELD_NAME).get(null);
+            return descriptor instanceof TableDescriptor ? (TableDescriptor<?>) descriptor : null;
+        } catch (NoSuchFieldException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private final Class<?> type;
+
+    @Nullable
+    private final TableDescriptor<?> descriptor;
+
+    @Nullable
+    private final String tableName;
+
+    private final Map<String, String> attributeNames = new HashMap<String, String>();
+
+    private final Map<String, DynamoDBMarshaller<Object>> marshallers
+            = new HashMap<String, DynamoDBMarshaller<Object>>();
+
+    private final Map<String, ShardedHashKey> shardedKeys = new HashMap<String, ShardedHashKey>();
+
+    private final Index table = new Index(null);
+
+    private final List<Index> indexes;
+
+    @SuppressWarnings("unchecked")
+    private EntityMetadata(TableDescriptor<?> descriptor) {
+        this.type = descriptor.getType();
+        this.descriptor = descriptor;
+        this.tableName = descriptor.getTableName();
+        attributeNames.putAll(descriptor.getAttributeNames());
+        for (Map.Entry<String, DynamoDBMarshaller<?>> entry : descriptor.getMarshallers().entrySet()) {
+            marshallers.put(entry.getKey(), (DynamoDBMarshaller<Object>) entry.getValue());
+        }
+        shardedKeys.putAll(descriptor.getShardedKeys());
+        table.hashKey = descriptor.getHashKey();
+        table.rangeKey = descriptor.getRangeKey();
+        List<Index> indexes = new ArrayList<Index>();
+        indexes.add(table);
+        for (String[] keys : descriptor.getIndexes()) {
+            Index index = new Index(keys[0]);
+            index.hashKey = keys[1] != null ? keys[1] : table.hashKey;
+            index.rangeKey = keys[2];
+            indexes.add(index);
+        }
+        this.indexes = Collections.unmodifiableList(indexes);
+    }
+
+    private EntityMetadata(Class<?> type) {
+        this.type = type;
+        this.descriptor = null;
+        DynamoDBTable tableAnnotation = type.getAnnotation(DynamoDBTable.class);
+        tableName = tableAnnotation != null ? tableAnnotation.tableName() : null;
+
+        Map<String, Index> secondaryIndexes = new LinkedHashMap<String, Index>();
+        Set<String> localIndexes = new HashSet<String>();
+        int rangeKeys = 0;
+        for (Method method : type.getMethods()) {
+            if (!isGetter(method) || method.isAnnotationPresent(DynamoDBIgnore.class)) {
+                continue;
+            }
+            String property = getPropertyName(method);
+            String attributeName = getAttributeName(method);
+            if (attributeName != null && !attributeName.isEmpty()) {
+                attributeNames.put(property, attributeName);
+            }
+            DynamoDBMarshalling marshalling = method.getAnnotation(DynamoDBMarshalling.class);
+            if (marshalling != null) {
+                marshallers.put(property, createMarshaller(marshalling.marshallerClass()));
+            }
+            ShardedHashKey shardedKey = method.getAnnotation(ShardedHashKey.class);
+            if (shardedKey != null) {
+                shardedKeys.put(property, shardedKey);
+            }
+
+            if (method.isAnnotationPresent(DynamoDBHashKey.class)) {
+                table.hashKey = property;
+            }
+            if (method.isAnnotationPresent(DynamoDBRangeKey.class)) {
+                table.rangeKey = property;
+                rangeKeys++;
+            }
+            DynamoDBIndexHashKey indexHashKey = method.getAnnotation(DynamoDBIndexHashKey.class);
+            if (indexHashKey != null) {
+                for (String name : names(indexHashKey.globalSecondaryIndexName(),
+                        indexHashKey.globalSecondaryIndexNames())) {
+                    index(secondaryIndexes, name).hashKey = property;
+                }
+            }
+            DynamoDBIndexRangeKey indexRangeKey = method.getAnnotation(DynamoDBIndexRangeKey.class);
+            if (indexRangeKey != null) {
+                for (String name : names(indexRangeKey.globalSecondaryIndexName(),
+                        indexRangeKey.globalSecondaryIndexNames())) {
+                    index(secondaryIndexes, name).rangeKey = property;
+                }
+                for (String name : names(indexRangeKey.localSecondaryIndexName(),
+                        indexRangeKey.localSecondaryIndexNames())) {
+                    index(secondaryIndexes, name).rangeKey = property;
+                    localIndexes.add(name);
+                }
+            }
+        }
+        if (rangeKeys > 1) {
+            // ambiguous key schema
+            table.rangeKey = null;
+        }
+        for (String name : localIndexes) {
+            secondaryIndexes.get(name).hashKey = table.hashKey;
+        }
+
+        List<Index> indexes = new ArrayList<Index>(secondaryIndexes.size() + 1);
+        indexes.add(table);
+        for (Index index : secondaryIndexes.values()) {
+            if (index.hashKey != null) {
+                indexes.add(index);
+            }
+        }
+        this.indexes = Collections.unmodifiableList(indexes);
+    }
+
+    private static boolean isGetter(Method method) {
+        return method.getParameterTypes().length == 0 && method.getDeclaringClass() != Object.class
+                && (method.getName().startsWith("get") || method.getName().startsWith("is"));
+    }
+
+    @Nullable
+    private static String getAttributeName(Method method) {
+        DynamoDBHashKey hashKey = method.getAnnotation(DynamoDBHashKey.class);
+        if (hashKey != null) {
+            return hashKey.attributeName();
+        }
+        DynamoDBRangeKey rangeKey = method.getAnnotation(DynamoDBRangeKey.class);
+        if (rangeKey != null) {
+            return rangeKey.attributeName();
+        }
+        DynamoDBAttribute attribute = method.getAnnotation(DynamoDBAttribute.class);
+        if (attribute != null) {
+            return attribute.attributeName();
+        }
+        DynamoDBVersionAttribute version = method.getAnnotation(DynamoDBVersionAttribute.class);
+        if (version != null) {
+            return version.attributeName();
+        }
+        DynamoDBIndexHashKey indexHashKey = method.getAnnotation(DynamoDBIndexHashKey.class);
+        if (indexHashKey != null) {
+            return indexHashKey.attributeName();
+        }
+        DynamoDBIndexRangeKey indexRangeKey = method.getAnnotation(DynamoDBIndexRangeKey.class);
+        if (indexRangeKey != null) {
+            return indexRangeKey.attributeName();
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DynamoDBMarshaller<Object> createMarshaller(Class<?> marshallerClass) {
+        try {
+            return (DynamoDBMarshaller<Object>) marshallerClass.newInstance();
+        } catch (InstantiationException e) {
+            throw new IllegalArgumentException("Failed to create " + marshallerClass.getName(), e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Failed to create " + marshallerClass.getName(), e);
+        }
+    }
+
+    private static Index index(Map<String, Index> indexes, String name) {
+        Index index = indexes.get(name);
+        if (index == null) {
+            index = new Index(name);
+            indexes.put(name, index);
+        }
+        return index;
+    }
+
+    private static List<String> names(String name, String[] names) {
+        List<String> result = new ArrayList<String>(Arrays.asList(names));
+        if (!name.isEmpty()) {
+            result.add(name);
+        }
+        return result;
+    }
+
+    private static String getPropertyName(Method getter) {
+        String name = getter.getName();
+        if (name.startsWith("get")) {
+            name = name.substring(3);
+        } else if (name.startsWith("is")) {
+            name = name.substring(2);
+        }
+        return Introspector.decapitalize(name);
+    }
+
+    /**
+     * Get the table name
+     *
+     * @return table name
+     * @throws IllegalArgumentException if the class is not annotated with {@link DynamoDBTable}
+     */
+    public String getTableName() {
+        if (tableName == null) {
+            throw new IllegalArgumentException(type.getName() + " is not annotated with @DynamoDBTable");
+        }
+        return tableName;
+    }
+
+    /**
+     * Get the attribute name of the given property
+     *
+     * @param property property name
+     * @return attribute name
+     */
+    public String getAttributeName(String property) {
+        String attributeName = attributeNames.get(property);
+        return attributeName != null ? attributeName : property;
+    }
+
+    /**
+     * Get the marshaller of the given property
+     *
+     * @param property property name
+     * @return marshaller or null, if the property is mapped by the default conversions
+     */
+    @Nullable
+    public DynamoDBMarshaller<Object> getMarshaller(String property) {
+        return marshallers.get(property);
+    }
+
+    /**
+     * Get the write sharding of the given hash key property
+     *
+     * @param property property name
+     * @return sharding or null, if the property is not sharded
+     */
+    @Nullable
+    public ShardedHashKey getSharding(String property) {
+        return shardedKeys.get(property);
+    }
+
+    /**
+     * Get the hash key property of the table
+     *
+     * @return property or null
+     */
+    @Nullable
+    public String getHashKey() {
+        return table.hashKey;
+    }
+
+    /**
+     * Get the range key property of the table
+     *
+     * @return property or null, if the table has no or an ambiguous range key
+     */
+    @Nullable
+    public String getRangeKey() {
+        return table.rangeKey;
+    }
+
+    /**
+     * Map the given item to an entity without reflection
+     *
+     * @param item item
+     * @return entity or null, if no generated descriptor is available for the entity
+     */
+    @Nullable
+    public Object unmarshall(Map<String, AttributeValue> item) {
+        return descriptor != null ? descriptor.unmarshall(item) : null;
+    }
+
+    /**
+     * Get the table and its secondary indexes with a hash key, the table first
+     *
+     * @return indexes
+     */
+    public List<Index> getIndexes() {
+        return indexes;
+    }
+
+}
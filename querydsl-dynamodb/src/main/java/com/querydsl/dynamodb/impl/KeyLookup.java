@@ -0,0 +1,168 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.*;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.querydsl.core.types.*;
+import com.querydsl.dynamodb.ShardedHashKey;
+
+/**
+ * KeyLookup recognises predicates which pin the full primary key of an entity
+ * and turns them into the keys to be read with BatchGetItem
+ *
+ * <p>The value of a {@link ShardedHashKey} is expanded into the keys of all its shards.</p>
+ *
+ * @author velo
+ */
+public final class KeyLookup {
+
+    private KeyLookup() { }
+
+    /**
+     * Get the primary keys selected by the given predicate
+     *
+     * @param entityType mapped entity type
+     * @param predicate where condition
+     * @param serializer serializer for the key values
+     * @return distinct keys or null, if the predicate is not a plain key lookup
+     */
+    @Nullable
+    public static List<Map<String, AttributeValue>> getKeys(Class<?> entityType, Predicate predicate,
+            DynamodbSerializer serializer) {
+        EntityMetadata metadata = EntityMetadata.get(entityType);
+        String hashProperty = metadata.getHashKey();
+        String rangeProperty = metadata.getRangeKey();
+        if (hashProperty == null || metadata.getMarshaller(hashProperty) != null
+                || (rangeProperty != null && metadata.getMarshaller(rangeProperty) != null)) {
+            return null;
+        }
+        String[] hashKey = {hashProperty, metadata.getAttributeName(hashProperty)};
+        String[] rangeKey = rangeProperty != null
+                ? new String[]{rangeProperty, metadata.getAttributeName(rangeProperty)} : null;
+
+        Map<String, List<?>> values = new HashMap<String, List<?>>();
+        List<Expression<?>> conditions = new ArrayList<Expression<?>>();
+        flatten(predicate, conditions);
+        for (Expression<?> condition : conditions) {
+            if (!(condition instanceof Operation)) {
+                return null;
+            }
+            Operation<?> operation = (Operation<?>) condition;
+            Operator op = operation.getOperator();
+            if ((op != Ops.EQ && op != Ops.IN)
+                    || !(operation.getArg(0) instanceof Path)
+                    || !(operation.getArg(1) instanceof Constant)) {
+                return null;
+            }
+            Path<?> path = (Path<?>) operation.getArg(0);
+            Path<?> parent = path.getMetadata().getParent();
+            if (parent == null || !parent.getMetadata().isRoot()) {
+                return null;
+            }
+            String property = path.getMetadata().getName();
+            if (!property.equals(hashKey[0]) && (rangeKey == null || !property.equals(rangeKey[0]))) {
+                return null;
+            }
+            if (values.containsKey(property)) {
+                return null;
+            }
+            Object constant = ((Constant<?>) operation.getArg(1)).getConstant();
+            if (op == Ops.IN) {
+                if (!(constant instanceof Collection)) {
+                    return null;
+                }
+                values.put(property, new ArrayList<Object>((Collection<?>) constant));
+            } else {
+                values.put(property, Collections.singletonList(constant));
+            }
+        }
+        if (!values.containsKey(hashKey[0]) || (rangeKey != null && !values.containsKey(rangeKey[0]))) {
+            return null;
+        }
+
+        List<?> hashValues = values.get(hashKey[0]);
+        ShardedHashKey sharding = metadata.getSharding(hashProperty);
+        if (sharding != null) {
+            List<Object> shardValues = new ArrayList<Object>(hashValues.size() * sharding.shards());
+            for (Object hashValue : hashValues) {
+                shardValues.addAll(ShardedQuery.getShardValues(hashValue, sharding.shards(), sharding.separator()));
+            }
+            hashValues = shardValues;
+        }
+
+        Set<Map<String, AttributeValue>> keys = new LinkedHashSet<Map<String, AttributeValue>>();
+        for (Object hashValue : hashValues) {
+            if (rangeKey == null) {
+                keys.add(Collections.singletonMap(hashKey[1], serializer.toAttributeValue(hashValue)));
+                continue;
+            }
+            for (Object rangeValue : values.get(rangeKey[0])) {
+                Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+                key.put(hashKey[1], serializer.toAttributeValue(hashValue));
+                key.put(rangeKey[1], serializer.toAttributeValue(rangeValue));
+                keys.add(key);
+            }
+        }
+        return new ArrayList<Map<String, AttributeValue>>(keys);
+    }
+
+    /**
+     * Replace the equality conditions on the logical value of a {@link ShardedHashKey} with conditions
+     * on the stored values of all its shards, for filters which are evaluated against the items
+     *
+     * @param entityType mapped entity type
+     * @param predicate where condition
+     * @return expanded predicate, or the given one if the hash key is not sharded
+     */
+    public static Predicate expandShards(Class<?> entityType, Predicate predicate) {
+        EntityMetadata metadata = EntityMetadata.get(entityType);
+        String hashProperty = metadata.getHashKey();
+        ShardedHashKey sharding = hashProperty != null ? metadata.getSharding(hashProperty) : null;
+        return sharding != null ? (Predicate) expandShards(predicate, hashProperty, sharding) : predicate;
+    }
+
+    private static Expression<?> expandShards(Expression<?> expr, String hashProperty, ShardedHashKey sharding) {
+        if (!(expr instanceof Operation)) {
+            return expr;
+        }
+        Operation<?> operation = (Operation<?>) expr;
+        Operator op = operation.getOperator();
+        if (op == Ops.AND || op == Ops.OR || op == Ops.NOT) {
+            Expression<?>[] args = new Expression<?>[operation.getArgs().size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = expandShards(operation.getArg(i), hashProperty, sharding);
+            }
+            return ExpressionUtils.predicate(op, args);
+        }
+        if ((op != Ops.EQ && op != Ops.IN) || !(operation.getArg(0) instanceof Path)
+                || !(operation.getArg(1) instanceof Constant)) {
+            return expr;
+        }
+        Path<?> path = (Path<?>) operation.getArg(0);
+        Path<?> parent = path.getMetadata().getParent();
+        if (parent == null || !parent.getMetadata().isRoot() || !path.getMetadata().getName().equals(hashProperty)) {
+            return expr;
+        }
+        Object constant = ((Constant<?>) operation.getArg(1)).getConstant();
+        Collection<?> values = op == Ops.IN && constant instanceof Collection
+                ? (Collection<?>) constant : Collections.singletonList(constant);
+        List<String> shardValues = new ArrayList<String>(values.size() * sharding.shards());
+        for (Object value : values) {
+            shardValues.addAll(ShardedQuery.getShardValues(value, sharding.shards(), sharding.separator()));
+        }
+        return ExpressionUtils.predicate(Ops.IN, path, ConstantImpl.create(shardValues));
+    }
+
+    static void flatten(Expression<?> expr, List<Expression<?>> conditions) {
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.AND) {
+            for (Expression<?> arg : ((Operation<?>) expr).getArgs()) {
+                flatten(arg, conditions);
+            }
+        } else {
+            conditions.add(expr);
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.querydsl.dynamodb.impl;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.io.BaseEncoding;
+
+/**
+ * PageCursor encodes the position of a paged read into an URL safe string
+ *
+ * <p>The position is a list with the exclusive start key of each segment, where null stands for
+ * a segment which hasn't been read yet and an empty map for a finished segment. Only the scalar
+ * attribute types of primary keys are encoded.</p>
+ *
+ * @author velo
+ */
+public final class PageCursor {
+
+    private static final int VERSION = 1;
+
+    private static final int NOT_STARTED = 0, STARTED = 1, FINISHED = 2;
+
+    private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+
+    private PageCursor() { }
+
+    /**
+     * Get the start position for the given number of segments
+     *
+     * @param totalSegments number of segments
+     * @return start keys
+     */
+    public static List<Map<String, AttributeValue>> start(int totalSegments) {
+        return new ArrayList<Map<String, AttributeValue>>(
+                Collections.<Map<String, AttributeValue>>nCopies(totalSegments, null));
+    }
+
+    /**
+     * Get whether the given start key marks a finished segment
+     *
+     * @param startKey start key
+     * @return true, if finished
+     */
+    public static boolean isFinished(@Nullable Map<String, AttributeValue> startKey) {
+        return startKey != null && startKey.isEmpty();
+    }
+
+    /**
+     * Get the start key to continue after a page with the given last evaluated key
+     *
+     * @param lastEvaluatedKey last evaluated key
+     * @return start key or the finished marker
+     */
+    public static Map<String, AttributeValue> next(@Nullable Map<String, AttributeValue> lastEvaluatedKey) {
+        return lastEvaluatedKey != null ? lastEvaluatedKey : Collections.<String, AttributeValue>emptyMap();
+    }
+
+    /**
+     * Encode the given position
+     *
+     * @param startKeys start keys of the segments
+     * @return cursor or null, if all segments are finished
+     */
+    @Nullable
+    public static String encode(List<Map<String, AttributeValue>> startKeys) {
+        boolean finished = true;
+        for (Map<String, AttributeValue> startKey : startKeys) {
+            finished &= isFinished(startKey);
+        }
+        if (finished) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeShort(startKeys.size());
+            for (Map<String, AttributeValue> startKey : startKeys) {
+                if (startKey == null) {
+                    out.writeByte(NOT_STARTED);
+                } else if (startKey.isEmpty()) {
+                    out.writeByte(FINISHED);
+                } else {
+                    out.writeByte(STARTED);
+                    out.writeByte(startKey.size());
+                    for (Map.Entry<String, AttributeValue> entry : startKey.entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        writeValue(out, entry.getValue());
+                    }
+                }
+            }
+            out.flush();
+            return ENCODING.encode(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decode the given cursor
+     *
+     * @param cursor cursor
+     * @param totalSegments expected number of segments
+     * @return start keys of the segments
+     * @throws IllegalArgumentException if the cursor is invalid or has been created for a different
+     *                                  number of segments
+     */
+    public static List<Map<String, AttributeValue>> decode(String cursor, int totalSegments) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(ENCODING.decode(cursor)));
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unsupported cursor: " + cursor);
+            }
+            int segments = in.readUnsignedShort();
+            if (segments != totalSegments) {
+                throw new IllegalArgumentException("Cursor for " + segments + " segments, expected "
+                        + totalSegments);
+            }
+            List<Map<String, AttributeValue>> startKeys = new ArrayList<Map<String, AttributeValue>>(segments);
+            for (int i = 0; i < segments; i++) {
+                int state = in.readByte();
+                if (state == NOT_STARTED) {
+                    startKeys.add(null);
+                } else if (state == FINISHED) {
+                    startKeys.add(Collections.<String, AttributeValue>emptyMap());
+                } else if (state == STARTED) {
+                    int size = in.readUnsignedByte();
+                    Map<String, AttributeValue> startKey = new HashMap<String, AttributeValue>();
+                    for (int j = 0; j < size; j++) {
+                        startKey.put(in.readUTF(), readValue(in));
+                    }
+                    startKeys.add(startKey);
+                } else {
+                    throw new IllegalArgumentException("Invalid cursor: " + cursor);
+                }
+            }
+            return startKeys;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, AttributeValue value) throws IOException {
+        if (value.getS() != null) {
+            out.writeByte('S');
+            out.writeUTF(value.getS());
+        } else if (value.getN() != null) {
+            out.writeByte('N');
+            out.writeUTF(value.getN());
+        } else if (value.getB() != null) {
+            ByteBuffer buffer = value.getB().duplicate();
+            out.writeByte('B');
+            out.writeShort(buffer.remaining());
+            while (buffer.hasRemaining()) {
+                out.writeByte(buffer.get());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported key attribute: " + value);
+        }
+    }
+
+    private static AttributeValue readValue(DataInputStream in) throws IOException {
+        int type = in.readByte();
+        if (type == 'S') {
+            return new AttributeValue().withS(in.readUTF());
+        } else if (type == 'N') {
+            return new AttributeValue().withN(in.readUTF());
+        } else if (type == 'B') {
+            byte[] bytes = new byte[in.readUnsignedShort()];
+            in.readFully(bytes);
+            return new AttributeValue().withB(ByteBuffer.wrap(bytes));
+        } else {
+            throw new IOException("Unsupported type: " + type);
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.querydsl.dynamodb.DynamoDBQueryMetrics;
+import com.querydsl.dynamodb.ReadCapacityLimiter;
+
+/**
+ * Pages reads single result pages, pacing them with an optional {@link ReadCapacityLimiter}
+ * and recording their cost
+ *
+ * @author velo
+ */
+public final class Pages {
+
+    private Pages() { }
+
+    /**
+     * Read the next page of the given scan
+     *
+     * @param client client
+     * @param request scan request
+     * @param limiter limiter or null, if not rate limited
+     * @param metrics metrics to record the page into
+     * @return scan result
+     */
+    public static ScanResult scan(AmazonDynamoDB client, ScanRequest request, @Nullable ReadCapacityLimiter limiter,
+            DynamoDBQueryMetrics metrics) {
+        if (limiter != null) {
+            limiter.acquire();
+        }
+        long start = System.nanoTime();
+        ScanResult result = client.scan(request);
+        metrics.recordPage(System.nanoTime() - start, result.getScannedCount(), result.getCount(),
+                result.getConsumedCapacity());
+        consume(limiter, result.getConsumedCapacity());
+        return result;
+    }
+
+    /**
+     * Read the next page of the given query
+     *
+     * @param client client
+     * @param request query request
+     * @param limiter limiter or null, if not rate limited
+     * @param metrics metrics to record the page into
+     * @return query result
+     */
+    public static QueryResult query(AmazonDynamoDB client, QueryRequest request, @Nullable ReadCapacityLimiter limiter,
+            DynamoDBQueryMetrics metrics) {
+        if (limiter != null) {
+            limiter.acquire();
+        }
+        long start = System.nanoTime();
+        QueryResult result = client.query(request);
+        metrics.recordPage(System.nanoTime() - start, result.getScannedCount(), result.getCount(),
+                result.getConsumedCapacity());
+        consume(limiter, result.getConsumedCapacity());
+        return result;
+    }
+
+    /**
+     * Get whether more pages follow the page with the given last evaluated key, which DynamoDB
+     * may return as null or as an empty map after the last page
+     *
+     * @param lastEvaluatedKey last evaluated key of a page
+     * @return true, if another page should be read
+     */
+    public static boolean hasMore(@Nullable Map<String, AttributeValue> lastEvaluatedKey) {
+        return lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty();
+    }
+
+    static void consume(@Nullable ReadCapacityLimiter limiter, @Nullable ConsumedCapacity capacity) {
+        if (limiter != null && capacity != null && capacity.getCapacityUnits() != null) {
+            limiter.consume(capacity.getCapacityUnits());
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.querydsl.dynamodb.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.querydsl.dynamodb.DynamoDBQueryMetrics;
+import com.querydsl.dynamodb.ReadCapacityLimiter;
+
+/**
+ * ParallelScan reads the segments of a scan concurrently and hands out their pages
+ * through a bounded buffer, so segments only read ahead while the pages are consumed
+ *
+ * <p>The segment readers wait for free space in the buffer only until the scan is closed,
+ * so a consumer which stops early doesn't leave them blocked.</p>
+ *
+ * @author velo
+ */
+public class ParallelScan implements Closeable {
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> pages;
+
+    private final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+    private int running;
+
+    private volatile boolean closed;
+
+    /**
+     * Start reading the segments
+     *
+     * @param client client
+     * @param request scan request to be split into segments
+     * @param totalSegments number of segments
+     * @param executor executor for the segment readers
+     * @param limiter limiter or null, if not rate limited
+     * @param metrics metrics to record the pages into
+     */
+    public ParallelScan(final AmazonDynamoDB client, ScanRequest request, int totalSegments, ExecutorService executor,
+            @Nullable final ReadCapacityLimiter limiter, final DynamoDBQueryMetrics metrics) {
+        this.pages = new ArrayBlockingQueue<Object>(totalSegments * 2);
+        this.running = totalSegments;
+        for (int i = 0; i < totalSegments; i++) {
+            final ScanRequest segment = request.clone().withSegment(i).withTotalSegments(totalSegments);
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        do {
+                            ScanResult result = Pages.scan(client, segment, limiter, metrics);
+                            segment.setExclusiveStartKey(result.getLastEvaluatedKey());
+                            if (!result.getItems().isEmpty() && !offer(result.getItems())) {
+                                return;
+                            }
+                        } while (Pages.hasMore(segment.getExclusiveStartKey()));
+                        offer(END);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (RuntimeException e) {
+                        try {
+                            offer(e);
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            }));
+        }
+    }
+
+    /**
+     * Wait for free space in the buffer until the page is added or the scan is closed
+     */
+    private boolean offer(Object page) throws InterruptedException {
+        while (!closed) {
+            if (pages.offer(page, 100, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Count the items of the given scan with concurrent segments
+     *
+     * @param client client
+     * @param request count request to be split into segments
+     * @param totalSegments number of segments
+     * @param executor executor for the segment readers
+     * @param limiter limiter or null, if not rate limited
+     * @param metrics metrics to record the pages into
+     * @return total count
+     */
+    public static long count(final AmazonDynamoDB client, ScanRequest request, int totalSegments,
+            ExecutorService executor, @Nullable final ReadCapacityLimiter limiter, final DynamoDBQueryMetrics metrics) {
+        List<Callable<Long>> tasks = new ArrayList<Callable<Long>>(totalSegments);
+        for (int i = 0; i < totalSegments; i++) {
+            final ScanRequest segment = request.clone().withSegment(i).withTotalSegments(totalSegments);
+            tasks.add(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    long count = 0;
+                    do {
+                        ScanResult result = Pages.scan(client, segment, limiter, metrics);
+                        count += result.getCount();
+                        segment.setExclusiveStartKey(result.getLastEvaluatedKey());
+                    } while (Pages.hasMore(segment.getExclusiveStartKey()));
+                    return count;
+                }
+            });
+        }
+        long total = 0;
+        for (Long count : Tasks.invokeAll(executor, tasks, "counting segments")) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Get the next page of any segment, blocking until one is available
+     *
+     * @return items or null, if all segments have been read
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public List<Map<String, AttributeValue>> nextPage() {
+        while (running > 0) {
+            Object page;
+            try {
+                page = pages.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new AmazonClientException("Interrupted while reading segments", e);
+            }
+            if (page == END) {
+                running--;
+            } else if (page instanceof RuntimeException) {
+                cancel();
+                throw (RuntimeException) page;
+            } else {
+                return (List<Map<String, AttributeValue>>) page;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stop reading the remaining segments
+     */
+    public void cancel() {
+        closed = true;
+        running = 0;
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+        pages.clear();
+    }
+
+    @Override
+    public void close() {
+        cancel();
+    }
+
+}
@@ -0,0 +1,233 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.*;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableSet;
+import com.querydsl.core.types.*;
+
+/**
+ * QueryPlan selects the table or secondary index whose hash key is pinned by an equality condition,
+ * so that a predicate can be executed as a Query instead of a Scan.
+ *
+ * <p>A condition on the range key of the selected table or index becomes part of the key condition,
+ * the remaining conditions are applied as filter. Results can only be ordered by that range key.</p>
+ *
+ * @author velo
+ */
+public final class QueryPlan {
+
+    private static final Set<Operator> RANGE_OPERATORS = ImmutableSet.<Operator>of(
+            Ops.EQ, Ops.LT, Ops.LOE, Ops.GT, Ops.GOE, Ops.BETWEEN, Ops.STARTS_WITH);
+
+    @Nullable
+    private final String indexName;
+
+    private final Operation<?> hashCondition;
+
+    @Nullable
+    private final Predicate rangeCondition;
+
+    @Nullable
+    private final String rangeKey;
+
+    @Nullable
+    private final Predicate filter;
+
+    @Nullable
+    private final Boolean ascending;
+
+    private QueryPlan(@Nullable String indexName, Operation<?> hashCondition, @Nullable Predicate rangeCondition,
+            @Nullable String rangeKey, @Nullable Predicate filter, @Nullable Boolean ascending) {
+        this.indexName = indexName;
+        this.hashCondition = hashCondition;
+        this.rangeCondition = rangeCondition;
+        this.rangeKey = rangeKey;
+        this.filter = filter;
+        this.ascending = ascending;
+    }
+
+    /**
+     * Create a plan for the given predicate and ordering
+     *
+     * @param entityType mapped entity type
+     * @param where predicate
+     * @param orderBy ordering
+     * @return plan or null, if no hash key is pinned and the results are not ordered
+     * @throws IllegalArgumentException if the ordering can't be served by DynamoDB
+     */
+    @Nullable
+    public static QueryPlan create(Class<?> entityType, @Nullable Predicate where, List<OrderSpecifier<?>> orderBy) {
+        return create(entityType, where, orderBy, Collections.<String>emptySet());
+    }
+
+    /**
+     * Create a plan for the given predicate and ordering which doesn't use the given indexes
+     *
+     * @param entityType mapped entity type
+     * @param where predicate
+     * @param orderBy ordering
+     * @param excludedIndexes names of the secondary indexes which can't be queried
+     * @return plan or null, if no hash key is pinned and the results are not ordered
+     * @throws IllegalArgumentException if the ordering can't be served by DynamoDB
+     */
+    @Nullable
+    public static QueryPlan create(Class<?> entityType, @Nullable Predicate where, List<OrderSpecifier<?>> orderBy,
+            Set<String> excludedIndexes) {
+        String orderProperty = null;
+        Boolean ascending = null;
+        if (orderBy.size() > 1) {
+            throw new IllegalArgumentException("Only a single ordering by a range key is supported: " + orderBy);
+        } else if (orderBy.size() == 1) {
+            Expression<?> target = orderBy.get(0).getTarget();
+            if (!(target instanceof Path) || ((Path<?>) target).getMetadata().getParent() == null
+                    || !((Path<?>) target).getMetadata().getParent().getMetadata().isRoot()) {
+                throw new IllegalArgumentException("Results can only be ordered by a top level attribute, not by "
+                        + orderBy.get(0));
+            }
+            orderProperty = ((Path<?>) target).getMetadata().getName();
+            ascending = orderBy.get(0).isAscending();
+        }
+
+        QueryPlan plan = null;
+        if (where != null) {
+            List<Expression<?>> conditions = new ArrayList<Expression<?>>();
+            KeyLookup.flatten(where, conditions);
+            for (EntityMetadata.Index index : EntityMetadata.get(entityType).getIndexes()) {
+                if ((orderProperty != null && !orderProperty.equals(index.getRangeKey()))
+                        || (index.getName() != null && excludedIndexes.contains(index.getName()))) {
+                    continue;
+                }
+                Expression<?> hash = find(conditions, index.getHashKey(), Collections.<Operator>singleton(Ops.EQ));
+                if (hash == null) {
+                    continue;
+                }
+                Expression<?> range = index.getRangeKey() != null
+                        ? find(conditions, index.getRangeKey(), RANGE_OPERATORS) : null;
+                if (plan == null || (plan.rangeCondition == null && range != null)) {
+                    List<Predicate> filters = new ArrayList<Predicate>();
+                    for (Expression<?> condition : conditions) {
+                        if (condition != hash && condition != range) {
+                            filters.add((Predicate) condition);
+                        }
+                    }
+                    plan = new QueryPlan(index.getName(), (Operation<?>) hash, (Predicate) range, index.getRangeKey(),
+                            ExpressionUtils.allOf(filters), ascending);
+                }
+            }
+        }
+        if (plan == null && !orderBy.isEmpty()) {
+            throw new IllegalArgumentException("Results can only be ordered by the range key of the table or an index "
+                    + "whose hash key is restricted by an equality condition, not by " + orderBy.get(0));
+        }
+        return plan;
+    }
+
+    @Nullable
+    private static Expression<?> find(List<Expression<?>> conditions, String property, Set<Operator> operators) {
+        for (Expression<?> condition : conditions) {
+            if (!(condition instanceof Operation)) {
+                continue;
+            }
+            Operation<?> operation = (Operation<?>) condition;
+            if (!operators.contains(operation.getOperator()) || !(operation.getArg(0) instanceof Path)) {
+                continue;
+            }
+            Path<?> path = (Path<?>) operation.getArg(0);
+            if (path.getMetadata().getParent() == null || !path.getMetadata().getParent().getMetadata().isRoot()
+                    || !property.equals(path.getMetadata().getName())) {
+                continue;
+            }
+            boolean constants = true;
+            for (int i = 1; i < operation.getArgs().size(); i++) {
+                constants &= operation.getArg(i) instanceof Constant;
+            }
+            if (constants) {
+                return condition;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the name of the index to query
+     *
+     * @return index name or null for the table
+     */
+    @Nullable
+    public String getIndexName() {
+        return indexName;
+    }
+
+    /**
+     * Get the conditions on the hash and range key
+     *
+     * @return key condition
+     */
+    public Predicate getKeyCondition() {
+        return rangeCondition != null
+                ? ExpressionUtils.and((Predicate) hashCondition, rangeCondition) : (Predicate) hashCondition;
+    }
+
+    /**
+     * Get the hash key property of the queried table or index
+     *
+     * @return property name
+     */
+    public String getHashKey() {
+        return ((Path<?>) hashCondition.getArg(0)).getMetadata().getName();
+    }
+
+    /**
+     * Get the value the hash key is restricted to
+     *
+     * @return hash key value
+     */
+    public Object getHashValue() {
+        return ((Constant<?>) hashCondition.getArg(1)).getConstant();
+    }
+
+    /**
+     * Get a copy of this plan for a different hash key value
+     *
+     * @param value hash key value
+     * @return plan
+     */
+    public QueryPlan withHashValue(Object value) {
+        Operation<?> condition = (Operation<?>) ExpressionUtils.predicate(Ops.EQ, hashCondition.getArg(0),
+                ConstantImpl.create(value));
+        return new QueryPlan(indexName, condition, rangeCondition, rangeKey, filter, ascending);
+    }
+
+    /**
+     * Get the range key property of the queried table or index
+     *
+     * @return property name or null
+     */
+    @Nullable
+    public String getRangeKey() {
+        return rangeKey;
+    }
+
+    /**
+     * Get the conditions to be applied as filter
+     *
+     * @return filter or null
+     */
+    @Nullable
+    public Predicate getFilter() {
+        return filter;
+    }
+
+    /**
+     * Get the direction of the range key ordering
+     *
+     * @return true for ascending, false for descending and null, if unordered
+     */
+    @Nullable
+    public Boolean getAscending() {
+        return ascending;
+    }
+
+}
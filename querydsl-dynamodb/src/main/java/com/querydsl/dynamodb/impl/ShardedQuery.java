@@ -0,0 +1,182 @@
+package com.querydsl.dynamodb.impl;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.Nullable;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.google.common.collect.Iterators;
+import com.querydsl.dynamodb.DynamoDBQueryMetrics;
+import com.querydsl.dynamodb.ReadCapacityLimiter;
+
+/**
+ * ShardedQuery runs the queries of all shards of a write sharded hash key and merges their results
+ *
+ * <p>The first pages of all shards are read concurrently, the following pages of a shard only when
+ * its current page has been consumed. Ordered results are merged by their range key, so the merged
+ * result keeps the order of the shards.</p>
+ *
+ * @author velo
+ */
+public final class ShardedQuery {
+
+    private static final Comparator<AttributeValue> VALUE_ORDER = new Comparator<AttributeValue>() {
+        @Override
+        public int compare(AttributeValue v1, AttributeValue v2) {
+            if (v1.getN() != null && v2.getN() != null) {
+                return new BigDecimal(v1.getN()).compareTo(new BigDecimal(v2.getN()));
+            } else if (v1.getS() != null && v2.getS() != null) {
+                return v1.getS().compareTo(v2.getS());
+            } else if (v1.getB() != null && v2.getB() != null) {
+                return v1.getB().compareTo(v2.getB());
+            } else {
+                throw new IllegalArgumentException("Incomparable range key values " + v1 + " and " + v2);
+            }
+        }
+    };
+
+    private final AmazonDynamoDB client;
+
+    private final ExecutorService executor;
+
+    @Nullable
+    private final ReadCapacityLimiter limiter;
+
+    public ShardedQuery(AmazonDynamoDB client, ExecutorService executor, @Nullable ReadCapacityLimiter limiter) {
+        this.client = client;
+        this.executor = executor;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Get the values of the hash key for each shard
+     *
+     * @param value logical hash key value
+     * @param shards number of shards
+     * @param separator separator of the shard suffix
+     * @return sharded values
+     */
+    public static List<String> getShardValues(Object value, int shards, String separator) {
+        List<String> values = new ArrayList<String>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            values.add(value + separator + shard);
+        }
+        return values;
+    }
+
+    /**
+     * Read the items of the given per shard queries
+     *
+     * @param requests queries, one per shard
+     * @param rangeAttribute range key attribute to merge by, or null, if unordered
+     * @param ascending direction of the range key order
+     * @param metrics metrics to record the pages into
+     * @return merged items
+     */
+    public Iterator<Map<String, AttributeValue>> iterate(List<QueryRequest> requests,
+            @Nullable final String rangeAttribute, boolean ascending, DynamoDBQueryMetrics metrics) {
+        List<Iterator<Map<String, AttributeValue>>> shards = new ArrayList<Iterator<Map<String, AttributeValue>>>();
+        for (QueryResult first : readFirstPages(requests, metrics)) {
+            shards.add(new ShardIterator(requests.get(shards.size()), first, metrics));
+        }
+        if (rangeAttribute == null) {
+            return Iterators.concat(shards.iterator());
+        }
+        Comparator<Map<String, AttributeValue>> order = new Comparator<Map<String, AttributeValue>>() {
+            @Override
+            public int compare(Map<String, AttributeValue> item1, Map<String, AttributeValue> item2) {
+                return VALUE_ORDER.compare(item1.get(rangeAttribute), item2.get(rangeAttribute));
+            }
+        };
+        return Iterators.mergeSorted(shards, ascending ? order : Collections.reverseOrder(order));
+    }
+
+    /**
+     * Count the items of the given per shard queries
+     *
+     * @param requests count queries, one per shard
+     * @param metrics metrics to record the pages into
+     * @return total count
+     */
+    public long count(List<QueryRequest> requests, DynamoDBQueryMetrics metrics) {
+        long count = 0;
+        List<QueryResult> firstPages = readFirstPages(requests, metrics);
+        for (int i = 0; i < requests.size(); i++) {
+            QueryRequest request = requests.get(i);
+            QueryResult result = firstPages.get(i);
+            count += result.getCount();
+            while (Pages.hasMore(result.getLastEvaluatedKey())) {
+                request.setExclusiveStartKey(result.getLastEvaluatedKey());
+                result = Pages.query(client, request, limiter, metrics);
+                count += result.getCount();
+            }
+        }
+        return count;
+    }
+
+    private List<QueryResult> readFirstPages(List<QueryRequest> requests, final DynamoDBQueryMetrics metrics) {
+        List<Callable<QueryResult>> tasks = new ArrayList<Callable<QueryResult>>(requests.size());
+        for (final QueryRequest request : requests) {
+            tasks.add(new Callable<QueryResult>() {
+                @Override
+                public QueryResult call() {
+                    return Pages.query(client, request, limiter, metrics);
+                }
+            });
+        }
+        return Tasks.invokeAll(executor, tasks, "querying shards");
+    }
+
+    /**
+     * Iterates over the items of a single shard, reading the next page when the current one is consumed
+     */
+    private class ShardIterator implements Iterator<Map<String, AttributeValue>> {
+
+        private final QueryRequest request;
+
+        private final DynamoDBQueryMetrics metrics;
+
+        private Iterator<Map<String, AttributeValue>> page;
+
+        @Nullable
+        private Map<String, AttributeValue> lastEvaluatedKey;
+
+        ShardIterator(QueryRequest request, QueryResult first, DynamoDBQueryMetrics metrics) {
+            this.request = request;
+            this.metrics = metrics;
+            this.page = first.getItems().iterator();
+            this.lastEvaluatedKey = first.getLastEvaluatedKey();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && Pages.hasMore(lastEvaluatedKey)) {
+                request.setExclusiveStartKey(lastEvaluatedKey);
+                QueryResult result = Pages.query(client, request, limiter, metrics);
+                page = result.getItems().iterator();
+                lastEvaluatedKey = result.getLastEvaluatedKey();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public Map<String, AttributeValue> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.querydsl.dynamodb.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Tasks runs requests concurrently on an executor and collects their results
+ *
+ * @author velo
+ */
+public final class Tasks {
+
+    private Tasks() { }
+
+    /**
+     * Run the given tasks and wait for their results, cancelling the remaining tasks if one fails
+     *
+     * @param executor executor
+     * @param tasks tasks
+     * @param action description of the tasks for the interruption message, such as "loading items"
+     * @param <T> result type
+     * @return results in the order of the tasks
+     */
+    public static <T> List<T> invokeAll(ExecutorService executor, List<? extends Callable<T>> tasks, String action) {
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            List<T> results = new ArrayList<T>(tasks.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while " + action, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AmazonClientException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,583 @@
+package com.querydsl.dynamodb;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.model.*;
+import com.querydsl.core.QueryResults;
+import com.querydsl.dynamodb.domain.Device;
+import com.querydsl.dynamodb.domain.Event;
+import com.querydsl.dynamodb.domain.Measurement;
+import com.querydsl.dynamodb.domain.QDevice;
+import com.querydsl.dynamodb.domain.QEvent;
+import com.querydsl.dynamodb.domain.QMeasurement;
+import com.querydsl.dynamodb.domain.QUser;
+import com.querydsl.dynamodb.domain.User;
+
+/**
+ * Tests of the requests sent by the queries and clauses, which the local mock can't answer
+ */
+public class DynamoDBQueryStubTest {
+
+    private final QUser user = QUser.user;
+
+    private final QEvent event = QEvent.event;
+
+    private final QMeasurement measurement = QMeasurement.measurement;
+
+    private final QDevice device = QDevice.device;
+
+    @Test
+    public void or() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                return new ScanResult().withItems(user("1", "Jaakko"), user("4", "Jeikki"));
+            }
+        };
+        List<User> result = new DynamoDBQuery<User>(stub.client(), user)
+                .where(user.firstName.eq("Jaakko").or(user.lastName.eq("BeekkoNen")))
+                .useExpressions().fetch();
+        assertThat(result, hasSize(2));
+
+        ScanRequest request = stub.getRequests(ScanRequest.class).get(0);
+        assertThat(request.getScanFilter(), equalTo(null));
+        assertThat(request.getFilterExpression(), equalTo("(#n0 = :v0 OR #n1 = :v1)"));
+        assertThat(request.getExpressionAttributeNames().get("#n0"), equalTo("firstName"));
+        assertThat(request.getExpressionAttributeNames().get("#n1"), equalTo("lastName"));
+        assertThat(request.getExpressionAttributeValues().get(":v1"), equalTo(new AttributeValue("BeekkoNen")));
+    }
+
+    @Test
+    public void projectionExpression() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                return new ScanResult().withItems(new ArrayList<Map<String, AttributeValue>>());
+            }
+        };
+        new DynamoDBQuery<User>(stub.client(), user)
+                .where(user.firstName.eq("Jaakko"))
+                .useExpressions().fetch(user.id, user.firstName);
+
+        ScanRequest request = stub.getRequests(ScanRequest.class).get(0);
+        assertThat(request.getProjectionExpression(), equalTo("#n1, #n0"));
+        assertThat(request.getExpressionAttributeNames().get("#n1"), equalTo("id"));
+        assertThat(request.getAttributesToGet(), equalTo(null));
+    }
+
+    @Test
+    public void fetchResults() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                if (Select.COUNT.toString().equals(request.getSelect())) {
+                    return new ScanResult().withCount(5).withScannedCount(5);
+                }
+                List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+                for (int i = 1; i <= 5; i++) {
+                    items.add(event("a", i, 10));
+                }
+                return new ScanResult().withItems(items).withCount(5).withScannedCount(5);
+            }
+        };
+        QueryResults<Event> results = new DynamoDBQuery<Event>(stub.client(), event)
+                .where(event.reading.gt(5)).offset(1).limit(2).fetchResults();
+        assertThat(results.getTotal(), equalTo(5L));
+        assertThat(results.getResults(), hasSize(2));
+        assertThat(results.getResults().get(0).getTime(), equalTo(2L));
+
+        List<ScanRequest> requests = stub.getRequests(ScanRequest.class);
+        assertThat(requests, hasSize(2));
+        // the items outside the window are only counted
+        assertThat(requests.get(1).getSelect(), equalTo(Select.COUNT.toString()));
+    }
+
+    @Test
+    public void fetchResults_lastPage() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                return new ScanResult().withItems(event("a", 1, 10), event("a", 2, 10)).withCount(2);
+            }
+        };
+        QueryResults<Event> results = new DynamoDBQuery<Event>(stub.client(), event)
+                .where(event.reading.gt(5)).offset(1).limit(2).fetchResults();
+        assertThat(results.getTotal(), equalTo(2L));
+        assertThat(results.getResults(), hasSize(1));
+        assertThat(stub.getRequests(ScanRequest.class), hasSize(1));
+    }
+
+    @Test
+    public void fetchApproximateCount() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public DescribeTableResult describeTable(DescribeTableRequest request) {
+                return new DescribeTableResult().withTable(new TableDescription()
+                        .withTableName(request.getTableName()).withItemCount(42L));
+            }
+        };
+        assertThat(new DynamoDBQuery<Event>(stub.client(), event).fetchApproximateCount(), equalTo(42L));
+        assertThat(stub.getRequests(DescribeTableRequest.class).get(0).getTableName(), equalTo("Event"));
+        assertThat(stub.getRequests(ScanRequest.class), hasSize(0));
+    }
+
+    @Test
+    public void fetchCount_segments() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                // two pages of segment size + 1 items per segment
+                if (request.getExclusiveStartKey() == null) {
+                    return new ScanResult().withCount(request.getSegment() + 1)
+                            .withLastEvaluatedKey(key("a", request.getSegment()));
+                }
+                return new ScanResult().withCount(1);
+            }
+        };
+        long count = new DynamoDBQuery<Event>(stub.client(), event)
+                .where(event.reading.gt(5)).segments(3).fetchCount();
+        assertThat(count, equalTo(1L + 2L + 3L + 3L));
+
+        List<ScanRequest> requests = stub.getRequests(ScanRequest.class);
+        assertThat(requests, hasSize(6));
+        Set<Integer> segments = new HashSet<Integer>();
+        for (ScanRequest request : requests) {
+            assertThat(request.getSelect(), equalTo(Select.COUNT.toString()));
+            assertThat(request.getTotalSegments(), equalTo(3));
+            segments.add(request.getSegment());
+        }
+        assertThat(segments, hasSize(3));
+    }
+
+    @Test
+    public void segments() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                return new ScanResult().withItems(user(String.valueOf(request.getSegment()), "Jaakko"))
+                        .withConsumedCapacity(new ConsumedCapacity().withCapacityUnits(0.5));
+            }
+        };
+        List<User> result = new DynamoDBQuery<User>(stub.client(), user).where(user.age.gt(20)).segments(3)
+                .rateLimit(new ReadCapacityLimiter(10.0)).fetch();
+        assertThat(result, hasSize(3));
+
+        List<ScanRequest> requests = stub.getRequests(ScanRequest.class);
+        assertThat(requests, hasSize(3));
+        Set<Integer> segments = new HashSet<Integer>();
+        for (ScanRequest request : requests) {
+            assertThat(request.getTotalSegments(), equalTo(3));
+            // the limiter is paced by the consumed capacity
+            assertThat(request.getReturnConsumedCapacity(), equalTo(ReturnConsumedCapacity.INDEXES.toString()));
+            segments.add(request.getSegment());
+        }
+        assertThat(segments, hasSize(3));
+    }
+
+    @Test
+    public void fetchAsync() throws Exception {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                if (Select.COUNT.toString().equals(request.getSelect())) {
+                    return new ScanResult().withCount(2).withScannedCount(4);
+                }
+                return new ScanResult().withItems(user("2", "Jaakki"), user("3", "Jaana"))
+                        .withCount(2).withScannedCount(4);
+            }
+        };
+        DynamoDBQuery<User> query = new DynamoDBQuery<User>(stub.asyncClient(), user).where(user.age.gt(20));
+        assertThat(query.fetchAsync().get(), hasSize(2));
+        assertThat(query.fetchCountAsync().get(), equalTo(2L));
+
+        List<ScanRequest> requests = stub.getRequests(ScanRequest.class);
+        assertThat(requests, hasSize(2));
+        assertThat(requests.get(1).getSelect(), equalTo(Select.COUNT.toString()));
+    }
+
+    @Test
+    public void fetchPage_filtered() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public QueryResult query(QueryRequest request) {
+                List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+                for (int i = 1; i <= 5; i++) {
+                    items.add(event("a", i, 10));
+                }
+                return new QueryResult().withItems(items).withCount(5).withScannedCount(10)
+                        .withLastEvaluatedKey(key("a", 7));
+            }
+        };
+        DynamoDBQuery<Event> query = new DynamoDBQuery<Event>(stub.client(), event)
+                .where(event.deviceId.eq("a"), event.reading.gt(5));
+        DynamoDBPage<Event> page = query.fetchPage(3, null);
+        assertThat(page.getResults(), hasSize(3));
+        query.fetchPage(3, page.getCursor());
+
+        List<QueryRequest> requests = stub.getRequests(QueryRequest.class);
+        // a limit would count the filtered items too
+        assertThat(requests.get(0).getLimit(), equalTo(null));
+        assertThat(requests.get(1).getExclusiveStartKey(), equalTo(key("a", 3)));
+    }
+
+    @Test
+    public void fetchPage_keys() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+                List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+                for (Map<String, AttributeValue> key : request.getRequestItems().get("User").getKeys()) {
+                    items.add(user(key.get("id").getS(), "Jaakko"));
+                }
+                return new BatchGetItemResult().withResponses(Collections.singletonMap("User", items));
+            }
+        };
+        DynamoDBQuery<User> query = new DynamoDBQuery<User>(stub.client(), user)
+                .where(user.id.in("1", "2", "3", "4", "5"));
+        Set<String> ids = new HashSet<String>();
+        DynamoDBPage<User> page = query.fetchPage(2, null);
+        assertThat(page.getResults(), hasSize(2));
+        for (int i = 0; i < 2; i++) {
+            for (User result : page.getResults()) {
+                ids.add(result.getId());
+            }
+            page = query.fetchPage(2, page.getCursor());
+        }
+        assertThat(page.getResults(), hasSize(1));
+        assertThat(page.getCursor(), equalTo(null));
+        ids.add(page.getResults().get(0).getId());
+        assertThat(ids, hasSize(5));
+
+        List<BatchGetItemRequest> requests = stub.getRequests(BatchGetItemRequest.class);
+        assertThat(requests, hasSize(3));
+        assertThat(requests.get(0).getRequestItems().get("User").getKeys(), hasSize(2));
+    }
+
+    @Test
+    public void fetchPage_segments_filtered() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                // items a and b followed by unmatched items up to z in each segment
+                String segment = String.valueOf(request.getSegment());
+                Map<String, AttributeValue> startKey = request.getExclusiveStartKey();
+                if (startKey == null) {
+                    return new ScanResult().withItems(user(segment + "a", "Jaakko"), user(segment + "b", "Jaakko"))
+                            .withLastEvaluatedKey(Collections.singletonMap("id", new AttributeValue(segment + "z")));
+                } else if (startKey.get("id").getS().endsWith("a")) {
+                    return new ScanResult().withItems(user(segment + "b", "Jaakko"))
+                            .withLastEvaluatedKey(Collections.singletonMap("id", new AttributeValue(segment + "z")));
+                }
+                return new ScanResult();
+            }
+        };
+        DynamoDBQuery<User> query = new DynamoDBQuery<User>(stub.client(), user)
+                .where(user.firstName.eq("Jaakko")).segments(2);
+        DynamoDBPage<User> page = query.fetchPage(2, null);
+        assertThat(page.getResults(), hasSize(2));
+        page = query.fetchPage(2, page.getCursor());
+        assertThat(page.getResults(), hasSize(2));
+        assertThat(page.getResults().get(0).getId(), equalTo("0b"));
+        assertThat(page.getResults().get(1).getId(), equalTo("1b"));
+        page = query.fetchPage(2, page.getCursor());
+        assertThat(page.getResults(), hasSize(0));
+        assertThat(page.getCursor(), equalTo(null));
+
+        // every segment continues after its own last returned item
+        List<ScanRequest> requests = stub.getRequests(ScanRequest.class);
+        assertThat(requests, hasSize(6));
+        Set<Map<String, AttributeValue>> startKeys = new HashSet<Map<String, AttributeValue>>();
+        for (ScanRequest request : requests.subList(2, 4)) {
+            startKeys.add(request.getExclusiveStartKey());
+        }
+        assertThat(startKeys, equalTo((Set<Map<String, AttributeValue>>) new HashSet<Map<String, AttributeValue>>(
+                Arrays.asList(Collections.singletonMap("id", new AttributeValue("0a")),
+                        Collections.singletonMap("id", new AttributeValue("1a"))))));
+    }
+
+    @Test
+    public void sharded_offsetAndLimit() {
+        ShardStub stub = new ShardStub();
+        List<Measurement> result = new DynamoDBQuery<Measurement>(stub.client(), measurement)
+                .where(measurement.sensor.eq("s"))
+                .orderBy(measurement.time.desc())
+                .offset(2).limit(3).fetch();
+        // the offset and limit apply to the merged results, not to each shard
+        assertThat(result, hasSize(3));
+        assertThat(result.get(0).getTime(), equalTo(6L));
+        assertThat(result.get(1).getTime(), equalTo(5L));
+        assertThat(result.get(2).getTime(), equalTo(4L));
+        assertThat(stub.getRequests(QueryRequest.class).get(0).getScanIndexForward(), equalTo(false));
+    }
+
+    @Test
+    public void sharded_count() {
+        ShardStub stub = new ShardStub();
+        long count = new DynamoDBQuery<Measurement>(stub.client(), measurement)
+                .where(measurement.sensor.eq("s")).fetchCount();
+        assertThat(count, equalTo((long) ShardStub.ITEMS));
+        for (QueryRequest request : stub.getRequests(QueryRequest.class)) {
+            assertThat(request.getSelect(), equalTo(Select.COUNT.toString()));
+        }
+    }
+
+    @Test
+    public void sharded_keyLookup() {
+        ShardStub stub = new ShardStub();
+        List<Measurement> result = new DynamoDBQuery<Measurement>(stub.client(), measurement)
+                .where(measurement.sensor.eq("s"), measurement.time.eq(4L)).fetch();
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).getSensor(), equalTo("s#1"));
+        List<BatchGetItemRequest> requests = stub.getRequests(BatchGetItemRequest.class);
+        assertThat(requests, hasSize(1));
+        assertThat(requests.get(0).getRequestItems().get("Measurement").getKeys(), hasSize(3));
+    }
+
+    @Test
+    public void sharded_keyLookup_async() throws Exception {
+        ShardStub stub = new ShardStub();
+        // key lookups are requested by the client, not by the executor of the query
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        DynamoDBQuery<Measurement> query = new DynamoDBQuery<Measurement>(stub.asyncClient(), measurement)
+                .executor(executor).where(measurement.sensor.eq("s"), measurement.time.in(4L, 5L, 9L));
+        assertThat(query.fetchAsync().get(), hasSize(2));
+        assertThat(query.fetchCountAsync().get(), equalTo(2L));
+        assertThat(stub.getRequests(BatchGetItemRequest.class), hasSize(2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rateLimit_async() {
+        new DynamoDBQuery<User>(new DynamoDBStub().asyncClient(), user)
+                .rateLimit(new ReadCapacityLimiter(1.0)).fetchAsync();
+    }
+
+    @Test
+    public void sharded_update_keyLookup() {
+        ShardStub stub = new ShardStub();
+        long updated = new DynamoDBUpdateClause(stub.client(), measurement)
+                .where(measurement.sensor.eq("s"), measurement.time.in(4L, 5L))
+                .set(measurement.value, 1).execute();
+        assertThat(updated, equalTo(2L));
+        List<UpdateItemRequest> requests = stub.getRequests(UpdateItemRequest.class);
+        assertThat(requests, hasSize(6));
+        assertThat(requests.get(0).getConditionExpression(), equalTo("attribute_exists(#n1)"));
+    }
+
+    @Test
+    public void sharded_update_scan() {
+        ShardStub stub = new ShardStub();
+        long updated = new DynamoDBUpdateClause(stub.client(), measurement)
+                .where(measurement.sensor.eq("s"), measurement.value.goe(0))
+                .set(measurement.value, 1).execute();
+        assertThat(updated, equalTo((long) ShardStub.ITEMS));
+        ScanRequest scan = stub.getRequests(ScanRequest.class).get(0);
+        assertThat(scan.getFilterExpression(), equalTo("(#n0 IN (:v0, :v1, :v2) AND #n1 >= :v3)"));
+        assertThat(scan.getExpressionAttributeValues().get(":v2"), equalTo(new AttributeValue("s#2")));
+    }
+
+    @Test
+    public void index_keysOnly() {
+        DynamoDBStub stub = deviceStub(ProjectionType.KEYS_ONLY);
+        List<Device> result = new DynamoDBQuery<Device>(stub.client(), device).where(device.owner.eq("a")).fetch();
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).getName(), equalTo("Sensor"));
+        // the index doesn't return the name, so the table is scanned
+        assertThat(stub.getRequests(QueryRequest.class), hasSize(0));
+        assertThat(stub.getRequests(ScanRequest.class), hasSize(1));
+    }
+
+    @Test
+    public void index_all() {
+        DynamoDBStub stub = deviceStub(ProjectionType.ALL);
+        DynamoDBQuery<Device> query = new DynamoDBQuery<Device>(stub.client(), device).where(device.owner.eq("a"));
+        assertThat(query.fetch(), hasSize(1));
+        assertThat(query.fetchCount(), equalTo(1L));
+        List<QueryRequest> requests = stub.getRequests(QueryRequest.class);
+        assertThat(requests.get(0).getIndexName(), equalTo("byOwner"));
+        assertThat(requests.get(0).getSelect(), equalTo(Select.ALL_ATTRIBUTES.toString()));
+        assertThat(requests.get(1).getSelect(), equalTo(Select.COUNT.toString()));
+        assertThat(stub.getRequests(DescribeTableRequest.class), hasSize(1));
+    }
+
+    private static DynamoDBStub deviceStub(final ProjectionType projectionType) {
+        return new DynamoDBStub() {
+            @Override
+            public DescribeTableResult describeTable(DescribeTableRequest request) {
+                return new DescribeTableResult().withTable(new TableDescription().withTableName("Device")
+                        .withKeySchema(new KeySchemaElement("id", KeyType.HASH))
+                        .withGlobalSecondaryIndexes(new GlobalSecondaryIndexDescription().withIndexName("byOwner")
+                                .withKeySchema(new KeySchemaElement("owner", KeyType.HASH))
+                                .withProjection(new Projection().withProjectionType(projectionType))));
+            }
+
+            @Override
+            public QueryResult query(QueryRequest request) {
+                return new QueryResult().withItems(device("1", "a")).withCount(1).withScannedCount(1);
+            }
+
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                return new ScanResult().withItems(device("1", "a")).withCount(1).withScannedCount(1);
+            }
+        };
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void aggregate_limit() {
+        new DynamoDBQuery<Event>(new DynamoDBStub().client(), event).limit(10).aggregate(event.reading.sum());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void aggregate_groupBy_offset() {
+        new DynamoDBQuery<Event>(new DynamoDBStub().client(), event).offset(10)
+                .aggregate(event.deviceId, event.reading.sum());
+    }
+
+    @Test
+    public void insert_duplicateKeys() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+                return new BatchWriteItemResult();
+            }
+        };
+        long inserted = new DynamoDBInsertClause(stub.client(), user)
+                .set(user.id, "1").set(user.firstName, "Jaakko").addBatch()
+                .set(user.id, "2").set(user.firstName, "Jeikki").addBatch()
+                .set(user.id, "1").set(user.firstName, "Jaakko 2").addBatch()
+                .execute();
+        assertThat(inserted, equalTo(2L));
+
+        List<WriteRequest> writes = stub.getRequests(BatchWriteItemRequest.class).get(0)
+                .getRequestItems().get("User");
+        assertThat(writes, hasSize(2));
+        assertThat(writes.get(0).getPutRequest().getItem(), equalTo(user("2", "Jeikki")));
+        assertThat(writes.get(1).getPutRequest().getItem(), equalTo(user("1", "Jaakko 2")));
+    }
+
+    @Test
+    public void update() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public DescribeTableResult describeTable(DescribeTableRequest request) {
+                return new DescribeTableResult().withTable(new TableDescription().withKeySchema(
+                        new KeySchemaElement("id", KeyType.HASH)));
+            }
+
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                if (request.getExclusiveStartKey() == null) {
+                    return new ScanResult().withItems(Collections.singletonMap("id", new AttributeValue("1")))
+                            .withLastEvaluatedKey(Collections.singletonMap("id", new AttributeValue("1")));
+                }
+                return new ScanResult().withItems(Collections.singletonMap("id", new AttributeValue("2")));
+            }
+
+            @Override
+            public UpdateItemResult updateItem(UpdateItemRequest request) {
+                if (request.getKey().get("id").getS().equals("2")) {
+                    throw new ConditionalCheckFailedException("changed in the meantime");
+                }
+                return new UpdateItemResult();
+            }
+        };
+        long updated = new DynamoDBUpdateClause(stub.client(), user)
+                .where(user.firstName.eq("Update"), user.age.lt(20))
+                .set(user.lastName, "Updated").add(user.age, 5).execute();
+        // items which no longer match aren't counted
+        assertThat(updated, equalTo(1L));
+
+        List<UpdateItemRequest> requests = stub.getRequests(UpdateItemRequest.class);
+        assertThat(requests, hasSize(2));
+        assertThat(requests.get(0).getUpdateExpression(), equalTo("SET #n0 = :v0 ADD #n1 :v1"));
+        assertThat(requests.get(0).getConditionExpression().startsWith("attribute_exists("), equalTo(true));
+        assertThat(requests.get(0).getConditionExpression().contains(" AND "), equalTo(true));
+        assertThat(stub.getRequests(ScanRequest.class), hasSize(2));
+    }
+
+    @Test
+    public void update_samePath() {
+        assertThat(updateExpression(new Updates() {
+            @Override
+            public void apply(DynamoDBUpdateClause update) {
+                update.set(event.reading, 5).add(event.reading, 1);
+            }
+        }), equalTo("ADD #n0 :v0"));
+        assertThat(updateExpression(new Updates() {
+            @Override
+            public void apply(DynamoDBUpdateClause update) {
+                update.add(event.reading, 1).set(event.reading, 5);
+            }
+        }), equalTo("SET #n0 = :v0"));
+        assertThat(updateExpression(new Updates() {
+            @Override
+            public void apply(DynamoDBUpdateClause update) {
+                update.add(event.reading, 1).setNull(event.reading);
+            }
+        }), equalTo("REMOVE #n0"));
+    }
+
+    private interface Updates {
+
+        void apply(DynamoDBUpdateClause update);
+
+    }
+
+    private String updateExpression(Updates updates) {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public DescribeTableResult describeTable(DescribeTableRequest request) {
+                return new DescribeTableResult().withTable(new TableDescription().withKeySchema(
+                        new KeySchemaElement("deviceId", KeyType.HASH), new KeySchemaElement("time", KeyType.RANGE)));
+            }
+
+            @Override
+            public UpdateItemResult updateItem(UpdateItemRequest request) {
+                return new UpdateItemResult();
+            }
+        };
+        DynamoDBUpdateClause update = new DynamoDBUpdateClause(stub.client(), event)
+                .where(event.deviceId.eq("a"), event.time.eq(1L));
+        updates.apply(update);
+        assertThat(update.execute(), equalTo(1L));
+        return stub.getRequests(UpdateItemRequest.class).get(0).getUpdateExpression();
+    }
+
+    static Map<String, AttributeValue> device(String id, String owner) {
+        Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+        item.put("id", new AttributeValue(id));
+        item.put("owner", new AttributeValue(owner));
+        item.put("name", new AttributeValue("Sensor"));
+        return item;
+    }
+
+    static Map<String, AttributeValue> key(String deviceId, long time) {
+        Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+        key.put("deviceId", new AttributeValue(deviceId));
+        key.put("time", new AttributeValue().withN(String.valueOf(time)));
+        return key;
+    }
+
+    static Map<String, AttributeValue> event(String deviceId, long time, int reading) {
+        Map<String, AttributeValue> item = key(deviceId, time);
+        item.put("reading", new AttributeValue().withN(String.valueOf(reading)));
+        return item;
+    }
+
+    static Map<String, AttributeValue> user(String id, String firstName) {
+        Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+        item.put("id", new AttributeValue(id));
+        item.put("firstName", new AttributeValue(firstName));
+        return item;
+    }
+
+}
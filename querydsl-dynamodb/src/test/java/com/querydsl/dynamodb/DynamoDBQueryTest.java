@@ -1,21 +1,32 @@
 package com.querydsl.dynamodb;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertThat;
 
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Wildcard;
 import org.junit.AfterClass;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.amazonaws.auth.SystemPropertiesCredentialsProvider;
+import com.amazonaws.regions.Region;
+import com.amazonaws.regions.Regions;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsyncClient;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
@@ -182,6 +193,186 @@ public class DynamoDBQueryTest {
         assertThat(result, containsInAnyOrder(u2, u3));
     }
 
+    @Test
+    public void marshalledEquals() {
+        List<User> result = where(user.gender.eq(Gender.MALE)).fetch();
+        assertThat(result, containsInAnyOrder(u1, u3));
+    }
+
+    @Test
+    public void idIn() {
+        List<User> result = where(user.id.in(u1.getId(), u3.getId(), "unknown")).fetch();
+        assertThat(result, containsInAnyOrder(u1, u3));
+    }
+
+    @Test
+    public void or() {
+        // Alternator doesn't support filter expressions, covered by DynamoDBQueryStubTest otherwise
+        Assume.assumeTrue(ClientFactory.isUsingDynamoMock());
+        List<User> result = where(user.firstName.eq("Jaakko").or(user.lastName.eq("BeekkoNen")))
+                .useExpressions().fetch();
+        assertThat(result, containsInAnyOrder(u1, u4));
+    }
+
+    @Test
+    public void projection() {
+        List<User> result = where(user.firstName.eq("Jaakko")).fetch(user.id, user.firstName);
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).getId(), equalTo(u1.getId()));
+        assertThat(result.get(0).getFirstName(), equalTo("Jaakko"));
+        assertThat(result.get(0).getLastName(), nullValue());
+    }
+
+    @Test
+    public void segments() {
+        // Alternator doesn't support parallel scans, covered by DynamoDBQueryStubTest otherwise
+        Assume.assumeTrue(ClientFactory.isUsingDynamoMock());
+        List<User> result = where(user.age.gt(20)).segments(3)
+                .rateLimit(new ReadCapacityLimiter(1.0)).fetch();
+        assertThat(result, containsInAnyOrder(u2, u3, u4));
+    }
+
+    @Test
+    public void metrics() {
+        final List<DynamoDBQueryMetrics> completed = new ArrayList<DynamoDBQueryMetrics>();
+        where(user.age.gt(20)).addListener(new DynamoDBQueryListener() {
+            @Override
+            public void pageFetched(DynamoDBQueryMetrics metrics) { }
+
+            @Override
+            public void queryCompleted(DynamoDBQueryMetrics metrics) {
+                completed.add(metrics);
+            }
+        }).fetch();
+        assertThat(completed, hasSize(1));
+        assertThat(completed.get(0).getCount(), equalTo(3L));
+        assertThat(completed.get(0).getPages(), equalTo(1));
+    }
+
+    @Test
+    public void hashKeyQuery() {
+        List<User> result = where(user.id.eq(u1.getId())).fetch();
+        assertThat(result, containsInAnyOrder(u1));
+        assertThat(where(user.id.eq(u1.getId())).fetchCount(), equalTo(1L));
+    }
+
+    @Test
+    public void limit() {
+        assertThat(query().limit(2).fetch(), hasSize(2));
+        assertThat(where(user.age.gt(20)).offset(1).limit(5).fetch(), hasSize(2));
+    }
+
+    @Test
+    public void fetchResults() {
+        QueryResults<User> results = where(user.age.gt(20)).offset(1).limit(1).fetchResults();
+        assertThat(results.getTotal(), equalTo(3L));
+        assertThat(results.getResults(), hasSize(1));
+        assertThat(where(user.age.gt(100)).fetchResults().isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void aggregate() {
+        Tuple stats = query().aggregate(Wildcard.count, user.age.sum(), user.age.avg(), user.age.min(),
+                user.age.max());
+        assertThat(stats.get(Wildcard.count), equalTo(4L));
+        assertThat(stats.get(user.age.sum()), equalTo(140));
+        assertThat(stats.get(user.age.avg()), equalTo(35.0));
+        assertThat(stats.get(user.age.min()), equalTo(20));
+        assertThat(stats.get(user.age.max()), equalTo(50));
+        assertThat(where(user.age.gt(100)).aggregate(user.age.sum()).get(user.age.sum()), nullValue());
+    }
+
+    @Test
+    public void aggregate_groupBy() {
+        Map<String, Tuple> byLastName = query().segments(2).aggregate(user.lastName, user.age.sum(), user.id.count());
+        assertThat(byLastName.size(), equalTo(3));
+        assertThat(byLastName.get("Jantunen").get(user.age.sum()), equalTo(50));
+        assertThat(byLastName.get("Jantunen").get(user.id.count()), equalTo(2L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void orderByNonKey() {
+        where(user.id.eq(u1.getId())).orderBy(user.age.asc()).fetch();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void orderByExpression() {
+        where(user.id.eq(u1.getId())).orderBy(user.age.add(1).asc()).fetch();
+    }
+
+    @Test
+    public void fetchAsync() throws Exception {
+        // the asynchronous client connects to AWS, covered by DynamoDBQueryStubTest otherwise
+        Assume.assumeTrue(ClientFactory.isUsingDynamoMock());
+        AmazonDynamoDBAsyncClient asyncClient = new AmazonDynamoDBAsyncClient(
+                new SystemPropertiesCredentialsProvider());
+        asyncClient.setRegion(Region.getRegion(Regions.US_EAST_1));
+        try {
+            DynamoDBQuery<User> query = new DynamoDBQuery<User>(asyncClient, user).where(user.age.gt(20));
+            assertThat(query.fetchAsync().get(), containsInAnyOrder(u2, u3, u4));
+            assertThat(query.fetchCountAsync().get(), equalTo(3L));
+        } finally {
+            asyncClient.shutdown();
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void fetchAsync_blockingClient() {
+        query().fetchAsync();
+    }
+
+    @Test
+    public void fetchPage() {
+        List<User> result = new ArrayList<User>();
+        DynamoDBPage<User> page = query().fetchPage(3, null);
+        result.addAll(page.getResults());
+        assertThat(page.getResults(), hasSize(3));
+        while (page.hasNext()) {
+            page = query().fetchPage(3, page.getCursor());
+            result.addAll(page.getResults());
+        }
+        assertThat(result, containsInAnyOrder(u1, u2, u3, u4));
+    }
+
+    @Test
+    public void insertAndDelete() {
+        DynamoDBInsertClause insert = new DynamoDBInsertClause(client, user);
+        for (int i = 0; i < 30; i++) {
+            insert.set(user.id, "bulk-" + i).set(user.firstName, "Bulk").set(user.age, 99).addBatch();
+        }
+        assertThat(insert.execute(), equalTo(30L));
+        assertThat(where(user.age.eq(99)).fetchCount(), equalTo(30L));
+
+        long deleted = new DynamoDBDeleteClause(client, user).where(user.age.eq(99)).execute();
+        assertThat(deleted, equalTo(30L));
+        assertThat(where(user.age.eq(99)).fetchCount(), equalTo(0L));
+    }
+
+    @Test
+    public void update() {
+        // Alternator doesn't support update and condition expressions, covered by DynamoDBQueryStubTest otherwise
+        Assume.assumeTrue(ClientFactory.isUsingDynamoMock());
+        new DynamoDBInsertClause(client, user)
+                .set(user.id, "update-1").set(user.firstName, "Update").set(user.age, 10).execute();
+        try {
+            long updated = new DynamoDBUpdateClause(client, user)
+                    .where(user.firstName.eq("Update"), user.age.lt(20))
+                    .set(user.lastName, "Updated").add(user.age, 5).execute();
+            assertThat(updated, equalTo(1L));
+
+            User result = where(user.firstName.eq("Update")).fetchOne();
+            assertThat(result.getLastName(), equalTo("Updated"));
+            assertThat(result.getAge(), equalTo(15));
+
+            updated = new DynamoDBUpdateClause(client, user)
+                    .where(user.firstName.eq("Update"), user.age.lt(10))
+                    .add(user.age, 5).execute();
+            assertThat(updated, equalTo(0L));
+        } finally {
+            new DynamoDBDeleteClause(client, user).where(user.firstName.eq("Update")).execute();
+        }
+    }
+
     private DynamoDBQuery<User> query() {
         return new DynamoDBQuery<User>(client, user);
     }
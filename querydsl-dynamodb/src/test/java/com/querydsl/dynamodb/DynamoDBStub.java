@@ -0,0 +1,113 @@
+package com.querydsl.dynamodb;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.model.*;
+import com.google.common.util.concurrent.Futures;
+
+/**
+ * DynamoDBStub answers the requests of a client proxy with the methods overridden by a test,
+ * all other operations fail. Asynchronous requests are answered on the calling thread.
+ */
+public class DynamoDBStub implements InvocationHandler {
+
+    private final List<AmazonWebServiceRequest> requests = new CopyOnWriteArrayList<AmazonWebServiceRequest>();
+
+    public AmazonDynamoDB client() {
+        return (AmazonDynamoDB) Proxy.newProxyInstance(AmazonDynamoDB.class.getClassLoader(),
+                new Class<?>[]{AmazonDynamoDB.class}, this);
+    }
+
+    public AmazonDynamoDBAsync asyncClient() {
+        return (AmazonDynamoDBAsync) Proxy.newProxyInstance(AmazonDynamoDBAsync.class.getClassLoader(),
+                new Class<?>[]{AmazonDynamoDBAsync.class}, this);
+    }
+
+    /**
+     * Get the requests received so far of the given type, copied when they were received
+     */
+    public <T extends AmazonWebServiceRequest> List<T> getRequests(Class<T> type) {
+        List<T> result = new ArrayList<T>();
+        for (AmazonWebServiceRequest request : requests) {
+            if (type.isInstance(request)) {
+                result.add(type.cast(request));
+            }
+        }
+        return result;
+    }
+
+    public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+        throw new UnsupportedOperationException("batchGetItem");
+    }
+
+    public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+        throw new UnsupportedOperationException("batchWriteItem");
+    }
+
+    public QueryResult query(QueryRequest request) {
+        throw new UnsupportedOperationException("query");
+    }
+
+    public ScanResult scan(ScanRequest request) {
+        throw new UnsupportedOperationException("scan");
+    }
+
+    public UpdateItemResult updateItem(UpdateItemRequest request) {
+        throw new UnsupportedOperationException("updateItem");
+    }
+
+    public DescribeTableResult describeTable(DescribeTableRequest request) {
+        throw new UnsupportedOperationException("describeTable");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(this, args);
+        }
+        String name = method.getName();
+        boolean async = name.endsWith("Async");
+        if (args == null || args.length != (async ? 2 : 1) || !(args[0] instanceof AmazonWebServiceRequest)) {
+            throw new UnsupportedOperationException(name);
+        }
+        // requests are reused by the pagination, so a copy is kept
+        AmazonWebServiceRequest request = (AmazonWebServiceRequest) args[0];
+        requests.add((AmazonWebServiceRequest) request.getClass().getMethod("clone").invoke(request));
+        Method handler;
+        try {
+            handler = DynamoDBStub.class.getMethod(async ? name.substring(0, name.length() - 5) : name,
+                    request.getClass());
+        } catch (NoSuchMethodException e) {
+            throw new UnsupportedOperationException(name);
+        }
+        Object result;
+        try {
+            result = handler.invoke(this, request);
+        } catch (InvocationTargetException e) {
+            if (!async) {
+                throw e.getCause();
+            }
+            Exception error = e.getCause() instanceof Exception
+                    ? (Exception) e.getCause() : new RuntimeException(e.getCause());
+            ((AsyncHandler<AmazonWebServiceRequest, Object>) args[1]).onError(error);
+            return Futures.immediateFailedFuture(error);
+        }
+        if (async) {
+            ((AsyncHandler<AmazonWebServiceRequest, Object>) args[1]).onSuccess(request, result);
+            return Futures.immediateFuture(result);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.querydsl.dynamodb;
+
+import java.util.*;
+
+import com.amazonaws.services.dynamodbv2.model.*;
+
+/**
+ * ShardStub answers the queries, key lookups, scans and updates of the Measurement table, whose sensor
+ * "s" is stored in three shards with the times 0 to 8 distributed round robin and read in pages of two
+ * items
+ */
+public class ShardStub extends DynamoDBStub {
+
+    public static final int ITEMS = 9;
+
+    public static Map<String, AttributeValue> item(String sensor, long time) {
+        Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+        item.put("sensor", new AttributeValue(sensor));
+        item.put("time", new AttributeValue().withN(String.valueOf(time)));
+        item.put("value", new AttributeValue().withN(String.valueOf(time * 10)));
+        return item;
+    }
+
+    private static boolean exists(String sensor, long time) {
+        return time >= 0 && time < ITEMS && sensor.equals("s#" + time % 3);
+    }
+
+    @Override
+    public QueryResult query(QueryRequest request) {
+        String sensor = request.getKeyConditions().get("sensor").getAttributeValueList().get(0).getS();
+        List<Long> times = new ArrayList<Long>();
+        for (long time = 0; time < ITEMS; time++) {
+            if (exists(sensor, time)) {
+                times.add(time);
+            }
+        }
+        if (Boolean.FALSE.equals(request.getScanIndexForward())) {
+            Collections.reverse(times);
+        }
+        int from = 0;
+        if (request.getExclusiveStartKey() != null) {
+            from = times.indexOf(Long.valueOf(request.getExclusiveStartKey().get("time").getN())) + 1;
+        }
+        int to = Math.min(from + 2, times.size());
+        List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+        for (Long time : times.subList(from, to)) {
+            items.add(item(sensor, time));
+        }
+        QueryResult result = new QueryResult().withCount(items.size()).withScannedCount(items.size());
+        if (!Select.COUNT.toString().equals(request.getSelect())) {
+            result.setItems(items);
+        }
+        if (to < times.size()) {
+            Map<String, AttributeValue> last = new HashMap<String, AttributeValue>(items.get(items.size() - 1));
+            last.remove("value");
+            result.setLastEvaluatedKey(last);
+        }
+        return result;
+    }
+
+    @Override
+    public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+        List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+        for (Map<String, AttributeValue> key : request.getRequestItems().get("Measurement").getKeys()) {
+            String sensor = key.get("sensor").getS();
+            long time = Long.parseLong(key.get("time").getN());
+            if (exists(sensor, time)) {
+                items.add(item(sensor, time));
+            }
+        }
+        return new BatchGetItemResult().withResponses(Collections.singletonMap("Measurement", items));
+    }
+
+    @Override
+    public DescribeTableResult describeTable(DescribeTableRequest request) {
+        return new DescribeTableResult().withTable(new TableDescription().withTableName("Measurement")
+                .withKeySchema(new KeySchemaElement("sensor", KeyType.HASH),
+                        new KeySchemaElement("time", KeyType.RANGE)));
+    }
+
+    @Override
+    public ScanResult scan(ScanRequest request) {
+        // only the sensor values of the filter are evaluated
+        Collection<AttributeValue> values = request.getExpressionAttributeValues().values();
+        List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+        for (long time = 0; time < ITEMS; time++) {
+            String sensor = "s#" + time % 3;
+            if (values.contains(new AttributeValue(sensor))) {
+                items.add(item(sensor, time));
+            }
+        }
+        return new ScanResult().withItems(items).withCount(items.size());
+    }
+
+    @Override
+    public UpdateItemResult updateItem(UpdateItemRequest request) {
+        String sensor = request.getKey().get("sensor").getS();
+        long time = Long.parseLong(request.getKey().get("time").getN());
+        // a condition on the logical value never matches the stored values
+        if (!exists(sensor, time) || request.getExpressionAttributeValues().containsValue(new AttributeValue("s"))) {
+            throw new ConditionalCheckFailedException("The conditional request failed");
+        }
+        return new UpdateItemResult();
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.querydsl.dynamodb.domain;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+
+@DynamoDBTable(tableName = "Event")
+public class Event {
+
+    private String deviceId;
+
+    private long time;
+
+    private int reading;
+
+    public Event() {
+    }
+
+    public Event(String deviceId, long time, int reading) {
+        this.deviceId = deviceId;
+        this.time = time;
+        this.reading = reading;
+    }
+
+    @DynamoDBHashKey(attributeName = "deviceId")
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    @DynamoDBRangeKey(attributeName = "time")
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    @DynamoDBAttribute(attributeName = "reading")
+    public int getReading() {
+        return reading;
+    }
+
+    public void setReading(int reading) {
+        this.reading = reading;
+    }
+
+    @Override
+    public String toString() {
+        return "Event [deviceId=" + deviceId + ", time=" + time + "]";
+    }
+
+}
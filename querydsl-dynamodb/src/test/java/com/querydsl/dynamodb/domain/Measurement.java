@@ -0,0 +1,51 @@
+package com.querydsl.dynamodb.domain;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.querydsl.dynamodb.ShardedHashKey;
+
+@DynamoDBTable(tableName = "Measurement")
+public class Measurement {
+
+    private String sensor;
+
+    private long time;
+
+    private int value;
+
+    @ShardedHashKey(shards = 3)
+    @DynamoDBHashKey(attributeName = "sensor")
+    public String getSensor() {
+        return sensor;
+    }
+
+    public void setSensor(String sensor) {
+        this.sensor = sensor;
+    }
+
+    @DynamoDBRangeKey(attributeName = "time")
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    @DynamoDBAttribute(attributeName = "value")
+    public int getValue() {
+        return value;
+    }
+
+    public void setValue(int value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return "Measurement [sensor=" + sensor + ", time=" + time + "]";
+    }
+
+}
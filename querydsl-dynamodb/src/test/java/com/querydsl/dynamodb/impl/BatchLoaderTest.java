@@ -0,0 +1,109 @@
+package com.querydsl.dynamodb.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.querydsl.dynamodb.DynamoDBQueryMetrics;
+import com.querydsl.dynamodb.DynamoDBQueryListener;
+import com.querydsl.dynamodb.DynamoDBStub;
+
+public class BatchLoaderTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private final DynamoDBQueryMetrics metrics = new DynamoDBQueryMetrics("BatchGetItem", "Event",
+            Collections.<DynamoDBQueryListener>emptyList());
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void chunks() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+                return new BatchGetItemResult().withResponses(Collections.singletonMap("Event",
+                        request.getRequestItems().get("Event").getKeys()));
+            }
+        };
+        BatchLoader loader = new BatchLoader(stub.client(), executor, new Backoff(0, 0, 3), null);
+        List<Map<String, AttributeValue>> items = loader.load("Event", keys(250), null, metrics);
+        assertThat(items, hasSize(250));
+        assertThat(new HashSet<Map<String, AttributeValue>>(items),
+                equalTo(new HashSet<Map<String, AttributeValue>>(keys(250))));
+
+        List<BatchGetItemRequest> requests = stub.getRequests(BatchGetItemRequest.class);
+        assertThat(requests, hasSize(3));
+        int total = 0;
+        for (BatchGetItemRequest request : requests) {
+            int size = request.getRequestItems().get("Event").getKeys().size();
+            assertThat(size <= BatchLoader.MAX_KEYS, equalTo(true));
+            total += size;
+        }
+        assertThat(total, equalTo(250));
+    }
+
+    @Test
+    public void unprocessedKeys() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+                List<Map<String, AttributeValue>> keys = request.getRequestItems().get("Event").getKeys();
+                if (keys.size() == 1) {
+                    return new BatchGetItemResult().withResponses(Collections.singletonMap("Event", keys));
+                }
+                // the first key is processed, the others are returned as unprocessed
+                return new BatchGetItemResult()
+                        .withResponses(Collections.singletonMap("Event", keys.subList(0, 1)))
+                        .withUnprocessedKeys(Collections.singletonMap("Event",
+                                new KeysAndAttributes().withKeys(keys.subList(1, keys.size()))));
+            }
+        };
+        BatchLoader loader = new BatchLoader(stub.client(), executor, new Backoff(0, 0, 3), null);
+        List<Map<String, AttributeValue>> items = loader.load("Event", keys(3), null, metrics);
+        assertThat(items, hasSize(3));
+        assertThat(stub.getRequests(BatchGetItemRequest.class), hasSize(3));
+        assertThat(metrics.getPages(), equalTo(3));
+    }
+
+    @Test(expected = AmazonClientException.class)
+    public void unprocessedKeys_exhausted() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+                return new BatchGetItemResult()
+                        .withResponses(Collections.<String, List<Map<String, AttributeValue>>>emptyMap())
+                        .withUnprocessedKeys(request.getRequestItems());
+            }
+        };
+        BatchLoader loader = new BatchLoader(stub.client(), executor, new Backoff(0, 0, 2), null);
+        loader.load("Event", keys(150), null, metrics);
+    }
+
+    private static List<Map<String, AttributeValue>> keys(int count) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<Map<String, AttributeValue>>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+            key.put("deviceId", new AttributeValue().withS("device" + (i % 10)));
+            key.put("time", new AttributeValue().withN(String.valueOf(i)));
+            keys.add(key);
+        }
+        return keys;
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.querydsl.dynamodb.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.dynamodb.domain.QUser;
+
+public class DynamodbExpressionSerializerTest {
+
+    private final QUser user = QUser.user;
+
+    @Test
+    public void eq() {
+        DynamodbExpression expression = serialize(user.firstName.eq("Jaakko"));
+        assertEquals("#n0 = :v0", expression.getExpression());
+        assertEquals("firstName", expression.getNames().get("#n0"));
+        assertEquals(new AttributeValue().withS("Jaakko"), expression.getValues().get(":v0"));
+    }
+
+    @Test
+    public void or() {
+        assertEquals("(#n0 = :v0 OR #n1 > :v1)",
+                serialize(user.firstName.eq("Jaakko").or(user.age.gt(20))).getExpression());
+    }
+
+    @Test
+    public void not() {
+        assertEquals("(NOT (#n0 = :v0 AND #n1 < :v1))",
+                serialize(user.firstName.eq("Jaakko").and(user.age.lt(20)).not()).getExpression());
+    }
+
+    @Test
+    public void sameAttribute() {
+        DynamodbExpression expression = serialize(user.age.lt(20).or(user.age.gt(40)));
+        assertEquals("(#n0 < :v0 OR #n0 > :v1)", expression.getExpression());
+        assertEquals(1, expression.getNames().size());
+    }
+
+    @Test
+    public void in() {
+        assertEquals("#n0 IN (:v0, :v1)", serialize(user.lastName.in(Arrays.asList("a", "b"))).getExpression());
+    }
+
+    @Test
+    public void between() {
+        assertEquals("#n0 BETWEEN :v0 AND :v1", serialize(user.age.between(29, 41)).getExpression());
+    }
+
+    @Test
+    public void startsWith() {
+        assertEquals("begins_with(#n0, :v0)", serialize(user.firstName.startsWith("Jaak")).getExpression());
+    }
+
+    @Test
+    public void exists() {
+        assertEquals("attribute_exists(#n0)", serialize(user.details.isNotNull()).getExpression());
+        assertEquals("attribute_not_exists(#n0)", serialize(user.details.isNull()).getExpression());
+    }
+
+    @Test
+    public void size() {
+        assertEquals("size(#n0) > :v0", serialize(user.details.length().gt(3)).getExpression());
+    }
+
+    @Test
+    public void nested() {
+        StringPath city = Expressions.stringPath(Expressions.path(Object.class, user, "address"), "city");
+        DynamodbExpression expression = serialize(city.eq("Helsinki"));
+        assertEquals("#n0.#n1 = :v0", expression.getExpression());
+        assertEquals("address", expression.getNames().get("#n0"));
+        assertEquals("city", expression.getNames().get("#n1"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void endsWith() {
+        serialize(user.firstName.endsWith("ko"));
+    }
+
+    private DynamodbExpression serialize(Predicate predicate) {
+        return DynamodbExpressionSerializer.DEFAULT.handle(predicate);
+    }
+
+}
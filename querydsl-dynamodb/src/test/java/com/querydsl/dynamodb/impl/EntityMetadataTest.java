@@ -0,0 +1,65 @@
+package com.querydsl.dynamodb.impl;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.dynamodb.domain.Event;
+import com.querydsl.dynamodb.domain.GenderConverter;
+import com.querydsl.dynamodb.domain.QUser;
+import com.querydsl.dynamodb.domain.User;
+
+public class EntityMetadataTest {
+
+    @Test
+    public void user() {
+        EntityMetadata metadata = EntityMetadata.get(User.class);
+        assertThat(metadata, sameInstance(EntityMetadata.get(User.class)));
+        assertThat(metadata.getTableName(), equalTo("User"));
+        assertThat(metadata.getHashKey(), equalTo("id"));
+        // multiple range keys are ambiguous
+        assertThat(metadata.getRangeKey(), nullValue());
+        assertThat(metadata.getAttributeName("details"), equalTo("details"));
+        assertThat(metadata.getMarshaller("gender"), instanceOf(GenderConverter.class));
+        assertThat(metadata.getMarshaller("firstName"), nullValue());
+    }
+
+    @Test
+    public void descriptor() {
+        EntityMetadata metadata = EntityMetadata.get(QUser.user);
+        assertThat(metadata.getHashKey(), equalTo("id"));
+        assertThat(metadata.getMarshaller("gender"), instanceOf(GenderConverter.class));
+
+        Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+        item.put("id", new AttributeValue().withS("1"));
+        item.put("firstName", new AttributeValue().withS("Jaakko"));
+        item.put("age", new AttributeValue().withN("20"));
+        item.put("gender", new AttributeValue().withS("MALE"));
+        User user = (User) metadata.unmarshall(item);
+        assertThat(user.getId(), equalTo("1"));
+        assertThat(user.getFirstName(), equalTo("Jaakko"));
+        assertThat(user.getAge(), equalTo(20));
+        assertThat(user.getGender(), equalTo(User.Gender.MALE));
+    }
+
+    @Test
+    public void pathBuilder() {
+        EntityMetadata users = EntityMetadata.get(new PathBuilder<User>(User.class, "user"));
+        EntityMetadata events = EntityMetadata.get(new PathBuilder<Event>(Event.class, "event"));
+        assertThat(users.getTableName(), equalTo("User"));
+        assertThat(events.getTableName(), equalTo("Event"));
+        assertThat(events.getRangeKey(), equalTo("time"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notATable() {
+        EntityMetadata.get(String.class).getTableName();
+    }
+
+}
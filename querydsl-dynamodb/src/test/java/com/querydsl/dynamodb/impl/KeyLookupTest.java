@@ -0,0 +1,73 @@
+package com.querydsl.dynamodb.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.querydsl.dynamodb.domain.Event;
+import com.querydsl.dynamodb.domain.Measurement;
+import com.querydsl.dynamodb.domain.QEvent;
+import com.querydsl.dynamodb.domain.QMeasurement;
+import com.querydsl.dynamodb.domain.QUser;
+import com.querydsl.dynamodb.domain.User;
+
+public class KeyLookupTest {
+
+    private final QEvent event = QEvent.event;
+
+    private final QUser user = QUser.user;
+
+    private final QMeasurement measurement = QMeasurement.measurement;
+
+    @Test
+    public void fullKey() {
+        List<Map<String, AttributeValue>> keys = KeyLookup.getKeys(Event.class,
+                event.deviceId.in("a", "b", "a").and(event.time.eq(1L)), DynamodbSerializer.DEFAULT);
+        assertThat(keys, hasSize(2));
+        assertThat(keys.get(0).get("deviceId").getS(), equalTo("a"));
+        assertThat(keys.get(0).get("time").getN(), equalTo("1"));
+        assertThat(keys.get(1).get("deviceId").getS(), equalTo("b"));
+    }
+
+    @Test
+    public void crossProduct() {
+        List<Map<String, AttributeValue>> keys = KeyLookup.getKeys(Event.class,
+                event.deviceId.in("a", "b").and(event.time.in(1L, 2L, 3L)), DynamodbSerializer.DEFAULT);
+        assertThat(keys, hasSize(6));
+    }
+
+    @Test
+    public void shardedHashKey() {
+        List<Map<String, AttributeValue>> keys = KeyLookup.getKeys(Measurement.class,
+                measurement.sensor.eq("s").and(measurement.time.eq(4L)), DynamodbSerializer.DEFAULT);
+        assertThat(keys, hasSize(3));
+        assertThat(keys.get(0).get("sensor").getS(), equalTo("s#0"));
+        assertThat(keys.get(2).get("sensor").getS(), equalTo("s#2"));
+    }
+
+    @Test
+    public void partialKey() {
+        assertThat(KeyLookup.getKeys(Event.class, event.deviceId.eq("a"), DynamodbSerializer.DEFAULT),
+                nullValue());
+    }
+
+    @Test
+    public void otherCondition() {
+        assertThat(KeyLookup.getKeys(Event.class,
+                event.deviceId.eq("a").and(event.time.eq(1L)).and(event.reading.eq(5)),
+                DynamodbSerializer.DEFAULT), nullValue());
+    }
+
+    @Test
+    public void ambiguousRangeKey() {
+        assertThat(KeyLookup.getKeys(User.class, user.id.eq("1"), DynamodbSerializer.DEFAULT), nullValue());
+    }
+
+}
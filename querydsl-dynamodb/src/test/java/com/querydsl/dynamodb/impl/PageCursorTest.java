@@ -0,0 +1,48 @@
+package com.querydsl.dynamodb.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+public class PageCursorTest {
+
+    @Test
+    public void roundTrip() {
+        Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+        key.put("id", new AttributeValue().withS("abc"));
+        key.put("created", new AttributeValue().withN("42"));
+        key.put("hash", new AttributeValue().withB(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+        List<Map<String, AttributeValue>> startKeys = PageCursor.start(3);
+        startKeys.set(1, key);
+        startKeys.set(2, PageCursor.next(null));
+
+        String cursor = PageCursor.encode(startKeys);
+        assertThat(PageCursor.decode(cursor, 3), equalTo(startKeys));
+    }
+
+    @Test
+    public void finished() {
+        assertThat(PageCursor.encode(Collections.singletonList(PageCursor.next(null))), nullValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void segmentMismatch() {
+        PageCursor.decode(PageCursor.encode(PageCursor.start(2)), 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalid() {
+        PageCursor.decode("not a cursor", 1);
+    }
+
+}
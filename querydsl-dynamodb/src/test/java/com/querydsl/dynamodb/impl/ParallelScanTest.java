@@ -0,0 +1,80 @@
+package com.querydsl.dynamodb.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.querydsl.dynamodb.DynamoDBQueryListener;
+import com.querydsl.dynamodb.DynamoDBQueryMetrics;
+import com.querydsl.dynamodb.DynamoDBStub;
+
+public class ParallelScanTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private final DynamoDBQueryMetrics metrics = new DynamoDBQueryMetrics("Scan", "Event",
+            Collections.<DynamoDBQueryListener>emptyList());
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void segments() {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                Map<String, AttributeValue> item = Collections.singletonMap("deviceId",
+                        new AttributeValue("device" + request.getSegment()));
+                // an empty last evaluated key ends the segment
+                return new ScanResult().withItems(Collections.singletonList(item)).withCount(1)
+                        .withLastEvaluatedKey(Collections.<String, AttributeValue>emptyMap());
+            }
+        };
+        ParallelScan scan = new ParallelScan(stub.client(), new ScanRequest("Event"), 3, executor, null, metrics);
+        int pages = 0;
+        while (scan.nextPage() != null) {
+            pages++;
+        }
+        assertThat(pages, equalTo(3));
+        assertThat(stub.getRequests(ScanRequest.class), hasSize(3));
+        assertThat(scan.nextPage(), nullValue());
+    }
+
+    @Test
+    public void close() throws InterruptedException {
+        DynamoDBStub stub = new DynamoDBStub() {
+            @Override
+            public ScanResult scan(ScanRequest request) {
+                // the client may swallow the interruption of a cancelled reader
+                Thread.interrupted();
+                Map<String, AttributeValue> key = Collections.singletonMap("deviceId", new AttributeValue("a"));
+                return new ScanResult().withItems(Collections.singletonList(key)).withCount(1)
+                        .withLastEvaluatedKey(key);
+            }
+        };
+        ParallelScan scan = new ParallelScan(stub.client(), new ScanRequest("Event"), 2, executor, null, metrics);
+        List<Map<String, AttributeValue>> page = scan.nextPage();
+        assertThat(page, hasSize(1));
+        scan.close();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+}
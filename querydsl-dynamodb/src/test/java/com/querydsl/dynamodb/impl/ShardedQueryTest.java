@@ -0,0 +1,90 @@
+package com.querydsl.dynamodb.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.model.*;
+import com.querydsl.dynamodb.DynamoDBQueryListener;
+import com.querydsl.dynamodb.DynamoDBQueryMetrics;
+import com.querydsl.dynamodb.ShardStub;
+
+public class ShardedQueryTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    private final DynamoDBQueryMetrics metrics = new DynamoDBQueryMetrics("Query", "Measurement",
+            Collections.<DynamoDBQueryListener>emptyList());
+
+    private final ShardStub stub = new ShardStub();
+
+    private final ShardedQuery query = new ShardedQuery(stub.client(), executor, null);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shardValues() {
+        assertThat(ShardedQuery.getShardValues("s", 3, "#"), contains("s#0", "s#1", "s#2"));
+        assertThat(ShardedQuery.getShardValues(5, 2, "-"), contains("5-0", "5-1"));
+    }
+
+    @Test
+    public void ascending() {
+        assertThat(times(query.iterate(requests(true), "time", true, metrics)),
+                contains(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L));
+    }
+
+    @Test
+    public void descending() {
+        assertThat(times(query.iterate(requests(false), "time", false, metrics)),
+                contains(8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L, 0L));
+    }
+
+    @Test
+    public void unordered() {
+        assertThat(times(query.iterate(requests(true), null, true, metrics)),
+                containsInAnyOrder(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L));
+    }
+
+    @Test
+    public void count() {
+        List<QueryRequest> requests = requests(true);
+        for (QueryRequest request : requests) {
+            request.setSelect(Select.COUNT);
+        }
+        assertThat(query.count(requests, metrics), equalTo((long) ShardStub.ITEMS));
+        // two pages per shard
+        assertThat(stub.getRequests(QueryRequest.class), hasSize(6));
+    }
+
+    private static List<QueryRequest> requests(boolean ascending) {
+        List<QueryRequest> requests = new ArrayList<QueryRequest>();
+        for (String value : ShardedQuery.getShardValues("s", 3, "#")) {
+            requests.add(new QueryRequest("Measurement").withScanIndexForward(ascending)
+                    .addKeyConditionsEntry("sensor", new Condition().withComparisonOperator(ComparisonOperator.EQ)
+                            .withAttributeValueList(new AttributeValue(value))));
+        }
+        return requests;
+    }
+
+    private static List<Long> times(Iterator<Map<String, AttributeValue>> items) {
+        List<Long> times = new ArrayList<Long>();
+        while (items.hasNext()) {
+            times.add(Long.valueOf(items.next().get("time").getN()));
+        }
+        return times;
+    }
+
+}
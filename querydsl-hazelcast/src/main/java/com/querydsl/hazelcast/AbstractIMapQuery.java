@@ -1,26 +1,35 @@
 package com.querydsl.hazelcast;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
 import javax.annotation.Nullable;
 
+import com.hazelcast.core.IExecutorService;
+import com.hazelcast.core.IMap;
+import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.PredicateBuilder;
 import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.*;
 import com.querydsl.core.support.QueryMixin;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.ParamExpression;
 import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QTuple;
+import com.querydsl.hazelcast.impl.Aggregation;
+import com.querydsl.hazelcast.impl.AggregationTask;
+import com.querydsl.hazelcast.impl.EntryComparator;
 import com.querydsl.hazelcast.impl.HazelcastSerializer;
 
 /**
  *
  * {@code AbstractIMapQuery} is the base class for Hazelcast queries
  *
+ * <p>Limit, offset and order are evaluated in the cluster with a {@link PagingPredicate}, so each member
+ * returns at most offset + limit entries.</p>
+ *
  * @param <Q> result type
  */
 public abstract class AbstractIMapQuery<Q> implements SimpleQuery<AbstractIMapQuery<Q>>, Fetchable<Q> {
@@ -29,6 +38,12 @@ public abstract class AbstractIMapQuery<Q> implements SimpleQuery<AbstractIMapQu
 
     protected final QueryMixin<AbstractIMapQuery<Q>> queryMixin;
 
+    @Nullable
+    protected IExecutorService executor;
+
+    @Nullable
+    protected IndexAdvisor indexAdvisor;
+
     public AbstractIMapQuery() {
         super();
         this.queryMixin = new QueryMixin<AbstractIMapQuery<Q>>(this,
@@ -41,9 +56,55 @@ public abstract class AbstractIMapQuery<Q> implements SimpleQuery<AbstractIMapQu
         return queryMixin.where(e);
     }
 
+    /**
+     * Set the executor service used to evaluate parts of the query on the members, such as counts
+     *
+     * @param executor executor service
+     * @return the current object
+     */
+    public AbstractIMapQuery<Q> executor(IExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Set the advisor recording the attributes used by the predicates of this query
+     *
+     * @param indexAdvisor index advisor
+     * @return the current object
+     */
+    public AbstractIMapQuery<Q> indexAdvisor(IndexAdvisor indexAdvisor) {
+        this.indexAdvisor = indexAdvisor;
+        return this;
+    }
+
+    /**
+     * Get the queried map, subclasses which don't expose it can't record index usages or aggregate
+     *
+     * @return map or null
+     */
+    @Nullable
+    protected IMap<?, ?> getMap() {
+        return null;
+    }
+
+    /**
+     * Record the attributes used by the predicate of the given query, called once by every public
+     * execution method
+     *
+     * @param metadata query metadata
+     */
+    protected void recordUsage(QueryMetadata metadata) {
+        IMap<?, ?> map = indexAdvisor != null && metadata.getWhere() != null ? getMap() : null;
+        if (map != null) {
+            indexAdvisor.record(map, metadata.getWhere());
+        }
+    }
+
     @Override
     public CloseableIterator<Q> iterate() {
-        final Iterator<? extends Q> iterator = query().iterator();
+        recordUsage(queryMixin.getMetadata());
+        final Iterator<? extends Q> iterator = query(queryMixin.getMetadata()).iterator();
         return new CloseableIterator<Q>() {
             @Override
             public boolean hasNext() {
@@ -66,13 +127,84 @@ public abstract class AbstractIMapQuery<Q> implements SimpleQuery<AbstractIMapQu
         };
     }
 
-    private Collection<Q> query() {
-        Predicate<?, Q> query = createQuery(queryMixin.getMetadata());
-        return query(query);
+    /**
+     * Evaluate the given query
+     *
+     * @param metadata query metadata
+     * @return results
+     */
+    @SuppressWarnings("unchecked")
+    protected Collection<Q> query(QueryMetadata metadata) {
+        Predicate<?, Q> query = createQuery(metadata);
+        QueryModifiers modifiers = metadata.getModifiers();
+        if (!modifiers.isRestricting() && metadata.getOrderBy().isEmpty()) {
+            return query(query);
+        }
+        if (modifiers.getLimit() != null && modifiers.getLimit() == 0L) {
+            return Collections.emptyList();
+        }
+        // every member returns only its first offset + limit entries, which are merged by the caller
+        long offset = modifiers.getOffset() != null ? modifiers.getOffset() : 0L;
+        int maxResults = getMaxResults(modifiers);
+        EntryComparator comparator = new EntryComparator(metadata.getOrderBy(), serializer);
+        int size = maxResults >= 0 ? maxResults : Integer.MAX_VALUE;
+        Collection<Q> page = query(metadata.getWhere() != null
+                ? new PagingPredicate(query, comparator, size) : new PagingPredicate(comparator, size));
+        if (offset == 0L) {
+            return page;
+        }
+        List<Q> results = new ArrayList<Q>(page);
+        return results.subList((int) Math.min(offset, results.size()), results.size());
+    }
+
+    /**
+     * Get the number of results needed for the given modifiers
+     *
+     * @param modifiers modifiers
+     * @return offset + limit, clamped to {@link Integer#MAX_VALUE}, or -1 if unlimited
+     */
+    protected static int getMaxResults(QueryModifiers modifiers) {
+        if (modifiers.getLimit() == null) {
+            return -1;
+        }
+        long offset = modifiers.getOffset() != null ? modifiers.getOffset() : 0L;
+        return (int) Math.min(Math.min(offset, Integer.MAX_VALUE) + Math.min(modifiers.getLimit(), Integer.MAX_VALUE),
+                Integer.MAX_VALUE);
     }
 
     protected abstract Collection<Q> query(Predicate<?, Q> query);
 
+    /**
+     * Count the results of the given query
+     *
+     * @param metadata query metadata
+     * @return count
+     */
+    @SuppressWarnings("unchecked")
+    protected long count(QueryMetadata metadata) {
+        com.querydsl.core.types.Predicate where = metadata.getWhere();
+        return count(where != null ? serializer.handle(where) : null);
+    }
+
+    /**
+     * Count the entries matching the given predicate
+     *
+     * @param query predicate or null, to count all entries
+     * @return count
+     */
+    protected long count(@Nullable Predicate<?, Q> query) {
+        return query(query != null ? query : createQuery(queryMixin.getMetadata())).size();
+    }
+
+    /**
+     * Fetch the results with the given paths as projection
+     *
+     * <p>The entire values are returned, see {@link IMapValueQuery#fetch(FactoryExpression)} for
+     * projections which only transfer the values of the paths.</p>
+     *
+     * @param paths projection
+     * @return results
+     */
     public List<Q> fetch(Path<?>... paths) {
         queryMixin.setProjection(paths);
         return fetch();
@@ -80,7 +212,8 @@ public abstract class AbstractIMapQuery<Q> implements SimpleQuery<AbstractIMapQu
 
     @Override
     public List<Q> fetch() {
-        return new ArrayList<Q>(query());
+        recordUsage(queryMixin.getMetadata());
+        return new ArrayList<Q>(query(queryMixin.getMetadata()));
     }
 
     @SuppressWarnings("unchecked")
@@ -92,6 +225,78 @@ public abstract class AbstractIMapQuery<Q> implements SimpleQuery<AbstractIMapQu
         }
     }
 
+    /**
+     * Compute the given aggregates over all results
+     *
+     * <p>With an executor service every member aggregates its local entries and only the partial
+     * aggregates are transferred, otherwise the entries are aggregated by the caller. Supported are
+     * {@code count()}, {@code sum()}, {@code avg()}, {@code min()} and {@code max()} of numeric attributes
+     * and {@code Wildcard.count}.</p>
+     *
+     * <pre>
+     * Tuple stats = query.where(order.state.eq("PAID")).aggregate(Wildcard.count, order.total.sum());
+     * </pre>
+     *
+     * @param aggregates aggregate expressions
+     * @return aggregates in the given order
+     */
+    public Tuple aggregate(Expression<?>... aggregates) {
+        Aggregation aggregation = new Aggregation(null, Arrays.asList(aggregates), serializer);
+        return Projections.tuple(aggregates).newInstance(aggregation.getValues(aggregate(aggregation).get(null)));
+    }
+
+    /**
+     * Compute the given aggregates per value of the given attribute
+     *
+     * @param groupBy attribute to group by
+     * @param aggregates aggregate expressions
+     * @param <K> group type
+     * @return aggregates by group
+     * @see #aggregate(Expression[])
+     */
+    @SuppressWarnings("unchecked")
+    public <K> Map<K, Tuple> aggregate(Path<K> groupBy, Expression<?>... aggregates) {
+        Aggregation aggregation = new Aggregation(groupBy, Arrays.asList(aggregates), serializer);
+        QTuple projection = Projections.tuple(aggregates);
+        Map<K, Tuple> results = new HashMap<K, Tuple>();
+        for (Map.Entry<Object, Aggregation.Accumulator> entry : aggregate(aggregation).entrySet()) {
+            results.put((K) entry.getKey(), projection.newInstance(aggregation.getValues(entry.getValue())));
+        }
+        return results;
+    }
+
+    private Map<Object, Aggregation.Accumulator> aggregate(Aggregation aggregation) {
+        QueryMetadata metadata = queryMixin.getMetadata();
+        recordUsage(metadata);
+        Predicate<?, ?> predicate = metadata.getWhere() != null ? serializer.handle(metadata.getWhere()) : null;
+        IMap<?, ?> map = getMap();
+        if (map == null) {
+            throw new UnsupportedOperationException("Aggregates need the queried map");
+        }
+        return aggregate(map, predicate, aggregation);
+    }
+
+    /**
+     * Aggregate the entries of the given map which match the predicate, on the members if an executor
+     * service is set
+     *
+     * @param map queried map
+     * @param predicate predicate or null, to aggregate all entries
+     * @param aggregation aggregation
+     * @return accumulators by group value
+     */
+    protected Map<Object, Aggregation.Accumulator> aggregate(IMap<?, ?> map, @Nullable Predicate<?, ?> predicate,
+            Aggregation aggregation) {
+        if (executor != null) {
+            return AggregationTask.aggregate(executor, map.getName(), predicate, aggregation);
+        }
+        Map<Object, Aggregation.Accumulator> groups = new HashMap<Object, Aggregation.Accumulator>();
+        for (Map.Entry<?, ?> entry : predicate != null ? map.entrySet(predicate) : map.entrySet()) {
+            aggregation.add(groups, entry);
+        }
+        return groups;
+    }
+
     @Override
     public Q fetchFirst() {
         return limit(1).fetchOne();
@@ -111,11 +316,18 @@ public abstract class AbstractIMapQuery<Q> implements SimpleQuery<AbstractIMapQu
         return result.get(0);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The total is counted without transferring the values and only the requested page is fetched.</p>
+     */
     @Override
     public QueryResults<Q> fetchResults() {
-        long total = fetchCount();
+        QueryMetadata metadata = queryMixin.getMetadata();
+        recordUsage(metadata);
+        long total = count(metadata);
         if (total > 0L) {
-            return new QueryResults<Q>(fetch(), queryMixin.getMetadata().getModifiers(), total);
+            return new QueryResults<Q>(new ArrayList<Q>(query(metadata)), metadata.getModifiers(), total);
         } else {
             return QueryResults.emptyResults();
         }
@@ -123,7 +335,8 @@ public abstract class AbstractIMapQuery<Q> implements SimpleQuery<AbstractIMapQu
 
     @Override
     public long fetchCount() {
-        return query().size();
+        recordUsage(queryMixin.getMetadata());
+        return count(queryMixin.getMetadata());
     }
 
     @Override
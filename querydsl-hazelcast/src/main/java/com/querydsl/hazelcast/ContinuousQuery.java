@@ -0,0 +1,268 @@
+package com.querydsl.hazelcast;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.Nullable;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryListener;
+import com.hazelcast.core.IMap;
+import com.hazelcast.query.Predicate;
+import com.querydsl.hazelcast.impl.EntryMatcher;
+import com.querydsl.hazelcast.impl.HazelcastSerializer;
+
+/**
+ * ContinuousQuery keeps the results of a query on an {@link IMap} up to date in local memory
+ *
+ * <p>Added and updated entries are received with an entry listener filtered by the predicate of the
+ * query. Hazelcast evaluates that filter against the new value only, so a second listener without values
+ * receives the changes of the cached keys, which are read again to find out whether they still
+ * match. The events are applied in order by a thread of the query, so the event threads of Hazelcast
+ * are never blocked by these reads. Events received while the initial results are loaded are applied
+ * afterwards.</p>
+ *
+ * <pre>
+ * ContinuousQuery&lt;User&gt; active = new IMapValueQuery&lt;User&gt;(map).where(user.active.isTrue()).continuous();
+ * active.getResults(); // served from local memory
+ * active.close();
+ * </pre>
+ *
+ * @param <Q> result type
+ * @author velo
+ */
+public class ContinuousQuery<Q> implements Closeable {
+
+    /**
+     * ChangeListener is notified about the changes of the results
+     *
+     * @param <Q> result type
+     */
+    public interface ChangeListener<Q> {
+
+        void added(Object key, Q value);
+
+        void updated(Object key, Q oldValue, Q value);
+
+        void removed(Object key, Q value);
+
+    }
+
+    private final IMap<Object, Q> map;
+
+    @Nullable
+    private final com.querydsl.core.types.Predicate where;
+
+    private final EntryMatcher matcher;
+
+    private final Map<Object, Q> results = new ConcurrentHashMap<Object, Q>();
+
+    private final List<ChangeListener<Q>> listeners = new CopyOnWriteArrayList<ChangeListener<Q>>();
+
+    private final List<Runnable> buffered = new ArrayList<Runnable>();
+
+    @Nullable
+    private String matchingListener, keyListener;
+
+    private final ExecutorService events = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("continuous-query-%d").setDaemon(true).build());
+
+    private volatile boolean loading = true;
+
+    @SuppressWarnings("unchecked")
+    ContinuousQuery(IMap<Object, Q> map, @Nullable com.querydsl.core.types.Predicate where,
+            HazelcastSerializer serializer) {
+        this.map = map;
+        this.where = where;
+        this.matcher = new EntryMatcher(serializer);
+        Predicate<Object, Q> predicate = where != null ? serializer.handle(where) : null;
+        EntryListener<Object, Q> matching = new Listener() {
+            @Override
+            public void entryAdded(EntryEvent<Object, Q> event) {
+                put(event.getKey(), event.getValue());
+            }
+
+            @Override
+            public void entryUpdated(EntryEvent<Object, Q> event) {
+                put(event.getKey(), event.getValue());
+            }
+        };
+        EntryListener<Object, Q> keys = new Listener() {
+            @Override
+            public void entryUpdated(EntryEvent<Object, Q> event) {
+                verify(event.getKey());
+            }
+
+            @Override
+            public void entryRemoved(EntryEvent<Object, Q> event) {
+                remove(event.getKey());
+            }
+
+            @Override
+            public void entryEvicted(EntryEvent<Object, Q> event) {
+                remove(event.getKey());
+            }
+        };
+        try {
+            this.matchingListener = predicate != null
+                    ? map.addEntryListener(matching, predicate, true) : map.addEntryListener(matching, true);
+            this.keyListener = map.addEntryListener(keys, false);
+            Set<Map.Entry<Object, Q>> snapshot = predicate != null ? map.entrySet(predicate) : map.entrySet();
+            synchronized (this) {
+                for (Map.Entry<Object, Q> entry : snapshot) {
+                    apply(entry.getKey(), entry.getValue());
+                }
+                for (Runnable event : buffered) {
+                    event.run();
+                }
+                buffered.clear();
+                loading = false;
+            }
+        } catch (RuntimeException e) {
+            // don't leak the listeners and the event thread of a query which is never returned
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Add a listener to be notified about the changes of the results
+     *
+     * @param listener listener
+     * @return the current object
+     */
+    public ContinuousQuery<Q> addListener(ChangeListener<Q> listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Get the current results
+     *
+     * @return results
+     */
+    public List<Q> getResults() {
+        return new ArrayList<Q>(results.values());
+    }
+
+    /**
+     * Get the current results by key
+     *
+     * @return unmodifiable view of the results
+     */
+    public Map<Object, Q> asMap() {
+        return Collections.unmodifiableMap(results);
+    }
+
+    private void put(final Object key, final Q value) {
+        event(new Runnable() {
+            @Override
+            public void run() {
+                apply(key, value);
+            }
+        });
+    }
+
+    private void verify(final Object key) {
+        event(new Runnable() {
+            @Override
+            public void run() {
+                // checked in order with the events before, which may have added the key
+                if (!results.containsKey(key) && !loading) {
+                    return;
+                }
+                Q value = map.get(key);
+                // entries without the attributes of a not equal condition still match, like on the members
+                if (value != null && (where == null
+                        || matcher.matches(where, new AbstractMap.SimpleImmutableEntry<Object, Q>(key, value)))) {
+                    apply(key, value);
+                } else {
+                    apply(key, null);
+                }
+            }
+        });
+    }
+
+    private void remove(final Object key) {
+        event(new Runnable() {
+            @Override
+            public void run() {
+                apply(key, null);
+            }
+        });
+    }
+
+    private void event(final Runnable event) {
+        try {
+            events.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (ContinuousQuery.this) {
+                        if (loading) {
+                            buffered.add(event);
+                            return;
+                        }
+                    }
+                    event.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // closed
+        }
+    }
+
+    private void apply(Object key, @Nullable Q value) {
+        Q old = value != null ? results.put(key, value) : results.remove(key);
+        for (ChangeListener<Q> listener : listeners) {
+            if (value == null) {
+                if (old != null) {
+                    listener.removed(key, old);
+                }
+            } else if (old == null) {
+                listener.added(key, value);
+            } else {
+                listener.updated(key, old, value);
+            }
+        }
+    }
+
+    /**
+     * Stop receiving changes
+     */
+    @Override
+    public void close() {
+        if (matchingListener != null) {
+            map.removeEntryListener(matchingListener);
+        }
+        if (keyListener != null) {
+            map.removeEntryListener(keyListener);
+        }
+        events.shutdownNow();
+    }
+
+    /**
+     * Listener ignores all events which are not overridden
+     */
+    private class Listener implements EntryListener<Object, Q> {
+
+        @Override
+        public void entryAdded(EntryEvent<Object, Q> event) { }
+
+        @Override
+        public void entryRemoved(EntryEvent<Object, Q> event) { }
+
+        @Override
+        public void entryUpdated(EntryEvent<Object, Q> event) { }
+
+        @Override
+        public void entryEvicted(EntryEvent<Object, Q> event) { }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.querydsl.hazelcast;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.SimplePath;
+import com.querydsl.hazelcast.impl.Attributes;
+
+/**
+ * HazelcastExpressions provides expressions specific to Hazelcast maps
+ *
+ * @author velo
+ */
+public final class HazelcastExpressions {
+
+    private HazelcastExpressions() { }
+
+    /**
+     * Create a path for the key of the map entries of the given entity
+     *
+     * <p>Predicates which pin the key with {@code eq} or {@code in} are read with {@code IMap.getAll}
+     * instead of being evaluated on all members.</p>
+     *
+     * <pre>
+     * query.where(HazelcastExpressions.key(user, String.class).eq(id))
+     * </pre>
+     *
+     * @param entity entity path
+     * @param type key type
+     * @param <K> key type
+     * @return key path
+     */
+    public static <K> SimplePath<K> key(Path<?> entity, Class<K> type) {
+        return Expressions.path(type, entity, Attributes.KEY);
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.querydsl.hazelcast;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.hazelcast.core.IMap;
+import com.querydsl.core.dml.DeleteClause;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.hazelcast.impl.DeleteProcessor;
+import com.querydsl.hazelcast.impl.HazelcastSerializer;
+
+/**
+ * IMapDeleteClause is the implementation of the {@link DeleteClause} for Hazelcast
+ *
+ * <p>The matching entries are removed with an entry processor on the members owning them.</p>
+ *
+ * <pre>
+ * new IMapDeleteClause(map).where(user.age.lt(18)).execute();
+ * </pre>
+ *
+ * @author velo
+ */
+public class IMapDeleteClause implements DeleteClause<IMapDeleteClause> {
+
+    private final IMap<?, ?> map;
+
+    private final HazelcastSerializer serializer = HazelcastSerializer.DEFAULT;
+
+    @Nullable
+    private Predicate where;
+
+    public IMapDeleteClause(IMap<?, ?> map) {
+        this.map = map;
+    }
+
+    @Override
+    public IMapDeleteClause where(Predicate... o) {
+        for (Predicate predicate : o) {
+            where = ExpressionUtils.and(where, predicate);
+        }
+        return this;
+    }
+
+    @Override
+    public long execute() {
+        DeleteProcessor processor = new DeleteProcessor();
+        Map<?, Object> results = where != null
+                ? map.executeOnEntries(processor, serializer.handle(where)) : map.executeOnEntries(processor);
+        return results.size();
+    }
+
+    @Override
+    public String toString() {
+        return "delete " + map.getName() + (where != null ? " where " + where : "");
+    }
+
+}
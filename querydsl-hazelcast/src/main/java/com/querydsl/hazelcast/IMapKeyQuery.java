@@ -2,9 +2,12 @@ package com.querydsl.hazelcast;
 
 import java.util.Collection;
 
+import javax.annotation.Nullable;
+
 import com.hazelcast.core.IMap;
 import com.hazelcast.query.Predicate;
 import com.querydsl.core.SimpleQuery;
+import com.querydsl.hazelcast.impl.CountTask;
 
 /**
  * IMapKeyQuery is the implementation of the {@link SimpleQuery} for Hazelcast {@link IMap#keySet(Predicate)}
@@ -21,9 +24,23 @@ public class IMapKeyQuery<Q> extends AbstractIMapQuery<Q>   {
         this.map = map;
     }
 
+    @Override
+    protected IMap<?, ?> getMap() {
+        return map;
+    }
+
     @Override
     protected Collection<Q> query(Predicate<?, Q> query) {
         return map.keySet(query);
     }
 
+    @Override
+    protected long count(@Nullable Predicate<?, Q> query) {
+        if (executor != null) {
+            return CountTask.count(executor, map.getName(), query);
+        }
+        // keys only, the values are not transferred
+        return (query != null ? map.keySet(query) : map.keySet()).size();
+    }
+
 }
@@ -1,10 +1,15 @@
 package com.querydsl.hazelcast;
 
 import java.util.Collection;
+import java.util.Map;
+
+import javax.annotation.Nullable;
 
 import com.hazelcast.core.IMap;
 import com.hazelcast.query.Predicate;
 import com.querydsl.core.SimpleQuery;
+import com.querydsl.hazelcast.impl.Aggregation;
+import com.querydsl.hazelcast.impl.AggregationTask;
 
 /**
  * IMapLocalKeyQuery is the implementation of the {@link SimpleQuery} for Hazelcast {@link IMap#localKeySet(Predicate)}
@@ -22,9 +27,30 @@ public class IMapLocalKeyQuery<Q> extends AbstractIMapQuery<Q> {
         this.map = map;
     }
 
+    @Override
+    protected IMap<?, ?> getMap() {
+        return map;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only the entries owned by the local member are aggregated, also when an executor service is set.</p>
+     */
+    @Override
+    protected Map<Object, Aggregation.Accumulator> aggregate(IMap<?, ?> map, @Nullable Predicate<?, ?> predicate,
+            Aggregation aggregation) {
+        return AggregationTask.aggregateLocal(map, predicate, aggregation);
+    }
+
     @Override
     protected Collection<Q> query(Predicate<?, Q> query) {
         return map.localKeySet(query);
     }
 
+    @Override
+    protected long count(@Nullable Predicate<?, Q> query) {
+        return (query != null ? map.localKeySet(query) : map.localKeySet()).size();
+    }
+
 }
@@ -0,0 +1,107 @@
+package com.querydsl.hazelcast;
+
+import java.util.*;
+
+import javax.annotation.Nullable;
+
+import com.hazelcast.core.IMap;
+import com.querydsl.core.dml.UpdateClause;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.hazelcast.impl.HazelcastSerializer;
+import com.querydsl.hazelcast.impl.UpdateProcessor;
+
+/**
+ * IMapUpdateClause is the implementation of the {@link UpdateClause} for Hazelcast
+ *
+ * <p>The changes are applied with an entry processor on the members owning the matching entries,
+ * so neither the keys nor the values are transferred to the caller.</p>
+ *
+ * <pre>
+ * new IMapUpdateClause(map).where(user.age.lt(18)).set(user.details, "minor").execute();
+ * </pre>
+ *
+ * @author velo
+ */
+public class IMapUpdateClause implements UpdateClause<IMapUpdateClause> {
+
+    private final IMap<?, ?> map;
+
+    private final HazelcastSerializer serializer = HazelcastSerializer.DEFAULT;
+
+    private final Map<Path<?>, Object> updates = new LinkedHashMap<Path<?>, Object>();
+
+    @Nullable
+    private Predicate where;
+
+    public IMapUpdateClause(IMap<?, ?> map) {
+        this.map = map;
+    }
+
+    @Override
+    public <T> IMapUpdateClause set(Path<T> path, @Nullable T value) {
+        updates.put(path, value);
+        return this;
+    }
+
+    @Override
+    public <T> IMapUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+        if (!(expression instanceof Constant)) {
+            throw new UnsupportedOperationException("Only constants are supported: " + expression);
+        }
+        updates.put(path, ((Constant<?>) expression).getConstant());
+        return this;
+    }
+
+    @Override
+    public <T> IMapUpdateClause setNull(Path<T> path) {
+        updates.put(path, null);
+        return this;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Override
+    public IMapUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+        for (int i = 0; i < paths.size(); i++) {
+            set((Path) paths.get(i), values.get(i));
+        }
+        return this;
+    }
+
+    @Override
+    public IMapUpdateClause where(Predicate... o) {
+        for (Predicate predicate : o) {
+            where = ExpressionUtils.and(where, predicate);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return updates.isEmpty();
+    }
+
+    @Override
+    public long execute() {
+        if (isEmpty()) {
+            return 0;
+        }
+        List<String> attributes = new ArrayList<String>(updates.size());
+        for (Path<?> path : updates.keySet()) {
+            attributes.add((String) path.accept(serializer, null));
+        }
+        UpdateProcessor processor = new UpdateProcessor(attributes, new ArrayList<Object>(updates.values()));
+        Map<?, Object> results = where != null
+                ? map.executeOnEntries(processor, serializer.handle(where)) : map.executeOnEntries(processor);
+        return results.size();
+    }
+
+    @Override
+    public String toString() {
+        return "update " + map.getName() + (where != null ? " where " + where : "");
+    }
+
+}
@@ -1,14 +1,34 @@
 package com.querydsl.hazelcast;
 
-import java.util.Collection;
+import java.util.*;
+
+import javax.annotation.Nullable;
 
 import com.hazelcast.core.IMap;
 import com.hazelcast.query.Predicate;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
 import com.querydsl.core.SimpleQuery;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Projections;
+import com.querydsl.hazelcast.impl.Attributes;
+import com.querydsl.hazelcast.impl.CountTask;
+import com.querydsl.hazelcast.impl.EntryComparator;
+import com.querydsl.hazelcast.impl.EntryMatcher;
+import com.querydsl.hazelcast.impl.KeyLookup;
+import com.querydsl.hazelcast.impl.PagingIterator;
+import com.querydsl.hazelcast.impl.ProjectionTask;
 
 /**
  * IMapValueQuery is the implementation of the {@link SimpleQuery} for Hazelcast {@link IMap#values(Predicate)}
  *
+ * <p>Predicates which pin the key with {@link HazelcastExpressions#key} are read with {@link IMap#getAll(Set)}
+ * from the owning partitions, the remaining conditions are evaluated on the returned entries.</p>
+ *
  * @param <Q> result type
  *
  * @see IMap
@@ -16,10 +36,181 @@ import com.querydsl.core.SimpleQuery;
  */
 public class IMapValueQuery<Q> extends AbstractIMapQuery<Q> {
 
-    private IMap<?, Q> map;
+    public static final int DEFAULT_PREFETCH = 100;
+
+    private IMap<Object, Q> map;
+
+    private int prefetch = DEFAULT_PREFETCH;
 
+    @SuppressWarnings("unchecked")
     public IMapValueQuery(IMap<?, Q> map) {
-        this.map = map;
+        this.map = (IMap<Object, Q>) map;
+    }
+
+    /**
+     * Set the number of values {@link #iterate()} reads per page
+     *
+     * @param prefetch number of values
+     * @return the current object
+     */
+    public IMapValueQuery<Q> prefetch(int prefetch) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Invalid prefetch: " + prefetch);
+        }
+        this.prefetch = prefetch;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Unordered queries read the matching values in pages of the prefetch size ordered by key while
+     * they are consumed, so the results are never held in memory at once. Closing the iterator stops
+     * the reads.</p>
+     */
+    @Override
+    public CloseableIterator<Q> iterate() {
+        QueryMetadata metadata = queryMixin.getMetadata();
+        com.querydsl.core.types.Predicate where = metadata.getWhere();
+        if (!metadata.getOrderBy().isEmpty() || (where != null && KeyLookup.create(where, serializer) != null)) {
+            return super.iterate();
+        }
+        recordUsage(metadata);
+        return new PagingIterator<Q>(map, where != null ? serializer.handle(where) : null, prefetch,
+                metadata.getModifiers(), serializer);
+    }
+
+    @Override
+    protected Collection<Q> query(QueryMetadata metadata) {
+        KeyLookup lookup = metadata.getWhere() != null ? KeyLookup.create(metadata.getWhere(), serializer) : null;
+        if (lookup == null) {
+            return super.query(metadata);
+        }
+        List<Map.Entry<Object, Q>> entries = lookup(lookup);
+        if (!metadata.getOrderBy().isEmpty()) {
+            Collections.sort(entries, new EntryComparator(metadata.getOrderBy(), serializer));
+        }
+        QueryModifiers modifiers = metadata.getModifiers();
+        int from = (int) Math.min(modifiers.getOffset() != null ? modifiers.getOffset() : 0L, entries.size());
+        int to = modifiers.getLimit() != null
+                ? from + (int) Math.min(modifiers.getLimit(), entries.size() - from) : entries.size();
+        List<Q> results = new ArrayList<Q>(to - from);
+        for (Map.Entry<Object, Q> entry : entries.subList(from, to)) {
+            results.add(entry.getValue());
+        }
+        return results;
+    }
+
+    private List<Map.Entry<Object, Q>> lookup(KeyLookup lookup) {
+        Map<Object, Q> found;
+        if (lookup.getKeys().size() == 1) {
+            Object key = lookup.getKeys().iterator().next();
+            Q value = map.get(key);
+            found = value != null ? Collections.singletonMap(key, value) : Collections.<Object, Q>emptyMap();
+        } else {
+            found = map.getAll(lookup.getKeys());
+        }
+        List<Map.Entry<Object, Q>> entries = new ArrayList<Map.Entry<Object, Q>>(found.size());
+        EntryMatcher matcher = new EntryMatcher(serializer);
+        for (Map.Entry<Object, Q> entry : found.entrySet()) {
+            if (lookup.getRemaining() == null || matcher.matches(lookup.getRemaining(), entry)) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Fetch the given projection of the results
+     *
+     * <p>With an executor service the paths are evaluated on the members owning the entries and only
+     * their values are transferred, otherwise the values are fetched and projected by the caller.</p>
+     *
+     * <pre>
+     * List&lt;UserInfo&gt; infos = query.executor(hz.getExecutorService("default"))
+     *     .fetch(Projections.constructor(UserInfo.class, user.firstName, user.age));
+     * </pre>
+     *
+     * @param projection projection of paths, such as a tuple or a bean
+     * @param <T> projection type
+     * @return projected results
+     */
+    public <T> List<T> fetch(FactoryExpression<T> projection) {
+        QueryMetadata metadata = queryMixin.getMetadata();
+        List<String> attributes = new ArrayList<String>(projection.getArgs().size());
+        for (Expression<?> arg : projection.getArgs()) {
+            if (!(arg instanceof Path)) {
+                throw new UnsupportedOperationException("Only paths can be projected: " + arg);
+            }
+            attributes.add((String) arg.accept(serializer, null));
+        }
+        recordUsage(metadata);
+        com.querydsl.core.types.Predicate where = metadata.getWhere();
+        List<Object[]> rows;
+        if (executor == null || (where != null && KeyLookup.create(where, serializer) != null)) {
+            rows = new ArrayList<Object[]>();
+            for (Q value : query(metadata)) {
+                Object[] row = new Object[attributes.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = Attributes.get(value, attributes.get(i));
+                }
+                rows.add(row);
+            }
+        } else {
+            QueryModifiers modifiers = metadata.getModifiers();
+            long offset = modifiers.getOffset() != null ? modifiers.getOffset() : 0L;
+            int maxResults = getMaxResults(modifiers);
+            EntryComparator comparator = !metadata.getOrderBy().isEmpty()
+                    ? new EntryComparator(metadata.getOrderBy(), serializer) : null;
+            rows = ProjectionTask.project(executor, map.getName(), where != null ? serializer.handle(where) : null,
+                    attributes, comparator, maxResults);
+            int from = (int) Math.min(offset, rows.size());
+            rows = rows.subList(from, maxResults >= 0 ? Math.min(maxResults, rows.size()) : rows.size());
+        }
+        List<T> results = new ArrayList<T>(rows.size());
+        for (Object[] row : rows) {
+            results.add(projection.newInstance(row.length > attributes.size()
+                    ? Arrays.copyOf(row, attributes.size()) : row));
+        }
+        return results;
+    }
+
+    /**
+     * Fetch the values of the given paths of the results
+     *
+     * @param paths paths to project
+     * @return tuples
+     * @see #fetch(FactoryExpression)
+     */
+    public List<Tuple> fetchTuples(Path<?>... paths) {
+        return fetch(Projections.tuple(paths));
+    }
+
+    /**
+     * Keep the results of this query up to date in local memory until the returned query is closed
+     *
+     * @return continuous query
+     */
+    public ContinuousQuery<Q> continuous() {
+        QueryMetadata metadata = queryMixin.getMetadata();
+        if (!metadata.getOrderBy().isEmpty() || metadata.getModifiers().isRestricting()) {
+            throw new UnsupportedOperationException("Continuous queries can't be ordered or limited");
+        }
+        recordUsage(metadata);
+        return new ContinuousQuery<Q>(map, metadata.getWhere(), serializer);
+    }
+
+    @Override
+    protected IMap<?, ?> getMap() {
+        return map;
+    }
+
+    @Override
+    protected void recordUsage(QueryMetadata metadata) {
+        // key lookups don't need an index
+        if (metadata.getWhere() == null || KeyLookup.create(metadata.getWhere(), serializer) == null) {
+            super.recordUsage(metadata);
+        }
     }
 
     @Override
@@ -27,4 +218,20 @@ public class IMapValueQuery<Q> extends AbstractIMapQuery<Q> {
         return map.values(query);
     }
 
+    @Override
+    protected long count(QueryMetadata metadata) {
+        com.querydsl.core.types.Predicate where = metadata.getWhere();
+        KeyLookup lookup = where != null ? KeyLookup.create(where, serializer) : null;
+        return lookup != null ? lookup(lookup).size() : super.count(metadata);
+    }
+
+    @Override
+    protected long count(@Nullable Predicate<?, Q> query) {
+        if (executor != null) {
+            return CountTask.count(executor, map.getName(), query);
+        }
+        // keys only, the values are not transferred
+        return (query != null ? map.keySet(query) : map.keySet()).size();
+    }
+
 }
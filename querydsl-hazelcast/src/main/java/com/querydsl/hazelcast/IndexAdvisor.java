@@ -0,0 +1,195 @@
+package com.querydsl.hazelcast;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hazelcast.core.IMap;
+import com.querydsl.core.types.*;
+import com.querydsl.hazelcast.impl.Attributes;
+import com.querydsl.hazelcast.impl.HazelcastSerializer;
+
+/**
+ * IndexAdvisor records which attributes the queries of a map filter by and recommends indexes for them
+ *
+ * <p>Attributes compared only for equality are recommended an unordered index, attributes used in
+ * range conditions an ordered one. With {@link #autoIndex(long)} the index is added to the map as soon
+ * as the attribute has been used by the given number of queries.</p>
+ *
+ * <pre>
+ * IndexAdvisor advisor = new IndexAdvisor();
+ * new IMapValueQuery&lt;User&gt;(map).indexAdvisor(advisor).where(user.age.gt(20)).fetch();
+ * advisor.getRecommendations("users"); // [users.addIndex("age", true) (1 queries)]
+ * </pre>
+ *
+ * @author velo
+ */
+public class IndexAdvisor {
+
+    /**
+     * Recommendation is an index recommended for an attribute of a map
+     */
+    public static final class Recommendation {
+
+        private final String mapName;
+
+        private final String attribute;
+
+        private final boolean ordered;
+
+        private final long count;
+
+        Recommendation(String mapName, String attribute, boolean ordered, long count) {
+            this.mapName = mapName;
+            this.attribute = attribute;
+            this.ordered = ordered;
+            this.count = count;
+        }
+
+        public String getMapName() {
+            return mapName;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        public boolean isOrdered() {
+            return ordered;
+        }
+
+        /**
+         * Get the number of queries which used the attribute
+         *
+         * @return count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return mapName + ".addIndex(\"" + attribute + "\", " + ordered + ") (" + count + " queries)";
+        }
+
+    }
+
+    private static final class Usage {
+
+        private final AtomicLong equality = new AtomicLong();
+
+        private final AtomicLong range = new AtomicLong();
+
+        private final AtomicBoolean indexed = new AtomicBoolean();
+
+    }
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Usage>> usages
+            = new ConcurrentHashMap<String, ConcurrentMap<String, Usage>>();
+
+    private final HazelcastSerializer serializer;
+
+    private volatile long threshold = -1;
+
+    public IndexAdvisor() {
+        this(HazelcastSerializer.DEFAULT);
+    }
+
+    public IndexAdvisor(HazelcastSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Add the recommended indexes to the maps automatically
+     *
+     * @param threshold number of queries using an attribute, after which it is indexed
+     * @return the current object
+     */
+    public IndexAdvisor autoIndex(long threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Invalid threshold: " + threshold);
+        }
+        this.threshold = threshold;
+        return this;
+    }
+
+    /**
+     * Record the attributes used by the given predicate
+     *
+     * @param map queried map
+     * @param predicate query predicate
+     */
+    public void record(IMap<?, ?> map, Predicate predicate) {
+        Map<String, Boolean> attributes = new HashMap<String, Boolean>();
+        collect(predicate, attributes);
+        ConcurrentMap<String, Usage> mapUsages = usages.get(map.getName());
+        if (mapUsages == null) {
+            usages.putIfAbsent(map.getName(), new ConcurrentHashMap<String, Usage>());
+            mapUsages = usages.get(map.getName());
+        }
+        for (Map.Entry<String, Boolean> entry : attributes.entrySet()) {
+            Usage usage = mapUsages.get(entry.getKey());
+            if (usage == null) {
+                mapUsages.putIfAbsent(entry.getKey(), new Usage());
+                usage = mapUsages.get(entry.getKey());
+            }
+            (entry.getValue() ? usage.range : usage.equality).incrementAndGet();
+            long count = usage.range.get() + usage.equality.get();
+            if (threshold > 0 && count >= threshold && usage.indexed.compareAndSet(false, true)) {
+                map.addIndex(entry.getKey(), usage.range.get() > 0);
+            }
+        }
+    }
+
+    private void collect(Expression<?> expr, Map<String, Boolean> attributes) {
+        if (!(expr instanceof Operation)) {
+            return;
+        }
+        Operation<?> operation = (Operation<?>) expr;
+        Operator op = operation.getOperator();
+        if (op == Ops.AND || op == Ops.OR || op == Ops.NOT) {
+            for (Expression<?> arg : operation.getArgs()) {
+                collect(arg, attributes);
+            }
+        } else if (!operation.getArgs().isEmpty() && operation.getArg(0) instanceof Path
+                && serializer.isNative(operation)) {
+            String attribute = (String) operation.getArg(0).accept(serializer, null);
+            if (Attributes.KEY.equals(attribute)) {
+                return;
+            }
+            boolean range = op == Ops.GT || op == Ops.GOE || op == Ops.LT || op == Ops.LOE
+                    || op == Ops.BETWEEN || op == Ops.LIKE;
+            attributes.put(attribute, range || Boolean.TRUE.equals(attributes.get(attribute)));
+        }
+    }
+
+    /**
+     * Get the recommended indexes of the given map, most used attributes first
+     *
+     * @param mapName name of the map
+     * @return recommendations
+     */
+    public List<Recommendation> getRecommendations(String mapName) {
+        Map<String, Usage> mapUsages = usages.get(mapName);
+        if (mapUsages == null) {
+            return Collections.emptyList();
+        }
+        List<Recommendation> recommendations = new ArrayList<Recommendation>();
+        for (Map.Entry<String, Usage> entry : mapUsages.entrySet()) {
+            Usage usage = entry.getValue();
+            long range = usage.range.get();
+            recommendations.add(new Recommendation(mapName, entry.getKey(), range > 0,
+                    range + usage.equality.get()));
+        }
+        Collections.sort(recommendations, new Comparator<Recommendation>() {
+            @Override
+            public int compare(Recommendation r1, Recommendation r2) {
+                return r1.count < r2.count ? 1 : r1.count > r2.count ? -1 : 0;
+            }
+        });
+        return recommendations;
+    }
+
+}
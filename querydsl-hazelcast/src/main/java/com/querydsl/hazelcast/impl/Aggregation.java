@@ -0,0 +1,217 @@
+package com.querydsl.hazelcast.impl;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.querydsl.core.types.*;
+import com.querydsl.core.util.MathUtils;
+
+/**
+ * Aggregation computes count, sum, avg, min and max aggregates over map entries, optionally grouped
+ * by an attribute
+ *
+ * <p>The definition of the aggregates is serialized to the members, which accumulate their local
+ * entries into one {@link Accumulator} of primitive values per group. It holds only attribute names and
+ * types, the caller merges the partial results of the members and creates the tuples of the aggregate
+ * expressions from their {@link #getValues(Accumulator) values}.</p>
+ *
+ * @author velo
+ */
+public final class Aggregation implements Serializable {
+
+    private static final long serialVersionUID = -1930557408637624147L;
+
+    private enum Function { COUNT_ALL, COUNT, SUM, AVG, MIN, MAX }
+
+    private static final Map<Operator, Function> FUNCTIONS = new HashMap<Operator, Function>();
+
+    static {
+        FUNCTIONS.put(Ops.AggOps.COUNT_ALL_AGG, Function.COUNT_ALL);
+        FUNCTIONS.put(Ops.AggOps.COUNT_AGG, Function.COUNT);
+        FUNCTIONS.put(Ops.AggOps.SUM_AGG, Function.SUM);
+        FUNCTIONS.put(Ops.AggOps.AVG_AGG, Function.AVG);
+        FUNCTIONS.put(Ops.AggOps.MIN_AGG, Function.MIN);
+        FUNCTIONS.put(Ops.AggOps.MAX_AGG, Function.MAX);
+    }
+
+    /**
+     * Accumulator holds the partial aggregates of a single group
+     */
+    public static final class Accumulator implements Serializable {
+
+        private static final long serialVersionUID = -2280153527213386231L;
+
+        private final long[] counts;
+
+        private final long[] longs;
+
+        private final double[] doubles;
+
+        Accumulator(int size) {
+            counts = new long[size];
+            longs = new long[size];
+            doubles = new double[size];
+        }
+
+    }
+
+    @Nullable
+    private final String groupAttribute;
+
+    private final Function[] functions;
+
+    private final String[] attributes;
+
+    private final boolean[] integral;
+
+    private final Class<?>[] types;
+
+    public Aggregation(@Nullable Path<?> groupBy, List<? extends Expression<?>> aggregates,
+            HazelcastSerializer serializer) {
+        this.groupAttribute = groupBy != null ? (String) groupBy.accept(serializer, null) : null;
+        this.functions = new Function[aggregates.size()];
+        this.attributes = new String[aggregates.size()];
+        this.integral = new boolean[aggregates.size()];
+        this.types = new Class<?>[aggregates.size()];
+        for (int i = 0; i < aggregates.size(); i++) {
+            Expression<?> aggregate = aggregates.get(i);
+            types[i] = aggregate.getType();
+            Function function = aggregate instanceof Operation
+                    ? FUNCTIONS.get(((Operation<?>) aggregate).getOperator()) : null;
+            if (function == null) {
+                throw new UnsupportedOperationException("Unsupported aggregate: " + aggregate);
+            }
+            functions[i] = function;
+            if (function != Function.COUNT_ALL) {
+                Expression<?> arg = ((Operation<?>) aggregate).getArg(0);
+                if (!(arg instanceof Path)) {
+                    throw new UnsupportedOperationException("Only paths can be aggregated: " + arg);
+                }
+                attributes[i] = (String) arg.accept(serializer, null);
+                integral[i] = isIntegral(arg.getType());
+            }
+        }
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return Long.class.equals(type) || Integer.class.equals(type)
+                || Short.class.equals(type) || Byte.class.equals(type);
+    }
+
+    /**
+     * Add the given entry to its group
+     *
+     * @param groups accumulators by group value
+     * @param entry entry
+     */
+    public void add(Map<Object, Accumulator> groups, Map.Entry<?, ?> entry) {
+        Object key = groupAttribute != null ? Attributes.get(entry, groupAttribute) : null;
+        Accumulator accumulator = groups.get(key);
+        if (accumulator == null) {
+            accumulator = new Accumulator(functions.length);
+            groups.put(key, accumulator);
+        }
+        for (int i = 0; i < functions.length; i++) {
+            if (functions[i] == Function.COUNT_ALL) {
+                accumulator.counts[i]++;
+                continue;
+            }
+            Object value = Attributes.get(entry, attributes[i]);
+            if (value == null) {
+                continue;
+            }
+            boolean first = accumulator.counts[i]++ == 0;
+            if (functions[i] == Function.COUNT) {
+                continue;
+            } else if (!(value instanceof Number)) {
+                throw new IllegalArgumentException("Not a number: " + attributes[i] + " = " + value);
+            } else if (integral[i]) {
+                long number = ((Number) value).longValue();
+                accumulator.longs[i] = first ? number : combine(functions[i], accumulator.longs[i], number);
+            } else {
+                double number = ((Number) value).doubleValue();
+                accumulator.doubles[i] = first ? number : combine(functions[i], accumulator.doubles[i], number);
+            }
+        }
+    }
+
+    /**
+     * Merge the groups of the given partial result into the target
+     *
+     * @param target accumulators by group value
+     * @param partial accumulators by group value
+     */
+    public void merge(Map<Object, Accumulator> target, Map<Object, Accumulator> partial) {
+        for (Map.Entry<Object, Accumulator> entry : partial.entrySet()) {
+            Accumulator accumulator = target.get(entry.getKey());
+            if (accumulator == null) {
+                target.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            Accumulator other = entry.getValue();
+            for (int i = 0; i < functions.length; i++) {
+                if (other.counts[i] == 0) {
+                    continue;
+                } else if (accumulator.counts[i] == 0) {
+                    accumulator.longs[i] = other.longs[i];
+                    accumulator.doubles[i] = other.doubles[i];
+                } else {
+                    accumulator.longs[i] = combine(functions[i], accumulator.longs[i], other.longs[i]);
+                    accumulator.doubles[i] = combine(functions[i], accumulator.doubles[i], other.doubles[i]);
+                }
+                accumulator.counts[i] += other.counts[i];
+            }
+        }
+    }
+
+    /**
+     * Get the values of the aggregates of the given accumulator, in the types of the aggregate expressions
+     *
+     * @param accumulator accumulator or null, for an empty group
+     * @return aggregate values
+     */
+    @SuppressWarnings("unchecked")
+    public Object[] getValues(@Nullable Accumulator accumulator) {
+        if (accumulator == null) {
+            accumulator = new Accumulator(functions.length);
+        }
+        Object[] values = new Object[functions.length];
+        for (int i = 0; i < functions.length; i++) {
+            Number value;
+            long count = accumulator.counts[i];
+            if (functions[i] == Function.COUNT_ALL || functions[i] == Function.COUNT) {
+                value = count;
+            } else if (count == 0) {
+                value = null;
+            } else if (functions[i] == Function.AVG) {
+                value = (integral[i] ? (double) accumulator.longs[i] : accumulator.doubles[i]) / count;
+            } else {
+                value = integral[i] ? (Number) accumulator.longs[i] : (Number) accumulator.doubles[i];
+            }
+            values[i] = value != null && Number.class.isAssignableFrom(types[i])
+                    ? MathUtils.cast(value, (Class<? extends Number>) types[i]) : value;
+        }
+        return values;
+    }
+
+    private static long combine(Function function, long v1, long v2) {
+        switch (function) {
+            case MIN: return Math.min(v1, v2);
+            case MAX: return Math.max(v1, v2);
+            default: return v1 + v2;
+        }
+    }
+
+    private static double combine(Function function, double v1, double v2) {
+        switch (function) {
+            case MIN: return Math.min(v1, v2);
+            case MAX: return Math.max(v1, v2);
+            default: return v1 + v2;
+        }
+    }
+
+}
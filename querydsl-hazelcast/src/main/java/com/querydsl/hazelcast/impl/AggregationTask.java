@@ -0,0 +1,114 @@
+package com.querydsl.hazelcast.impl;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Iterables;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.core.IExecutorService;
+import com.hazelcast.core.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+import com.hazelcast.query.Predicate;
+
+/**
+ * AggregationTask aggregates the local entries of a member which match a predicate
+ *
+ * <p>The values are read in batches, so the member holds at most one batch of values and the
+ * accumulators of the groups.</p>
+ *
+ * @author velo
+ */
+public class AggregationTask implements Callable<HashMap<Object, Aggregation.Accumulator>>, DataSerializable,
+        HazelcastInstanceAware {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private String mapName;
+
+    @Nullable
+    private Predicate<?, ?> predicate;
+
+    private Aggregation aggregation;
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    public AggregationTask() { }
+
+    public AggregationTask(String mapName, @Nullable Predicate<?, ?> predicate, Aggregation aggregation) {
+        this.mapName = mapName;
+        this.predicate = predicate;
+        this.aggregation = aggregation;
+    }
+
+    /**
+     * Aggregate the matching entries on all members
+     *
+     * @param executor executor service
+     * @param mapName name of the map
+     * @param predicate predicate or null, to aggregate all entries
+     * @param aggregation aggregation
+     * @return merged accumulators by group value
+     */
+    public static Map<Object, Aggregation.Accumulator> aggregate(IExecutorService executor, String mapName,
+            @Nullable Predicate<?, ?> predicate, Aggregation aggregation) {
+        Map<Object, Aggregation.Accumulator> groups = new HashMap<Object, Aggregation.Accumulator>();
+        for (Map<Object, Aggregation.Accumulator> partial : MemberTasks.executeOnAllMembers(executor,
+                new AggregationTask(mapName, predicate, aggregation))) {
+            aggregation.merge(groups, partial);
+        }
+        return groups;
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    /**
+     * Aggregate the matching entries owned by the local member
+     *
+     * @param map map
+     * @param predicate predicate or null, to aggregate all local entries
+     * @param aggregation aggregation
+     * @return accumulators by group value
+     */
+    @SuppressWarnings("unchecked")
+    public static HashMap<Object, Aggregation.Accumulator> aggregateLocal(IMap<?, ?> map,
+            @Nullable Predicate<?, ?> predicate, Aggregation aggregation) {
+        IMap<Object, Object> entries = (IMap<Object, Object>) map;
+        Set<Object> keys = predicate != null ? entries.localKeySet(predicate) : entries.localKeySet();
+        HashMap<Object, Aggregation.Accumulator> groups = new HashMap<Object, Aggregation.Accumulator>();
+        for (List<Object> batch : Iterables.partition(keys, BATCH_SIZE)) {
+            for (Map.Entry<Object, Object> entry : entries.getAll(new HashSet<Object>(batch)).entrySet()) {
+                aggregation.add(groups, entry);
+            }
+        }
+        return groups;
+    }
+
+    @Override
+    public HashMap<Object, Aggregation.Accumulator> call() {
+        return aggregateLocal(hazelcastInstance.getMap(mapName), predicate, aggregation);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeUTF(mapName);
+        out.writeObject(predicate);
+        out.writeObject(aggregation);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        mapName = in.readUTF();
+        predicate = in.readObject();
+        aggregation = in.readObject();
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.querydsl.hazelcast.impl;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Attributes reads and writes attributes of map values in the notation of the Hazelcast predicates
+ *
+ * <p>Nested attributes are separated by dots and {@code __key} refers to the key of an entry.
+ * Getters are preferred over fields and resolved only once per class.</p>
+ *
+ * @author velo
+ */
+public final class Attributes {
+
+    /**
+     * Attribute name of the key of an entry
+     */
+    public static final String KEY = "__key";
+
+    private static final Map<Class<?>, Map<String, AccessibleObject>> ACCESSORS
+            = new ConcurrentHashMap<Class<?>, Map<String, AccessibleObject>>();
+
+    private Attributes() { }
+
+    /**
+     * Get the value of the given attribute of an entry
+     *
+     * @param entry entry
+     * @param attribute attribute
+     * @return value or null, if the attribute or one of its parents is null
+     */
+    @Nullable
+    public static Object get(Map.Entry<?, ?> entry, String attribute) {
+        return KEY.equals(attribute) ? entry.getKey() : get(entry.getValue(), attribute);
+    }
+
+    /**
+     * Get the value of the given attribute
+     *
+     * @param target object to read from
+     * @param attribute attribute
+     * @return value or null, if the attribute or one of its parents is null
+     */
+    @Nullable
+    public static Object get(@Nullable Object target, String attribute) {
+        int start = 0;
+        while (target != null && start <= attribute.length()) {
+            int end = attribute.indexOf('.', start);
+            if (end < 0) {
+                end = attribute.length();
+            }
+            target = read(target, attribute.substring(start, end));
+            start = end + 1;
+        }
+        return target;
+    }
+
+    /**
+     * Set the value of the given attribute
+     *
+     * @param target object to change
+     * @param attribute attribute
+     * @param value new value
+     */
+    public static void set(Object target, String attribute, @Nullable Object value) {
+        int index = attribute.lastIndexOf('.');
+        Object parent = index < 0 ? target : get(target, attribute.substring(0, index));
+        if (parent == null) {
+            throw new IllegalArgumentException("Parent of " + attribute + " is null");
+        }
+        String name = attribute.substring(index + 1);
+        try {
+            Method setter = findSetter(parent.getClass(), name, value);
+            if (setter != null) {
+                setter.invoke(parent, value);
+            } else {
+                Field field = findField(parent.getClass(), name);
+                field.setAccessible(true);
+                field.set(parent, value);
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unable to set " + name + " of " + parent.getClass().getName(), e);
+        }
+    }
+
+    @Nullable
+    private static Method findSetter(Class<?> type, String name, @Nullable Object value) {
+        String setter = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(setter) && method.getParameterTypes().length == 1) {
+                Class<?> parameterType = method.getParameterTypes()[0];
+                if (value == null ? !parameterType.isPrimitive() : wrap(parameterType).isInstance(value)) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // try the superclass
+            }
+        }
+        throw new IllegalArgumentException("No attribute " + name + " in " + type.getName());
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else {
+            return Character.class;
+        }
+    }
+
+    @Nullable
+    private static Object read(Object target, String name) {
+        AccessibleObject accessor = getAccessor(target.getClass(), name);
+        try {
+            if (accessor instanceof Method) {
+                return ((Method) accessor).invoke(target);
+            } else {
+                return ((Field) accessor).get(target);
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unable to read " + name + " of " + target.getClass().getName(), e);
+        }
+    }
+
+    private static AccessibleObject getAccessor(Class<?> type, String name) {
+        Map<String, AccessibleObject> accessors = ACCESSORS.get(type);
+        if (accessors == null) {
+            accessors = new ConcurrentHashMap<String, AccessibleObject>();
+            ACCESSORS.put(type, accessors);
+        }
+        AccessibleObject accessor = accessors.get(name);
+        if (accessor == null) {
+            accessor = findAccessor(type, name);
+            accessor.setAccessible(true);
+            accessors.put(name, accessor);
+        }
+        return accessor;
+    }
+
+    private static AccessibleObject findAccessor(Class<?> type, String name) {
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String getter : new String[]{"get" + suffix, "is" + suffix, name}) {
+            try {
+                return type.getMethod(getter);
+            } catch (NoSuchMethodException e) {
+                // try the next one
+            }
+        }
+        return findField(type, name);
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.querydsl.hazelcast.impl;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import javax.annotation.Nullable;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.core.IExecutorService;
+import com.hazelcast.core.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+import com.hazelcast.query.Predicate;
+
+/**
+ * CountTask counts the entries of the local partitions of a member which match a predicate
+ *
+ * <p>Only the keys are read, so the values are neither deserialized nor transferred.</p>
+ *
+ * @author velo
+ */
+public class CountTask implements Callable<Long>, DataSerializable, HazelcastInstanceAware {
+
+    private String mapName;
+
+    @Nullable
+    private Predicate<?, ?> predicate;
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    public CountTask() { }
+
+    public CountTask(String mapName, @Nullable Predicate<?, ?> predicate) {
+        this.mapName = mapName;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Count the matching entries on all members
+     *
+     * @param executor executor service
+     * @param mapName name of the map
+     * @param predicate predicate or null, to count all entries
+     * @return total count
+     */
+    public static long count(IExecutorService executor, String mapName, @Nullable Predicate<?, ?> predicate) {
+        long count = 0;
+        for (Long local : MemberTasks.executeOnAllMembers(executor, new CountTask(mapName, predicate))) {
+            count += local;
+        }
+        return count;
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @Override
+    public Long call() {
+        IMap<Object, Object> map = hazelcastInstance.getMap(mapName);
+        return (long) (predicate != null ? map.localKeySet(predicate) : map.localKeySet()).size();
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeUTF(mapName);
+        out.writeObject(predicate);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        mapName = in.readUTF();
+        predicate = in.readObject();
+    }
+
+}
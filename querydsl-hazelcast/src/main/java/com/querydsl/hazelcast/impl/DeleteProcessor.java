@@ -0,0 +1,47 @@
+package com.querydsl.hazelcast.impl;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.hazelcast.map.EntryBackupProcessor;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+/**
+ * DeleteProcessor removes map entries on the members owning them
+ *
+ * @author velo
+ */
+public class DeleteProcessor implements EntryProcessor<Object, Object>, EntryBackupProcessor<Object, Object>,
+        DataSerializable {
+
+    @Override
+    public Object process(Map.Entry<Object, Object> entry) {
+        if (entry.getValue() == null) {
+            return null;
+        }
+        entry.setValue(null);
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public void processBackup(Map.Entry<Object, Object> entry) {
+        entry.setValue(null);
+    }
+
+    @Override
+    public EntryBackupProcessor<Object, Object> getBackupProcessor() {
+        return this;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.querydsl.hazelcast.impl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+
+/**
+ * EntryComparator orders map entries by the attributes of {@link OrderSpecifier}s
+ *
+ * <p>It is serialized with the paging predicates, so the entries are ordered on the members
+ * owning them. Entries with equal attributes are ordered by their keys, if they are comparable, otherwise
+ * by the hash codes of the keys.</p>
+ *
+ * @author velo
+ */
+@SuppressWarnings("rawtypes")
+public class EntryComparator implements Comparator<Map.Entry>, Serializable {
+
+    private static final long serialVersionUID = -3372683411374592412L;
+
+    private final String[] attributes;
+
+    private final boolean[] ascending;
+
+    private final boolean[] nullsLast;
+
+    public EntryComparator(List<OrderSpecifier<?>> orderBy, HazelcastSerializer serializer) {
+        this.attributes = new String[orderBy.size()];
+        this.ascending = new boolean[orderBy.size()];
+        this.nullsLast = new boolean[orderBy.size()];
+        for (int i = 0; i < orderBy.size(); i++) {
+            OrderSpecifier<?> order = orderBy.get(i);
+            if (!(order.getTarget() instanceof Path)) {
+                throw new UnsupportedOperationException("Only paths can be ordered by: " + order.getTarget());
+            }
+            attributes[i] = (String) order.getTarget().accept(serializer, null);
+            ascending[i] = order.isAscending();
+            nullsLast[i] = order.getNullHandling() == OrderSpecifier.NullHandling.NullsLast;
+        }
+    }
+
+    /**
+     * Get the attributes to order by
+     *
+     * @return attributes
+     */
+    public List<String> getAttributes() {
+        return Arrays.asList(attributes);
+    }
+
+    @Override
+    public int compare(Map.Entry e1, Map.Entry e2) {
+        for (int i = 0; i < attributes.length; i++) {
+            int result = compare(i, Attributes.get(e1, attributes[i]), Attributes.get(e2, attributes[i]));
+            if (result != 0) {
+                return result;
+            }
+        }
+        Object k1 = e1.getKey();
+        Object k2 = e2.getKey();
+        if (k1 instanceof Comparable && k2 instanceof Comparable) {
+            return compareValues(k1, k2);
+        }
+        return k1.hashCode() < k2.hashCode() ? -1 : (k1.hashCode() == k2.hashCode() ? 0 : 1);
+    }
+
+    /**
+     * Get a comparator for rows which contain the values of the order attributes
+     *
+     * @param offset index of the value of the first order attribute
+     * @return row comparator
+     */
+    public Comparator<Object[]> forRows(final int offset) {
+        return new Comparator<Object[]>() {
+            @Override
+            public int compare(Object[] row1, Object[] row2) {
+                for (int i = 0; i < attributes.length; i++) {
+                    int result = EntryComparator.this.compare(i, row1[offset + i], row2[offset + i]);
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+
+    private int compare(int i, @Nullable Object v1, @Nullable Object v2) {
+        if (v1 == null || v2 == null) {
+            return v1 == v2 ? 0 : (v1 == null) != nullsLast[i] ? -1 : 1;
+        }
+        int result = compareValues(v1, v2);
+        return ascending[i] ? result : -result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object v1, Object v2) {
+        return ((Comparable<Object>) v1).compareTo(v2);
+    }
+
+}
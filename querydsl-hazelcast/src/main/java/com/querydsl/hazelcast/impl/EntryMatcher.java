@@ -0,0 +1,228 @@
+package com.querydsl.hazelcast.impl;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+import com.querydsl.core.types.*;
+
+/**
+ * EntryMatcher evaluates predicates on map entries, with the same operators as the
+ * {@link HazelcastSerializer}
+ *
+ * <p>It is used in the caller and, through {@link MatcherPredicate}, on the members for the string and
+ * collection operations which have no Hazelcast predicate.</p>
+ *
+ * @author velo
+ */
+public final class EntryMatcher {
+
+    private static final Set<Operator> STRING_OPS = new HashSet<Operator>(Arrays.<Operator>asList(
+            Ops.STARTS_WITH, Ops.STARTS_WITH_IC, Ops.ENDS_WITH, Ops.ENDS_WITH_IC, Ops.STRING_CONTAINS,
+            Ops.STRING_CONTAINS_IC, Ops.EQ_IGNORE_CASE, Ops.LIKE, Ops.LIKE_IC, Ops.MATCHES, Ops.MATCHES_IC));
+
+    private final HazelcastSerializer serializer;
+
+    // compiled patterns of the string operations
+    private final Map<Operation<?>, Pattern> patterns = new ConcurrentHashMap<Operation<?>, Pattern>();
+
+    public EntryMatcher(HazelcastSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Evaluate the given predicate on the given entry
+     *
+     * @param predicate predicate
+     * @param entry entry
+     * @return true, if the entry matches
+     */
+    public boolean matches(Predicate predicate, Map.Entry<?, ?> entry) {
+        if (!(predicate instanceof Operation)) {
+            throw new UnsupportedOperationException(String.valueOf(predicate));
+        }
+        Operation<?> operation = (Operation<?>) predicate;
+        Operator op = operation.getOperator();
+        if (op == Ops.AND) {
+            return matches((Predicate) operation.getArg(0), entry) && matches((Predicate) operation.getArg(1), entry);
+        } else if (op == Ops.OR) {
+            return matches((Predicate) operation.getArg(0), entry) || matches((Predicate) operation.getArg(1), entry);
+        } else if (op == Ops.NOT) {
+            return !matches((Predicate) operation.getArg(0), entry);
+        }
+        if (op == Ops.IN && operation.getArg(1) instanceof Path) {
+            // collection contains
+            Collection<?> collection = getCollection(entry, operation.getArg(1));
+            return collection != null && collection.contains(getConstant(operation, 0, Object.class));
+        } else if (op == Ops.COL_IS_EMPTY) {
+            Collection<?> collection = getCollection(entry, operation.getArg(0));
+            return collection == null || collection.isEmpty();
+        }
+        Path<?> any = getAny(operation.getArg(0));
+        if (any != null) {
+            Collection<?> elements = getCollection(entry, any.getMetadata().getParent());
+            String attribute = getRelativeAttribute(any, (Path<?>) operation.getArg(0));
+            if (elements != null) {
+                for (Object element : elements) {
+                    if (matches(operation, attribute != null ? Attributes.get(element, attribute) : element)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        return matches(operation, Attributes.get(entry, (String) operation.getArg(0).accept(serializer, null)));
+    }
+
+    private boolean matches(Operation<?> operation, @Nullable Object value) {
+        Operator op = operation.getOperator();
+        if (op == Ops.IS_NULL) {
+            return value == null;
+        } else if (op == Ops.IS_NOT_NULL) {
+            return value != null;
+        } else if (op == Ops.IN) {
+            return getConstant(operation, 1, Collection.class).contains(value);
+        } else if (op == Ops.NOT_IN) {
+            return !getConstant(operation, 1, Collection.class).contains(value);
+        } else if (op == Ops.EQ) {
+            return value != null && value.equals(getConstant(operation, 1, Object.class));
+        } else if (op == Ops.NE) {
+            // like the NotEqualPredicate of Hazelcast, missing values are not equal
+            return value == null || !value.equals(getConstant(operation, 1, Object.class));
+        } else if (value == null) {
+            return false;
+        } else if (op == Ops.GT) {
+            return compare(value, getConstant(operation, 1, Object.class)) > 0;
+        } else if (op == Ops.GOE) {
+            return compare(value, getConstant(operation, 1, Object.class)) >= 0;
+        } else if (op == Ops.LT) {
+            return compare(value, getConstant(operation, 1, Object.class)) < 0;
+        } else if (op == Ops.LOE) {
+            return compare(value, getConstant(operation, 1, Object.class)) <= 0;
+        } else if (op == Ops.BETWEEN) {
+            return compare(value, getConstant(operation, 1, Object.class)) >= 0
+                    && compare(value, getConstant(operation, 2, Object.class)) <= 0;
+        } else if (STRING_OPS.contains(op)) {
+            return getPattern(operation).matcher(value.toString()).matches();
+        } else {
+            throw new UnsupportedOperationException(String.valueOf(op));
+        }
+    }
+
+    /**
+     * Get whether the given operation can only be evaluated by an {@code EntryMatcher}, because the
+     * Hazelcast predicates have no equivalent
+     *
+     * @param operation operation
+     * @return true, if the operation needs to be matched
+     */
+    static boolean isMatched(Operation<?> operation) {
+        Operator op = operation.getOperator();
+        return STRING_OPS.contains(op) || op == Ops.COL_IS_EMPTY
+                || (op == Ops.IN && operation.getArg(1) instanceof Path)
+                || (!operation.getArgs().isEmpty() && getAny(operation.getArg(0)) != null);
+    }
+
+    @Nullable
+    private static Path<?> getAny(Expression<?> expr) {
+        if (expr instanceof Path) {
+            for (Path<?> path = (Path<?>) expr; path != null; path = path.getMetadata().getParent()) {
+                if (path.getMetadata().getPathType() == PathType.COLLECTION_ANY) {
+                    return path;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static String getRelativeAttribute(Path<?> any, Path<?> path) {
+        StringBuilder attribute = new StringBuilder();
+        for (Path<?> current = path; current != any; current = current.getMetadata().getParent()) {
+            if (current.getMetadata().getPathType() != PathType.PROPERTY) {
+                throw new UnsupportedOperationException("Unsupported path: " + path);
+            }
+            attribute.insert(0, attribute.length() > 0 ? current.getMetadata().getName() + "."
+                    : current.getMetadata().getName());
+        }
+        return attribute.length() > 0 ? attribute.toString() : null;
+    }
+
+    @Nullable
+    private Collection<?> getCollection(Map.Entry<?, ?> entry, Expression<?> path) {
+        Object value = Attributes.get(entry, (String) path.accept(serializer, null));
+        if (value == null || value instanceof Collection) {
+            return (Collection<?>) value;
+        } else if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value);
+        } else {
+            throw new IllegalArgumentException("Not a collection: " + path + " = " + value);
+        }
+    }
+
+    private Pattern getPattern(Operation<?> operation) {
+        Pattern pattern = patterns.get(operation);
+        if (pattern == null) {
+            Operator op = operation.getOperator();
+            String constant = getConstant(operation, 1, String.class);
+            String regex;
+            if (op == Ops.STARTS_WITH || op == Ops.STARTS_WITH_IC) {
+                regex = Pattern.quote(constant) + ".*";
+            } else if (op == Ops.ENDS_WITH || op == Ops.ENDS_WITH_IC) {
+                regex = ".*" + Pattern.quote(constant);
+            } else if (op == Ops.STRING_CONTAINS || op == Ops.STRING_CONTAINS_IC) {
+                regex = ".*" + Pattern.quote(constant) + ".*";
+            } else if (op == Ops.EQ_IGNORE_CASE) {
+                regex = Pattern.quote(constant);
+            } else if (op == Ops.LIKE || op == Ops.LIKE_IC) {
+                regex = toPattern(constant).pattern();
+            } else {
+                regex = constant;
+            }
+            int flags = op == Ops.MATCHES || op == Ops.MATCHES_IC ? 0 : Pattern.DOTALL;
+            if (op == Ops.STARTS_WITH_IC || op == Ops.ENDS_WITH_IC || op == Ops.STRING_CONTAINS_IC
+                    || op == Ops.EQ_IGNORE_CASE || op == Ops.LIKE_IC || op == Ops.MATCHES_IC) {
+                flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+            }
+            pattern = Pattern.compile(regex, flags);
+            patterns.put(operation, pattern);
+        }
+        return pattern;
+    }
+
+    private static <T> T getConstant(Operation<?> operation, int index, Class<T> type) {
+        Expression<?> arg = operation.getArg(index);
+        if (!(arg instanceof Constant)) {
+            throw new UnsupportedOperationException("Only constants are supported: " + arg);
+        }
+        return type.cast(((Constant<?>) arg).getConstant());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object value, @Nullable Object constant) {
+        return ((Comparable<Object>) value).compareTo(constant);
+    }
+
+    /**
+     * Convert the given LIKE pattern into a regular expression
+     *
+     * @param like like pattern with % and _ wildcards
+     * @return regular expression
+     */
+    static Pattern toPattern(String like) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < like.length(); i++) {
+            char c = like.charAt(i);
+            if (c == '%' || c == '_') {
+                regex.append(Pattern.quote(like.substring(start, i))).append(c == '%' ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        regex.append(Pattern.quote(like.substring(start)));
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+}
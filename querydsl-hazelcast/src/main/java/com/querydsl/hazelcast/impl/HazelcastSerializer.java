@@ -47,6 +47,9 @@ public class HazelcastSerializer implements Visitor<Object, Void> {
             com.hazelcast.query.Predicate predicate = (com.hazelcast.query.Predicate) args.get(0)
                     .accept(this, context);
             return Predicates.not(predicate);
+        } else if (EntryMatcher.isMatched(expr)) {
+            // string and collection operations are evaluated on the members
+            return new MatcherPredicate((Predicate) expr);
         } else {
             String attr = (String) args.get(0).accept(this, context);
             if (op == Ops.IN) {
@@ -69,8 +72,6 @@ public class HazelcastSerializer implements Visitor<Object, Void> {
                     return Predicates.lessEqual(attr, value);
                 } else if (op == Ops.NE) {
                     return Predicates.notEqual(attr, value);
-                } else if (op == Ops.LIKE) {
-                    return Predicates.like(attr, (String) value);
                 } else {
                     throw new UnsupportedOperationException(op.name());
                 }
@@ -116,6 +117,17 @@ public class HazelcastSerializer implements Visitor<Object, Void> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Get whether the given operation is translated into a native Hazelcast predicate, which can use
+     * the indexes of the map
+     *
+     * @param operation operation
+     * @return true, if the operation is translated into a native predicate
+     */
+    public boolean isNative(Operation<?> operation) {
+        return !EntryMatcher.isMatched(operation);
+    }
+
     public com.hazelcast.query.Predicate handle(Predicate predicate) {
         return (com.hazelcast.query.Predicate) predicate.accept(this, null);
     }
@@ -0,0 +1,88 @@
+package com.querydsl.hazelcast.impl;
+
+import java.util.*;
+
+import javax.annotation.Nullable;
+
+import com.querydsl.core.types.*;
+
+/**
+ * KeyLookup extracts the keys of a predicate which pins the map key with an equality or IN condition
+ *
+ * <p>The other conditions of the conjunction are kept as the remaining predicate, which is evaluated
+ * on the looked up entries.</p>
+ *
+ * @author velo
+ */
+public final class KeyLookup {
+
+    private final Set<Object> keys;
+
+    @Nullable
+    private final Predicate remaining;
+
+    private KeyLookup(Set<Object> keys, @Nullable Predicate remaining) {
+        this.keys = keys;
+        this.remaining = remaining;
+    }
+
+    /**
+     * Create a lookup for the given predicate
+     *
+     * @param predicate predicate
+     * @param serializer serializer
+     * @return lookup or null, if the predicate doesn't pin the key
+     */
+    @Nullable
+    public static KeyLookup create(Predicate predicate, HazelcastSerializer serializer) {
+        List<Predicate> conditions = new ArrayList<Predicate>();
+        flatten(predicate, conditions);
+        for (int i = 0; i < conditions.size(); i++) {
+            Set<Object> keys = getKeys(conditions.get(i), serializer);
+            if (keys != null) {
+                conditions.remove(i);
+                return new KeyLookup(keys, ExpressionUtils.allOf(conditions));
+            }
+        }
+        return null;
+    }
+
+    private static void flatten(Predicate predicate, List<Predicate> conditions) {
+        if (predicate instanceof Operation && ((Operation<?>) predicate).getOperator() == Ops.AND) {
+            for (Expression<?> arg : ((Operation<?>) predicate).getArgs()) {
+                flatten((Predicate) arg, conditions);
+            }
+        } else {
+            conditions.add(predicate);
+        }
+    }
+
+    @Nullable
+    private static Set<Object> getKeys(Predicate condition, HazelcastSerializer serializer) {
+        if (!(condition instanceof Operation)) {
+            return null;
+        }
+        Operation<?> operation = (Operation<?>) condition;
+        Operator op = operation.getOperator();
+        if ((op != Ops.EQ && op != Ops.IN) || !(operation.getArg(0) instanceof Path)
+                || !(operation.getArg(1) instanceof Constant)
+                || !Attributes.KEY.equals(operation.getArg(0).accept(serializer, null))) {
+            return null;
+        }
+        Object value = ((Constant<?>) operation.getArg(1)).getConstant();
+        if (op == Ops.IN) {
+            return new LinkedHashSet<Object>((Collection<?>) value);
+        }
+        return Collections.singleton(value);
+    }
+
+    public Set<Object> getKeys() {
+        return keys;
+    }
+
+    @Nullable
+    public Predicate getRemaining() {
+        return remaining;
+    }
+
+}
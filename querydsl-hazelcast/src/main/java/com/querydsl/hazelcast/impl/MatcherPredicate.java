@@ -0,0 +1,88 @@
+package com.querydsl.hazelcast.impl;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+import com.hazelcast.nio.serialization.HazelcastSerializationException;
+import com.hazelcast.query.Predicate;
+
+/**
+ * MatcherPredicate evaluates a Querydsl predicate with an {@link EntryMatcher} on the members
+ *
+ * <p>It is used for the string and collection operations which have no Hazelcast predicate, so that
+ * only the matching entries are returned to the caller. Querydsl and the query types need to be on the
+ * classpath of the members, otherwise the deserialization fails with a
+ * {@link HazelcastSerializationException} naming the missing class.</p>
+ *
+ * @author velo
+ */
+public class MatcherPredicate implements Predicate<Object, Object>, DataSerializable {
+
+    private static final long serialVersionUID = -6314390652713580124L;
+
+    private com.querydsl.core.types.Predicate predicate;
+
+    private transient EntryMatcher matcher;
+
+    public MatcherPredicate() { }
+
+    public MatcherPredicate(com.querydsl.core.types.Predicate predicate) {
+        this.predicate = predicate;
+    }
+
+    @Override
+    public boolean apply(Map.Entry<Object, Object> entry) {
+        if (matcher == null) {
+            try {
+                matcher = new EntryMatcher(HazelcastSerializer.DEFAULT);
+            } catch (NoClassDefFoundError e) {
+                throw missingClass(e);
+            }
+        }
+        return matcher.matches(predicate, entry);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeObject(predicate);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        try {
+            predicate = in.readObject();
+        } catch (HazelcastSerializationException e) {
+            throw isMissingClass(e) ? missingClass(e) : e;
+        } catch (NoClassDefFoundError e) {
+            throw missingClass(e);
+        }
+    }
+
+    private static boolean isMissingClass(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ClassNotFoundException || cause instanceof NoClassDefFoundError) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static HazelcastSerializationException missingClass(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && !(cause instanceof ClassNotFoundException)) {
+            cause = cause.getCause();
+        }
+        return new HazelcastSerializationException("Querydsl and the query types need to be on the classpath "
+                + "of the Hazelcast members to evaluate string and collection conditions, missing: "
+                + cause.getMessage(), e);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(predicate);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.querydsl.hazelcast.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.core.IExecutorService;
+import com.hazelcast.core.Member;
+
+/**
+ * MemberTasks runs tasks on all members of the cluster and collects their results
+ *
+ * @author velo
+ */
+public final class MemberTasks {
+
+    private MemberTasks() { }
+
+    /**
+     * Run the given task on all members and wait for the results
+     *
+     * @param executor executor service
+     * @param task task, which needs to be serializable
+     * @param <T> result type
+     * @return results of the members
+     */
+    public static <T> List<T> executeOnAllMembers(IExecutorService executor, Callable<T> task) {
+        Map<Member, Future<T>> futures = executor.submitToAllMembers(task);
+        List<T> results = new ArrayList<T>(futures.size());
+        try {
+            for (Future<T> future : futures.values()) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HazelcastException("Interrupted while waiting for the members", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new HazelcastException(e.getCause());
+        } finally {
+            for (Future<T> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.querydsl.hazelcast.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Iterators;
+import com.hazelcast.core.IMap;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.Predicate;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.OrderSpecifier;
+
+/**
+ * PagingIterator reads the values matching a predicate page by page while they are consumed
+ *
+ * <p>The pages are ordered by key with a {@link PagingPredicate}, so every member returns at most one page
+ * of its entries following the last entry of the previous page, and only the current page is held by the
+ * caller. Entries which are added, removed or changed during the iteration may be missed or returned
+ * twice.</p>
+ *
+ * @param <V> value type
+ * @author velo
+ */
+public class PagingIterator<V> implements CloseableIterator<V> {
+
+    private final IMap<?, V> map;
+
+    private final PagingPredicate predicate;
+
+    private final int pageSize;
+
+    private Iterator<V> page = Iterators.emptyIterator();
+
+    private boolean started, lastPage;
+
+    private long skip, remaining;
+
+    @SuppressWarnings("unchecked")
+    public PagingIterator(IMap<?, V> map, @Nullable Predicate predicate, int pageSize, QueryModifiers modifiers,
+            HazelcastSerializer serializer) {
+        EntryComparator comparator = new EntryComparator(Collections.<OrderSpecifier<?>>emptyList(), serializer);
+        this.map = map;
+        this.predicate = predicate != null
+                ? new PagingPredicate(predicate, comparator, pageSize) : new PagingPredicate(comparator, pageSize);
+        this.pageSize = pageSize;
+        this.skip = modifiers.getOffset() != null ? modifiers.getOffset() : 0L;
+        this.remaining = modifiers.getLimit() != null ? modifiers.getLimit() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (remaining > 0 && !page.hasNext() && !lastPage) {
+            readPage();
+        }
+        return remaining > 0 && page.hasNext();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readPage() {
+        if (started) {
+            predicate.nextPage();
+        }
+        started = true;
+        Collection<V> values = map.values(predicate);
+        lastPage = values.size() < pageSize;
+        page = values.iterator();
+        for (; skip > 0 && page.hasNext(); skip--) {
+            page.next();
+        }
+    }
+
+    @Override
+    public V next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        remaining--;
+        return page.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        page = Iterators.emptyIterator();
+        lastPage = true;
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.querydsl.hazelcast.impl;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+import javax.annotation.Nullable;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.core.IExecutorService;
+import com.hazelcast.core.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+import com.hazelcast.query.Predicate;
+
+/**
+ * ProjectionTask reads attributes of the local entries of a member which match a predicate
+ *
+ * <p>Only the values of the attributes are returned, as one row per entry. When a comparator is given,
+ * the entries are ordered and only the first ones are projected.</p>
+ *
+ * @author velo
+ */
+public class ProjectionTask implements Callable<List<Object[]>>, DataSerializable, HazelcastInstanceAware {
+
+    private String mapName;
+
+    @Nullable
+    private Predicate<?, ?> predicate;
+
+    private String[] attributes;
+
+    @Nullable
+    private EntryComparator comparator;
+
+    private int maxResults;
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    public ProjectionTask() { }
+
+    public ProjectionTask(String mapName, @Nullable Predicate<?, ?> predicate, List<String> attributes,
+            @Nullable EntryComparator comparator, int maxResults) {
+        this.mapName = mapName;
+        this.predicate = predicate;
+        this.attributes = attributes.toArray(new String[attributes.size()]);
+        this.comparator = comparator;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Project the matching entries on all members
+     *
+     * <p>The rows contain the given attributes followed by the order attributes of the comparator.
+     * They are merged in order, but neither offset nor limit are applied.</p>
+     *
+     * @param executor executor service
+     * @param mapName name of the map
+     * @param predicate predicate or null, to project all entries
+     * @param attributes attributes to project
+     * @param comparator comparator or null, if unordered
+     * @param maxResults maximum number of rows per member or -1, if unlimited
+     * @return rows of all members
+     */
+    public static List<Object[]> project(IExecutorService executor, String mapName,
+            @Nullable Predicate<?, ?> predicate, List<String> attributes, @Nullable EntryComparator comparator,
+            int maxResults) {
+        List<String> columns = new ArrayList<String>(attributes);
+        if (comparator != null) {
+            columns.addAll(comparator.getAttributes());
+        }
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (List<Object[]> local : MemberTasks.executeOnAllMembers(executor,
+                new ProjectionTask(mapName, predicate, columns, comparator, maxResults))) {
+            rows.addAll(local);
+        }
+        if (comparator != null) {
+            Collections.sort(rows, comparator.forRows(attributes.size()));
+        }
+        return rows;
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Object[]> call() {
+        IMap<Object, Object> map = hazelcastInstance.getMap(mapName);
+        Set<Object> keys = predicate != null ? map.localKeySet(predicate) : map.localKeySet();
+        List<Map.Entry<Object, Object>> entries = new ArrayList<Map.Entry<Object, Object>>(
+                map.getAll(keys).entrySet());
+        if (comparator != null) {
+            Collections.sort(entries, comparator);
+        }
+        if (maxResults >= 0 && entries.size() > maxResults) {
+            entries = entries.subList(0, maxResults);
+        }
+        List<Object[]> rows = new ArrayList<Object[]>(entries.size());
+        for (Map.Entry<Object, Object> entry : entries) {
+            Object[] row = new Object[attributes.length];
+            for (int i = 0; i < attributes.length; i++) {
+                row[i] = Attributes.get(entry, attributes[i]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeUTF(mapName);
+        out.writeObject(predicate);
+        out.writeInt(attributes.length);
+        for (String attribute : attributes) {
+            out.writeUTF(attribute);
+        }
+        out.writeObject(comparator);
+        out.writeInt(maxResults);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        mapName = in.readUTF();
+        predicate = in.readObject();
+        attributes = new String[in.readInt()];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = in.readUTF();
+        }
+        comparator = in.readObject();
+        maxResults = in.readInt();
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.querydsl.hazelcast.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.hazelcast.map.EntryBackupProcessor;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+/**
+ * UpdateProcessor sets attributes of the values of map entries in place, on the members owning them
+ *
+ * <p>The same changes are applied to the backups.</p>
+ *
+ * @author velo
+ */
+public class UpdateProcessor implements EntryProcessor<Object, Object>, EntryBackupProcessor<Object, Object>,
+        DataSerializable {
+
+    private String[] attributes;
+
+    private Object[] values;
+
+    public UpdateProcessor() { }
+
+    public UpdateProcessor(List<String> attributes, List<Object> values) {
+        this.attributes = attributes.toArray(new String[attributes.size()]);
+        this.values = values.toArray();
+    }
+
+    @Override
+    public Object process(Map.Entry<Object, Object> entry) {
+        return update(entry) ? Boolean.TRUE : null;
+    }
+
+    @Override
+    public void processBackup(Map.Entry<Object, Object> entry) {
+        update(entry);
+    }
+
+    private boolean update(Map.Entry<Object, Object> entry) {
+        Object value = entry.getValue();
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < attributes.length; i++) {
+            Attributes.set(value, attributes[i], values[i]);
+        }
+        // the value is a copy, which needs to be stored
+        entry.setValue(value);
+        return true;
+    }
+
+    @Override
+    public EntryBackupProcessor<Object, Object> getBackupProcessor() {
+        return this;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(attributes.length);
+        for (int i = 0; i < attributes.length; i++) {
+            out.writeUTF(attributes[i]);
+            out.writeObject(values[i]);
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        attributes = new String[in.readInt()];
+        values = new Object[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = in.readUTF();
+            values[i] = in.readObject();
+        }
+    }
+
+}
@@ -1,13 +1,26 @@
 package com.querydsl.hazelcast;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.junit.AfterClass;
@@ -16,10 +29,19 @@ import org.junit.Test;
 
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IExecutorService;
 import com.hazelcast.core.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.serialization.HazelcastSerializationException;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.SimplePath;
+import com.querydsl.core.types.dsl.Wildcard;
 import com.querydsl.hazelcast.domain.QUser;
 import com.querydsl.hazelcast.domain.User;
+import com.querydsl.hazelcast.impl.MatcherPredicate;
 
 public class HazelcastQueryTest {
 
@@ -27,11 +49,13 @@ public class HazelcastQueryTest {
 
     static User u1, u2, u3, u4;
 
+    private static HazelcastInstance hz;
+
     private static IMap<String, User> map;
 
     @BeforeClass
     public static void setUp() throws Exception {
-        HazelcastInstance hz = Hazelcast.newHazelcastInstance();
+        hz = Hazelcast.newHazelcastInstance();
         map = hz.getMap("users");
 
         fillTable();
@@ -47,15 +71,17 @@ public class HazelcastQueryTest {
 
         u1 = addUser("Jaakko", "Jantunen", 20, User.Gender.MALE, null);
         u2 = addUser("Jaakki", "Jantunen", 30, User.Gender.FEMALE, "One detail");
-        u3 = addUser("Jaana", "Aakkonen", 40, User.Gender.MALE, "No details");
-        u4 = addUser("Jaana", "BeekkoNen", 50, User.Gender.FEMALE, null);
+        u3 = addUser("Jaana", "Aakkonen", 40, User.Gender.MALE, "No details", "dev");
+        u4 = addUser("Jaana", "BeekkoNen", 50, User.Gender.FEMALE, null, "admin", "ops");
     }
 
-    private static User addUser(String first, String last, int age, User.Gender gender, String details) {
+    private static User addUser(String first, String last, int age, User.Gender gender, String details,
+            String... tags) {
         User user = new User(first, last, age, new Date());
         user.setId(UUID.randomUUID().toString());
         user.setGender(gender);
         user.setDetails(details);
+        user.setTags(new ArrayList<String>(Arrays.asList(tags)));
         map.put(user.getId(), user);
         System.out.println(user.getId());
         return user;
@@ -79,6 +105,69 @@ public class HazelcastQueryTest {
         assertThat(result, containsInAnyOrder(u1, u2));
     }
 
+    @Test
+    public void startsWith() {
+        assertThat(where(user.firstName.startsWith("Jaak")).fetch(), containsInAnyOrder(u1, u2));
+        assertThat(where(user.lastName.startsWithIgnoreCase("jan")).fetch(), containsInAnyOrder(u1, u2));
+    }
+
+    @Test
+    public void endsWith() {
+        assertThat(where(user.lastName.endsWith("nen")).fetch(), containsInAnyOrder(u1, u2, u3));
+        assertThat(where(user.lastName.endsWithIgnoreCase("nen")).fetch(), containsInAnyOrder(u1, u2, u3, u4));
+    }
+
+    @Test
+    public void stringContains() {
+        assertThat(where(user.lastName.contains("kko")).fetch(), containsInAnyOrder(u3, u4));
+        assertThat(where(user.details.containsIgnoreCase("DETAIL")).fetch(), containsInAnyOrder(u2, u3));
+        assertThat(where(user.firstName.contains("a.")).fetch(), hasSize(0));
+    }
+
+    @Test
+    public void like() {
+        // the same matcher evaluates LIKE on the members and for key lookups
+        SimplePath<String> key = HazelcastExpressions.key(user, String.class);
+        assertThat(where(user.firstName.like("Jaak__")).fetch(), containsInAnyOrder(u1, u2));
+        assertThat(where(user.firstName.like("J_._a")).fetch(), hasSize(0));
+        assertThat(where(key.in(u3.getId(), u4.getId()), user.firstName.like("J_._a")).fetch(), hasSize(0));
+        assertThat(where(key.in(u3.getId(), u4.getId()), user.firstName.like("J_a_a")).fetch(),
+                containsInAnyOrder(u3, u4));
+    }
+
+    @Test
+    public void matcherPredicate_missingClass() throws IOException {
+        ObjectDataInput in = (ObjectDataInput) Proxy.newProxyInstance(ObjectDataInput.class.getClassLoader(),
+                new Class<?>[]{ObjectDataInput.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        throw new HazelcastSerializationException("readObject",
+                                new ClassNotFoundException("com.querydsl.hazelcast.domain.QUser"));
+                    }
+                });
+        try {
+            new MatcherPredicate().readData(in);
+            fail("Expected the missing class to be reported");
+        } catch (HazelcastSerializationException e) {
+            assertThat(e.getMessage(), containsString("classpath"));
+            assertThat(e.getMessage(), containsString("QUser"));
+        }
+    }
+
+    @Test
+    public void matches() {
+        assertThat(where(user.firstName.matches("Jaa(kko|na)")).fetch(), containsInAnyOrder(u1, u3, u4));
+        assertThat(where(user.lastName.equalsIgnoreCase("jantunen")).fetch(), containsInAnyOrder(u1, u2));
+    }
+
+    @Test
+    public void collectionContains() {
+        assertThat(where(user.tags.contains("admin")).fetch(), containsInAnyOrder(u4));
+        assertThat(where(user.tags.isEmpty()).fetch(), containsInAnyOrder(u1, u2));
+        assertThat(where(user.tags.any().startsWith("d")).fetch(), containsInAnyOrder(u3));
+        assertThat(where(user.tags.any().eq("ops"), user.age.gt(40)).fetchCount(), equalTo(1L));
+    }
+
     @Test
     public void notEq() {
         List<User> result = where(user.lastName.ne("Jantunen")).fetch();
@@ -153,6 +242,287 @@ public class HazelcastQueryTest {
         assertThat(result, containsInAnyOrder(u1, u4));
     }
 
+    @Test
+    public void orderBy() {
+        List<User> result = query().orderBy(user.age.desc()).fetch();
+        assertThat(result, contains(u4, u3, u2, u1));
+    }
+
+    @Test
+    public void limitAndOffset() {
+        List<User> result = query().orderBy(user.age.asc()).offset(1).limit(2).fetch();
+        assertThat(result, contains(u2, u3));
+    }
+
+    @Test
+    public void limitZero() {
+        IMap<String, User> unused = delegate(new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                throw new AssertionError("Unexpected call of " + method.getName());
+            }
+        });
+        assertThat(new IMapValueQuery<User>(unused).orderBy(user.age.asc()).limit(0).fetch(), hasSize(0));
+        assertThat(new IMapValueQuery<User>(unused).where(user.age.gt(20)).limit(0).fetch(), hasSize(0));
+    }
+
+    @Test
+    public void limitMax() {
+        List<User> result = query().orderBy(user.age.asc()).offset(1).limit(Long.MAX_VALUE).fetch();
+        assertThat(result, contains(u2, u3, u4));
+    }
+
+    @Test
+    public void fetchFirst() {
+        assertThat(where(user.lastName.eq("Jantunen")).orderBy(user.age.asc()).fetchFirst(), equalTo(u1));
+    }
+
+    @Test
+    public void fetchCount() {
+        assertThat(where(user.age.gt(20)).fetchCount(), equalTo(3L));
+        assertThat(where(user.age.gt(20)).executor(hz.getExecutorService("default")).fetchCount(), equalTo(3L));
+    }
+
+    @Test
+    public void fetchResults() {
+        QueryResults<User> results = where(user.age.gt(20)).orderBy(user.age.asc()).limit(2).fetchResults();
+        assertThat(results.getTotal(), equalTo(3L));
+        assertThat(results.getResults(), contains(u2, u3));
+    }
+
+    @Test
+    public void keyLookup() {
+        SimplePath<String> key = HazelcastExpressions.key(user, String.class);
+        assertThat(where(key.eq(u1.getId())).fetchOne(), equalTo(u1));
+        assertThat(where(key.in(u1.getId(), u2.getId(), u3.getId()), user.age.gt(20)).fetch(),
+                containsInAnyOrder(u2, u3));
+        assertThat(where(key.in(u1.getId(), u2.getId()), user.firstName.like("Jaak%")).fetchCount(), equalTo(2L));
+    }
+
+    @Test
+    public void keyLookup_notEqualsNull() {
+        SimplePath<String> key = HazelcastExpressions.key(user, String.class);
+        // the entries are matched in the caller, with the null rule of the members
+        assertThat(where(key.in(u1.getId(), u2.getId(), u3.getId()), user.details.ne("One detail")).fetch(),
+                containsInAnyOrder(u1, u3));
+        assertThat(where(user.details.ne("One detail")).fetch(), containsInAnyOrder(u1, u3, u4));
+    }
+
+    @Test
+    public void indexAdvisor() {
+        IndexAdvisor advisor = new IndexAdvisor();
+        where(user.age.gt(20), user.firstName.eq("Jaana")).indexAdvisor(advisor).fetch();
+        where(user.age.lt(40)).indexAdvisor(advisor).fetchCount();
+        List<IndexAdvisor.Recommendation> recommendations = advisor.getRecommendations(map.getName());
+        assertThat(recommendations, hasSize(2));
+        assertThat(recommendations.get(0).getAttribute(), equalTo("age"));
+        assertThat(recommendations.get(0).isOrdered(), equalTo(true));
+        assertThat(recommendations.get(0).getCount(), equalTo(2L));
+        assertThat(recommendations.get(1).isOrdered(), equalTo(false));
+    }
+
+    @Test
+    public void indexAdvisor_fetchResults() {
+        IndexAdvisor advisor = new IndexAdvisor();
+        where(user.age.gt(20)).limit(2).indexAdvisor(advisor).fetchResults();
+        assertThat(advisor.getRecommendations(map.getName()).get(0).getCount(), equalTo(1L));
+    }
+
+    @Test
+    public void autoIndex() {
+        final List<String> indexes = new ArrayList<String>();
+        IMap<String, User> indexed = delegate(new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("addIndex")) {
+                    indexes.add(args[0] + ":" + args[1]);
+                }
+                return method.invoke(map, args);
+            }
+        });
+        IndexAdvisor advisor = new IndexAdvisor().autoIndex(2);
+        new IMapValueQuery<User>(indexed).where(user.age.gt(20), user.firstName.eq("Jaana"))
+                .indexAdvisor(advisor).fetch();
+        assertThat(indexes, hasSize(0));
+        new IMapValueQuery<User>(indexed).where(user.age.lt(40)).indexAdvisor(advisor).fetchCount();
+        assertThat(indexes, contains("age:true"));
+        new IMapValueQuery<User>(indexed).where(user.age.goe(30)).indexAdvisor(advisor).fetch();
+        assertThat(indexes, hasSize(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void autoIndex_invalidThreshold() {
+        new IndexAdvisor().autoIndex(0);
+    }
+
+    @Test
+    public void fetchTuples() {
+        IMapValueQuery<User> query = new IMapValueQuery<User>(map);
+        query.where(user.age.gt(20)).orderBy(user.age.desc()).limit(2).executor(hz.getExecutorService("default"));
+        List<Tuple> result = query.fetchTuples(user.firstName, user.age);
+        assertThat(result, hasSize(2));
+        assertThat(result.get(0).get(user.age), equalTo(50));
+        assertThat(result.get(1).get(user.firstName), equalTo("Jaana"));
+        assertThat(result.get(1).get(user.age), equalTo(40));
+    }
+
+    @Test
+    public void iterate() {
+        List<User> result = new ArrayList<User>();
+        CloseableIterator<User> iterator = new IMapValueQuery<User>(map).prefetch(1).where(user.age.gt(20)).iterate();
+        try {
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+        assertThat(result, containsInAnyOrder(u2, u3, u4));
+    }
+
+    @Test
+    public void iterate_offsetAndLimit() {
+        final List<String> calls = new ArrayList<String>();
+        IMap<String, User> paged = delegate(new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                calls.add(method.getName());
+                return method.invoke(map, args);
+            }
+        });
+        CloseableIterator<User> iterator = new IMapValueQuery<User>(paged).prefetch(1).where(user.age.gt(20))
+                .offset(1).limit(2).iterate();
+        List<User> result = new ArrayList<User>();
+        try {
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+        // the pages are ordered by key and the iteration stops at the limit
+        List<User> matching = new ArrayList<User>(Arrays.asList(u2, u3, u4));
+        Collections.sort(matching, new Comparator<User>() {
+            @Override
+            public int compare(User a, User b) {
+                return a.getId().compareTo(b.getId());
+            }
+        });
+        assertThat(result, contains(matching.get(1), matching.get(2)));
+        assertThat(calls, contains("values", "values", "values"));
+    }
+
+    @Test
+    public void aggregate() {
+        Tuple stats = query().executor(hz.getExecutorService("default"))
+                .aggregate(Wildcard.count, user.age.sum(), user.age.avg(), user.age.min(), user.age.max());
+        assertThat(stats.get(Wildcard.count), equalTo(4L));
+        assertThat(stats.get(user.age.sum()), equalTo(140));
+        assertThat(stats.get(user.age.avg()), equalTo(35.0));
+        assertThat(stats.get(user.age.min()), equalTo(20));
+        assertThat(stats.get(user.age.max()), equalTo(50));
+    }
+
+    @Test
+    public void aggregate_groupBy() {
+        Map<String, Tuple> byLastName = where(user.age.gt(20)).aggregate(user.lastName, user.age.sum());
+        assertThat(byLastName.size(), equalTo(3));
+        assertThat(byLastName.get("Jantunen").get(user.age.sum()), equalTo(30));
+    }
+
+    @Test
+    public void aggregate_localKeys() {
+        // the entries of the other members are not aggregated, so the executor service is not used
+        IExecutorService cluster = (IExecutorService) Proxy.newProxyInstance(IExecutorService.class.getClassLoader(),
+                new Class<?>[]{IExecutorService.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        throw new AssertionError("Aggregated on all members");
+                    }
+                });
+        IMapLocalKeyQuery<String> query = new IMapLocalKeyQuery<String>(map);
+        query.where(user.age.gt(20)).executor(cluster);
+        assertThat(query.aggregate(Wildcard.count).get(Wildcard.count), equalTo(3L));
+    }
+
+    @Test
+    public void updateAndDelete() {
+        IMap<String, User> users = hz.getMap("users_dml");
+        for (User u : new User[]{u1, u2, u3, u4}) {
+            users.put(u.getId(), u);
+        }
+        long updated = new IMapUpdateClause(users).where(user.lastName.eq("Jantunen"))
+                .set(user.details, "updated").execute();
+        assertThat(updated, equalTo(2L));
+        assertThat(users.get(u1.getId()).getDetails(), equalTo("updated"));
+        assertThat(users.get(u3.getId()).getDetails(), equalTo("No details"));
+
+        long deleted = new IMapDeleteClause(users).where(user.age.gt(30)).execute();
+        assertThat(deleted, equalTo(2L));
+        assertThat(users.size(), equalTo(2));
+    }
+
+    @Test
+    public void continuous() throws InterruptedException {
+        IMap<String, User> users = hz.getMap("users_continuous");
+        for (User u : new User[]{u1, u2, u3, u4}) {
+            users.put(u.getId(), u);
+        }
+        ContinuousQuery<User> query = new IMapValueQuery<User>(users)
+                .where(user.lastName.eq("Jantunen")).continuous();
+        try {
+            assertThat(query.getResults(), hasSize(2));
+
+            User added = new User("Jaakob", "Jantunen", 60, new Date());
+            added.setId(UUID.randomUUID().toString());
+            users.put(added.getId(), added);
+            awaitSize(query, 3);
+
+            User renamed = users.get(u1.getId());
+            renamed.setLastName("Aakkonen");
+            users.put(renamed.getId(), renamed);
+            awaitSize(query, 2);
+
+            users.remove(u2.getId());
+            awaitSize(query, 1);
+            assertThat(query.getResults().get(0).getId(), equalTo(added.getId()));
+        } finally {
+            query.close();
+        }
+    }
+
+    @Test
+    public void continuous_failedSnapshot() {
+        final List<String> listeners = new ArrayList<String>();
+        IMap<String, User> failing = delegate(new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("entrySet")) {
+                    throw new IllegalStateException("snapshot");
+                } else if (method.getName().equals("addEntryListener")) {
+                    listeners.add((String) method.invoke(map, args));
+                    return listeners.get(listeners.size() - 1);
+                } else if (method.getName().equals("removeEntryListener")) {
+                    listeners.remove(args[0]);
+                }
+                return method.invoke(map, args);
+            }
+        });
+        try {
+            new IMapValueQuery<User>(failing).where(user.lastName.eq("Jantunen")).continuous();
+            fail("Expected the snapshot to fail");
+        } catch (IllegalStateException e) {
+            assertThat(listeners, hasSize(0));
+        }
+    }
+
+    private static void awaitSize(ContinuousQuery<?> query, int size) throws InterruptedException {
+        for (int i = 0; i < 100 && query.getResults().size() != size; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(query.getResults(), hasSize(size));
+    }
+
     @Test(expected = UnsupportedOperationException.class)
     public void coalesce() {
         where(user.details.coalesce("").asString().isNotNull()).fetch();
@@ -171,4 +541,22 @@ public class HazelcastQueryTest {
         return query().where(e);
     }
 
+    /**
+     * Create a map whose calls are passed to the given handler, the exceptions of the invoked methods are unwrapped
+     */
+    @SuppressWarnings("unchecked")
+    private static IMap<String, User> delegate(final InvocationHandler handler) {
+        return (IMap<String, User>) Proxy.newProxyInstance(IMap.class.getClassLoader(),
+                new Class<?>[]{IMap.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        try {
+                            return handler.invoke(proxy, method, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
 }
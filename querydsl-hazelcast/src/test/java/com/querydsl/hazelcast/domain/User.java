@@ -1,7 +1,9 @@
 package com.querydsl.hazelcast.domain;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import com.querydsl.core.annotations.QueryEntity;
 
@@ -28,6 +30,8 @@ public class User implements Serializable {
 
     private String details;
 
+    private List<String> tags = new ArrayList<String>();
+
     public User() {
     }
 
@@ -130,4 +134,12 @@ public class User implements Serializable {
         this.details = details;
     }
 
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
 }